@@ -9,6 +9,7 @@ package org.cloudbus.cloudsim;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -108,14 +109,25 @@ public class Cloudlet {
     private final boolean record;
 
     /**
-     * Stores the operating system line separator.
+     * The number of records of the cloudlet transaction history.
      */
-    private String newline;
+    private int historySize;
 
     /**
-     * The cloudlet transaction history.
+     * The time and the two values of each record of the history, rendered
+     * to text by {@link #getCloudletHistory()}; null while there is no record.
      */
-    private StringBuffer history;
+    private double[] historyValues;
+
+    /**
+     * The event and the two ids or codes of each record of the history.
+     */
+    private int[] historyCodes;
+
+    /**
+     * The messages of the records written by {@link #write(String)}.
+     */
+    private List<String> historyMessages;
 
     /**
      * The list of every resource where the cloudlet has been executed. In case
@@ -143,12 +155,25 @@ public class Cloudlet {
     private int netToS;
 
     /**
-     * The format of decimal numbers.
+     * Indicates if the cloudlets record their history when they are asked to.
      */
-    private DecimalFormat num;
+    private static volatile boolean historyEnabled = true;
 
     // //////////////////////////////////////////
     // Below are CONSTANTS attributes
+    /**
+     * The events of the history records.
+     */
+    private static final int HISTORY_MESSAGE = 0;
+    private static final int HISTORY_FINISHED_SO_FAR = 1;
+    private static final int HISTORY_USER = 2;
+    private static final int HISTORY_ALLOCATION = 3;
+    private static final int HISTORY_MOVE = 4;
+    private static final int HISTORY_SUBMISSION_TIME = 5;
+    private static final int HISTORY_EXEC_START_TIME = 6;
+    private static final int HISTORY_EXEC_PARAM = 7;
+    private static final int HISTORY_STATUS = 8;
+
     /**
      * The Cloudlet has been created and added to the CloudletList object.
      */
@@ -246,8 +271,8 @@ public class Cloudlet {
 
     /**
      * Allocates a new Cloudlet object. The Cloudlet length, input and output
-     * file sizes should be greater than or equal to 1. By default this
-     * constructor sets the history of this object.
+     * file sizes should be greater than or equal to 1. This constructor does
+     * not record the history of this object.
      *
      * @param cloudletId the unique ID of this Cloudlet
      * @param cloudletLength the length or size (in MI) of this cloudlet to be
@@ -346,8 +371,8 @@ public class Cloudlet {
 
     /**
      * Allocates a new Cloudlet object. The Cloudlet length, input and output
-     * file sizes should be greater than or equal to 1. By default this
-     * constructor sets the history of this object.
+     * file sizes should be greater than or equal to 1. This constructor does
+     * not record the history of this object.
      *
      * @param cloudletId the unique ID of this Cloudlet
      * @param cloudletLength the length or size (in MI) of this cloudlet to be
@@ -700,10 +725,10 @@ public class Cloudlet {
      */
     public String getCloudletHistory() {
         String msg = null;
-        if (history == null) {
+        if (historySize == 0) {
             msg = "No history is recorded for Cloudlet #" + cloudletId;
         } else {
-            msg = history.toString();
+            msg = renderHistory();
         }
 
         return msg;
@@ -776,8 +801,8 @@ public class Cloudlet {
         final Resource res = resList.get(index);
         res.finishedSoFar = length;
 
-        if (record) {
-            write("Sets the length's finished so far to " + length);
+        if (isRecording()) {
+            addHistory(HISTORY_FINISHED_SO_FAR, (int) (length >>> 32), (int) length, 0, 0);
         }
     }
 
@@ -792,8 +817,8 @@ public class Cloudlet {
      */
     public void setUserId(final int id) {
         userId = id;
-        if (record) {
-            write("Assigns the Cloudlet to " + CloudSim.getEntityName(id) + " (ID #" + id + ")");
+        if (isRecording()) {
+            addHistory(HISTORY_USER, id, 0, 0, 0);
         }
     }
 
@@ -870,14 +895,10 @@ public class Cloudlet {
         // add into a list if moving to a new grid resource
         resList.add(res);
 
-        if (index == -1 && record) {
-            write("Allocates this Cloudlet to " + res.resourceName + " (ID #" + resourceID
-                    + ") with cost = $" + cost + "/sec");
-        } else if (record) {
-            final int id = resList.get(index).resourceId;
-            final String name = resList.get(index).resourceName;
-            write("Moves Cloudlet from " + name + " (ID #" + id + ") to " + res.resourceName + " (ID #"
-                    + resourceID + ") with cost = $" + cost + "/sec");
+        if (index == -1 && isRecording()) {
+            addHistory(HISTORY_ALLOCATION, resList.size() - 1, 0, cost, 0);
+        } else if (isRecording()) {
+            addHistory(HISTORY_MOVE, index, resList.size() - 1, cost, 0);
         }
 
         index++;  // initially, index = -1
@@ -898,8 +919,8 @@ public class Cloudlet {
         final Resource res = resList.get(index);
         res.submissionTime = clockTime;
 
-        if (record) {
-            write("Sets the submission time to " + num.format(clockTime));
+        if (isRecording()) {
+            addHistory(HISTORY_SUBMISSION_TIME, 0, 0, clockTime, 0);
         }
     }
 
@@ -931,8 +952,8 @@ public class Cloudlet {
      */
     public void setExecStartTime(final double clockTime) {
         execStartTime = clockTime;
-        if (record) {
-            write("Sets the execution start time to " + num.format(clockTime));
+        if (isRecording()) {
+            addHistory(HISTORY_EXEC_START_TIME, 0, 0, clockTime, 0);
         }
     }
 
@@ -973,9 +994,8 @@ public class Cloudlet {
         res.wallClockTime = wallTime;
         res.actualCPUTime = actualTime;
 
-        if (record) {
-            write("Sets the wall clock time to " + num.format(wallTime) + " and the actual CPU time to "
-                    + num.format(actualTime));
+        if (isRecording()) {
+            addHistory(HISTORY_EXEC_PARAM, 0, 0, wallTime, actualTime);
         }
     }
 
@@ -1006,10 +1026,8 @@ public class Cloudlet {
             finishTime = CloudSim.clock();
         }
 
-        if (record) {
-            
-            write("Sets Cloudlet status from " + getCloudletStatusString() + " to "
-                    + Cloudlet.getStatusString(newStatus));
+        if (isRecording()) {
+            addHistory(HISTORY_STATUS, status, newStatus, 0, 0);
         }
 
         status = newStatus;
@@ -1343,28 +1361,141 @@ public class Cloudlet {
      * @post $none
      */
     protected void write(final String str) {
-        if (!record) {
+        if (!isRecording()) {
             return;
         }
 
-        if (num == null || history == null) { // Creates the history or
-            // transactions of this Cloudlet
-            newline = System.getProperty("line.separator");
-            num = new DecimalFormat("#0.00#"); // with 3 decimal spaces
-            history = new StringBuffer(1000);
-            history.append("Time below denotes the simulation time.");
-            history.append(System.getProperty("line.separator"));
-            history.append("Time (sec)       Description Cloudlet #" + cloudletId);
-            history.append(System.getProperty("line.separator"));
-            history.append("------------------------------------------");
-            history.append(System.getProperty("line.separator"));
-            history.append(num.format(CloudSim.clock()));
-            history.append("   Creates Cloudlet ID #" + cloudletId);
-            history.append(System.getProperty("line.separator"));
+        if (historyMessages == null) {
+            historyMessages = new ArrayList<String>(2);
         }
+        historyMessages.add(str);
+        addHistory(HISTORY_MESSAGE, historyMessages.size() - 1, 0, 0, 0);
+    }
+
+    /**
+     * Checks if this Cloudlet records its history: it has been created to
+     * record it, and {@link #isHistoryEnabled() history is enabled}.
+     *
+     * @return true if the history is recorded
+     */
+    protected boolean isRecording() {
+        return record && historyEnabled;
+    }
 
-        history.append(num.format(CloudSim.clock()));
-        history.append("   " + str + newline);
+    /**
+     * Adds a record to the history, at the current simulation time.
+     *
+     * @param event the event
+     * @param code1 the first id or code of the event
+     * @param code2 the second id or code of the event
+     * @param value1 the first value of the event
+     * @param value2 the second value of the event
+     */
+    private void addHistory(int event, int code1, int code2, double value1, double value2) {
+        if (historyValues == null) {
+            // room for the records of a cloudlet run once on a single resource
+            historyValues = new double[3 * 12];
+            historyCodes = new int[3 * 12];
+        } else if (3 * historySize == historyValues.length) {
+            final int length = 3 * (historySize + historySize / 2);
+            historyValues = Arrays.copyOf(historyValues, length);
+            historyCodes = Arrays.copyOf(historyCodes, length);
+        }
+        int i = 3 * historySize++;
+        historyValues[i] = CloudSim.clock();
+        historyValues[i + 1] = value1;
+        historyValues[i + 2] = value2;
+        historyCodes[i] = event;
+        historyCodes[i + 1] = code1;
+        historyCodes[i + 2] = code2;
+    }
+
+    /**
+     * Renders the history as a table of times and descriptions. The names of
+     * the users are the ones of the current simulation.
+     *
+     * @return the history
+     */
+    private String renderHistory() {
+        final String newline = System.getProperty("line.separator");
+        final DecimalFormat num = new DecimalFormat("#0.00#"); // with 3 decimal spaces
+        final StringBuilder history = new StringBuilder(64 * (historySize + 5));
+        history.append("Time below denotes the simulation time.").append(newline);
+        history.append("Time (sec)       Description Cloudlet #").append(cloudletId).append(newline);
+        history.append("------------------------------------------").append(newline);
+        history.append(num.format(historyValues[0]));
+        history.append("   Creates Cloudlet ID #").append(cloudletId).append(newline);
+
+        for (int i = 0; i < 3 * historySize; i += 3) {
+            final double value1 = historyValues[i + 1];
+            final double value2 = historyValues[i + 2];
+            final int code1 = historyCodes[i + 1];
+            final int code2 = historyCodes[i + 2];
+            history.append(num.format(historyValues[i])).append("   ");
+            switch (historyCodes[i]) {
+                case HISTORY_FINISHED_SO_FAR:
+                    history.append("Sets the length's finished so far to ")
+                            .append(((long) code1 << 32) | (code2 & 0xffffffffL));
+                    break;
+                case HISTORY_USER:
+                    history.append("Assigns the Cloudlet to ").append(CloudSim.getEntityName(code1))
+                            .append(" (ID #").append(code1).append(")");
+                    break;
+                case HISTORY_ALLOCATION:
+                    history.append("Allocates this Cloudlet to ").append(resList.get(code1).resourceName)
+                            .append(" (ID #").append(resList.get(code1).resourceId)
+                            .append(") with cost = $").append(value1).append("/sec");
+                    break;
+                case HISTORY_MOVE:
+                    history.append("Moves Cloudlet from ").append(resList.get(code1).resourceName)
+                            .append(" (ID #").append(resList.get(code1).resourceId)
+                            .append(") to ").append(resList.get(code2).resourceName)
+                            .append(" (ID #").append(resList.get(code2).resourceId)
+                            .append(") with cost = $").append(value1).append("/sec");
+                    break;
+                case HISTORY_SUBMISSION_TIME:
+                    history.append("Sets the submission time to ").append(num.format(value1));
+                    break;
+                case HISTORY_EXEC_START_TIME:
+                    history.append("Sets the execution start time to ").append(num.format(value1));
+                    break;
+                case HISTORY_EXEC_PARAM:
+                    history.append("Sets the wall clock time to ").append(num.format(value1))
+                            .append(" and the actual CPU time to ").append(num.format(value2));
+                    break;
+                case HISTORY_STATUS:
+                    history.append("Sets Cloudlet status from ").append(Cloudlet.getStatusString(code1))
+                            .append(" to ").append(Cloudlet.getStatusString(code2));
+                    break;
+                default:
+                    history.append(historyMessages.get(code1));
+                    break;
+            }
+            history.append(newline);
+        }
+        return history.toString();
+    }
+
+    /**
+     * Enables or disables the history of all the cloudlets. When it is
+     * disabled, the cloudlets created to record their history record nothing.
+     * It is enabled by default, but the history is only recorded by the
+     * cloudlets created with <tt>record</tt> set to true.
+     *
+     * @param enabled true to let the cloudlets record their history
+     */
+    public static void setHistoryEnabled(final boolean enabled) {
+        historyEnabled = enabled;
+    }
+
+    /**
+     * Checks if the cloudlets may record their history.
+     *
+     * @return true if the cloudlets created to record their history record it
+     * @see #setHistoryEnabled(boolean)
+     */
+    public static boolean isHistoryEnabled() {
+        return historyEnabled;
     }
 
     /**
@@ -10,7 +10,9 @@ package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
 
@@ -23,6 +25,11 @@ import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
  *   <li>avg seek time = 9 m/s</li>
  *   <li>max transfer rate = 133 MB/sec</li>
  * </ul>
+ * <p>
+ * The files are indexed by name, and the offset of each file, the total size of the files stored
+ * before it, is kept in a binary indexed tree, so finding, adding and deleting a file take
+ * logarithmic time. The names and sizes of the stored files are expected to change only through
+ * this storage.
  * 
  * @author Uros Cibej
  * @author Anthony Sulistio
@@ -30,11 +37,24 @@ import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
  */
 public class HarddriveStorage implements Storage {
 
-	/** A list storing the names of all files on the hard drive. */
-	private List<String> nameList;
+	/**
+	 * The files stored on the hard drive by name, in the order their names were added, which is the
+	 * order of {@link #getFileNameList()}; a renamed file moves to the end. The order of storage,
+	 * which the offsets and {@link #hasPotentialAvailableSpace(int)} follow, is the one of the slots.
+	 */
+	private Map<String, Entry> entries;
+
+	/** The files in the order they were stored; a deleted file leaves a <tt>null</tt> slot. */
+	private Entry[] slots;
 
-	/** A list storing all files stored on the hard drive. */
-	private List<File> fileList;
+	/** The number of slots used, including the ones of deleted files. */
+	private int slotCount;
+
+	/**
+	 * The binary indexed tree of the sizes of the files in the slots, giving the offset of each
+	 * file.
+	 */
+	private long[] offsetTree;
 
 	/** The name of the hard drive. */
 	private final String name;
@@ -101,8 +121,10 @@ public class HarddriveStorage implements Storage {
 	 * created.
 	 */
 	private void init() {
-		fileList = new ArrayList<File>();
-		nameList = new ArrayList<String>();
+		entries = new LinkedHashMap<String, Entry>();
+		slots = new Entry[16];
+		slotCount = 0;
+		offsetTree = new long[slots.length + 1];
 		gen = null;
 		currentSize = 0;
 
@@ -126,7 +148,7 @@ public class HarddriveStorage implements Storage {
 
 	@Override
 	public int getNumStoredFile() {
-		return fileList.size();
+		return entries.size();
 	}
 
 	@Override
@@ -171,15 +193,16 @@ public class HarddriveStorage implements Storage {
 			return true;
 		}
 
-		Iterator<File> it = fileList.iterator();
-		File file = null;
 		int deletedFileSize = 0;
 
 		// if not enough space, then if want to clear/delete some files
 		// then check whether it still have space or not
 		boolean result = false;
-		while (it.hasNext()) {
-			file = it.next();
+		for (int slot = 0; slot < slotCount; slot++) {
+			if (slots[slot] == null) {
+				continue;
+			}
+			File file = slots[slot].file;
 			if (!file.isReadOnly()) {
 				deletedFileSize += file.getSize();
 			}
@@ -293,28 +316,13 @@ public class HarddriveStorage implements Storage {
 			return obj;
 		}
 
-		Iterator<File> it = fileList.iterator();
-		int size = 0;
-		int index = 0;
-		boolean found = false;
-		File tempFile = null;
-
-		// find the file in the disk
-		while (it.hasNext()) {
-			tempFile = it.next();
-			size += tempFile.getSize();
-			if (tempFile.getName().equals(fileName)) {
-				found = true;
-				obj = tempFile;
-				break;
-			}
-
-			index++;
-		}
+		Entry entry = entries.get(fileName);
 
 		// if the file is found, then determine the time taken to get it
-		if (found) {
-			obj = fileList.get(index);
+		if (entry != null) {
+			obj = entry.file;
+			// the size of the files up to this one, included
+			int size = (int) getOffset(entry.slot);
 			double seekTime = getSeekTime(size);
 			double transferTime = getTransferTime(obj.getSize());
 
@@ -327,7 +335,78 @@ public class HarddriveStorage implements Storage {
 
 	@Override
 	public List<String> getFileNameList() {
-		return nameList;
+		return new ArrayList<String>(entries.keySet());
+	}
+
+	/**
+	 * Gets the total size of the files stored up to a slot, included.
+	 * 
+	 * @param slot the slot
+	 * @return the total size
+	 */
+	private long getOffset(int slot) {
+		long sum = 0;
+		for (int i = slot + 1; i > 0; i -= i & -i) {
+			sum += offsetTree[i];
+		}
+		return sum;
+	}
+
+	/**
+	 * Adds a size to the offsets of a slot and of the slots after it.
+	 * 
+	 * @param slot the slot
+	 * @param size the size
+	 */
+	private void addOffset(int slot, long size) {
+		for (int i = slot + 1; i < offsetTree.length; i += i & -i) {
+			offsetTree[i] += size;
+		}
+	}
+
+	/**
+	 * Puts a file in a new slot, after the slots used. When all the slots are used, the deleted
+	 * files are dropped or the slots are doubled first.
+	 * 
+	 * @param file the file
+	 */
+	private void store(File file) {
+		if (slotCount == slots.length) {
+			Entry[] stored = slots;
+			int count = slotCount;
+			if (entries.size() >= slots.length / 2) {
+				slots = new Entry[slots.length * 2];
+			} else {
+				slots = new Entry[slots.length];
+			}
+			offsetTree = new long[slots.length + 1];
+			slotCount = 0;
+			for (int i = 0; i < count; i++) {
+				if (stored[i] != null) {
+					stored[i].slot = slotCount;
+					slots[slotCount] = stored[i];
+					addOffset(slotCount, stored[i].size);
+					slotCount++;
+				}
+			}
+		}
+
+		Entry entry = new Entry(file, slotCount);
+		slots[slotCount] = entry;
+		addOffset(slotCount, entry.size);
+		slotCount++;
+		entries.put(file.getName(), entry);
+	}
+
+	/**
+	 * Removes a file from its slot.
+	 * 
+	 * @param entry the entry of the file
+	 */
+	private void remove(Entry entry) {
+		entries.remove(entry.file.getName());
+		slots[entry.slot] = null;
+		addOffset(entry.slot, -entry.size);
 	}
 
 	/**
@@ -419,8 +498,7 @@ public class HarddriveStorage implements Storage {
 			double seekTime = getSeekTime(file.getSize());
 			double transferTime = getTransferTime(file.getSize());
 
-			fileList.add(file);               // add the file into the HD
-			nameList.add(file.getName());     // add the name to the name list
+			store(file);                      // add the file and its name into the HD
 			currentSize += file.getSize();    // increment the current HD size
 			result = seekTime + transferTime;  // add total time
 		}
@@ -451,20 +529,14 @@ public class HarddriveStorage implements Storage {
 			return null;
 		}
 
-		Iterator<File> it = fileList.iterator();
+		Entry entry = entries.get(fileName);
 		File file = null;
-		while (it.hasNext()) {
-			file = it.next();
-			String name = file.getName();
 
-			// if a file is found then delete
-			if (fileName.equals(name)) {
-				double result = deleteFile(file);
-				file.setTransactionTime(result);
-				break;
-			} else {
-				file = null;
-			}
+		// if a file is found then delete
+		if (entry != null) {
+			file = entry.file;
+			double result = deleteFile(file);
+			file.setTransactionTime(result);
 		}
 		return file;
 	}
@@ -485,9 +557,9 @@ public class HarddriveStorage implements Storage {
 		double transferTime = getTransferTime(file.getSize());
 
 		// check if the file is in the storage
-		if (contains(file)) {
-			fileList.remove(file);            // remove the file HD
-			nameList.remove(file.getName());  // remove the name from name list
+		Entry entry = entries.get(file.getName());
+		if (entry != null) {
+			remove(entry);                    // remove the file and its name from the HD
 			currentSize -= file.getSize();    // decrement the current HD space
 			result = seekTime + transferTime;  // total time
 			file.setTransactionTime(result);
@@ -502,15 +574,7 @@ public class HarddriveStorage implements Storage {
 			Log.printConcatLine(name, ".contains(): Warning - invalid file name");
 			return result;
 		}
-		// check each file in the list
-		Iterator<String> it = nameList.iterator();
-		while (it.hasNext()) {
-			String name = it.next();
-			if (name.equals(fileName)) {
-				result = true;
-				break;
-			}
-		}
+		result = entries.containsKey(fileName);
 		return result;
 	}
 
@@ -535,27 +599,42 @@ public class HarddriveStorage implements Storage {
 		}
 
 		// replace the file name in the file (physical) list
-		File obj = getFile(file.getName());
+		String oldName = file.getName();
+		File obj = getFile(oldName);
 		if (obj == null) {
 			return result;
 		} else {
 			obj.setName(newName);
 		}
 
-		// replace the file name in the name list
-		Iterator<String> it = nameList.iterator();
-		while (it.hasNext()) {
-			String name = it.next();
-			if (name.equals(file.getName())) {
-				file.setTransactionTime(0);
-				nameList.remove(name);
-				nameList.add(newName);
-				result = true;
-				break;
-			}
-		}
+		// replace the file name in the index, which moves it to the end of the name list
+		Entry entry = entries.remove(oldName);
+		entries.put(newName, entry);
+		file.setTransactionTime(0);
+		result = true;
 
 		return result;
 	}
 
+	/**
+	 * A file stored on the hard drive, with its slot and its size when it was stored.
+	 */
+	private static final class Entry {
+
+		/** The file. */
+		private final File file;
+
+		/** The size of the file in its slot of the offset tree. */
+		private final int size;
+
+		/** The slot of the file. */
+		private int slot;
+
+		Entry(File file, int slot) {
+			this.file = file;
+			this.size = file.getSize();
+			this.slot = slot;
+		}
+	}
+
 }
@@ -10,10 +10,28 @@ package org.cloudbus.cloudsim;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 /**
  * Logger used for performing logging of the simulation process. It provides the ability to
- * substitute the output stream by any OutputStream subclass.
+ * substitute the output stream by any OutputStream subclass. The output stream and the disabled
+ * flag are kept in the current {@link SimulationContext}.
+ * <p>
+ * Messages have a {@link Level}: the print methods log at {@link Level#INFO}, and
+ * {@link #log(Class, Level, Object...)} logs at any level for a category, usually the class of the
+ * caller. A message is only formatted when its level is enabled for its category. Hot paths
+ * check {@link #isEnabled(Class, Level)} before logging traces at {@link Level#DEBUG}, so that
+ * their arguments are not boxed into an array when the traces are not wanted. Every level is
+ * enabled by default.
+ * <p>
+ * The logger can also be made asynchronous: messages are then put in a bounded ring buffer and
+ * written by a background thread, the callers only waiting when the buffer is full.
+ * {@link org.cloudbus.cloudsim.core.CloudSim#finishSimulation()} flushes the buffer, and a
+ * shutdown hook writes it before the JVM exits.
  * 
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 2.0
@@ -25,15 +43,100 @@ public class Log {
 	/** The Constant LINE_SEPARATOR. */
 	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
-	/** The stream where the log will the outputted. */
-	private static OutputStream output;
+	/** The number of messages the ring buffer of an asynchronous logger holds. */
+	private static final int BUFFER_CAPACITY = 8192;
 
-	/** Indicates if the logger is disabled or not. If set to true,
-         the call for any print method has no effect. */
-	private static boolean disabled;
-	
-	/** Buffer to avoid creating new string builder upon every print. */
-	private static StringBuilder buffer = new StringBuilder();		    
+	/**
+	 * The levels of the messages, from the least to the most severe.
+	 */
+	public enum Level {
+		/** Traces of the events and of the processing, usually for debugging. */
+		DEBUG,
+		/** The progress of the simulation; the level of the print methods. */
+		INFO,
+		/** Unexpected situations the simulation can go on with. */
+		WARNING,
+		/** Errors. */
+		ERROR,
+		/** Disables the messages of a category. */
+		OFF
+	}
+
+	/**
+	 * The logger state of a simulation context.
+	 */
+	private static final class State {
+
+		/** The stream where the log will the outputted. */
+		private OutputStream output;
+
+		/**
+		 * Indicates if the logger is disabled or not. If set to true, the call for any print method
+		 * has no effect.
+		 */
+		private boolean disabled;
+
+		/** Buffer to avoid creating new string builder upon every print. */
+		private final StringBuilder buffer = new StringBuilder();
+
+		/** The lowest level of the messages written, for the categories with no level of their own. */
+		private Level level = Level.DEBUG;
+
+		/** The lowest level of the messages written, by category. */
+		private final Map<Class<?>, Level> categoryLevels = new ConcurrentHashMap<Class<?>, Level>();
+
+		/** The writer of the asynchronous logger, or <tt>null</tt> when the logger is synchronous. */
+		private AsyncWriter writer;
+
+		/**
+		 * Gets the output stream, which is {@link System#out} unless it has been set.
+		 * 
+		 * @return the output
+		 */
+		private OutputStream output() {
+			if (output == null) {
+				output = System.out;
+			}
+			return output;
+		}
+
+		/**
+		 * Checks if the messages of a level are written for a category.
+		 * 
+		 * @param category the category, or <tt>null</tt> for the messages of no category
+		 * @param messageLevel the level of the messages
+		 * @return true, if the messages are written
+		 */
+		private boolean isEnabled(Class<?> category, Level messageLevel) {
+			if (disabled) {
+				return false;
+			}
+			Level threshold = category == null ? null : categoryLevels.get(category);
+			if (threshold == null) {
+				threshold = level;
+			}
+			return messageLevel.compareTo(threshold) >= 0 && messageLevel != Level.OFF;
+		}
+	}
+
+	/**
+	 * Gets the logger state of the current simulation context.
+	 * 
+	 * @return the state
+	 */
+	private static State state() {
+		return SimulationContext.current().getState(State.class, State::new);
+	}
+
+	/**
+	 * Checks if the messages of the print methods, at {@link Level#INFO} and with no category, are
+	 * printed.
+	 * 
+	 * @return true, if the messages are printed
+	 */
+	private static boolean isPrinted() {
+		return state().isEnabled(null, Level.INFO);
+	}
 
 	/**
 	 * Prints a message.
@@ -41,12 +144,27 @@ public class Log {
 	 * @param message the message
 	 */
 	public static void print(String message) {
-		if (!isDisabled()) {
-			try {
-				getOutput().write(message.getBytes());
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+		State state = state();
+		if (state.isEnabled(null, Level.INFO)) {
+			write(state, message);
+		}
+	}
+
+	/**
+	 * Writes a message to the output, or to the ring buffer when the logger is asynchronous.
+	 * 
+	 * @param state the logger state
+	 * @param message the message
+	 */
+	private static void write(State state, String message) {
+		if (state.writer != null) {
+			state.writer.write(message);
+			return;
+		}
+		try {
+			state.output().write(message.getBytes());
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
 	}
 
@@ -56,7 +174,7 @@ public class Log {
 	 * @param message the message
 	 */
 	public static void print(Object message) {
-		if (!isDisabled()) {
+		if (isPrinted()) {
 			print(String.valueOf(message));
 		}
 	}
@@ -67,7 +185,7 @@ public class Log {
 	 * @param message the message
 	 */
 	public static void printLine(String message) {
-		if (!isDisabled()) {
+		if (isPrinted()) {
 			print(message + LINE_SEPARATOR);
 		}
 	}
@@ -76,7 +194,7 @@ public class Log {
 	 * Prints an empty line.
 	 */
 	public static void printLine() {
-		if (!isDisabled()) {
+		if (isPrinted()) {
 			print(LINE_SEPARATOR);
 		}
 	}
@@ -88,7 +206,8 @@ public class Log {
 	 * @param messages the messages to print
 	 */
 	public static void printConcat(Object... messages) {
-		if (!isDisabled()) {
+		if (isPrinted()) {
+			StringBuilder buffer = state().buffer;
 			buffer.setLength(0); // Clear the buffer		    
 			for(int i = 0 ; i < messages.length ; i ++) {
 				buffer.append(String.valueOf(messages[i]));
@@ -103,7 +222,8 @@ public class Log {
 	 * @param messages the messages to print
 	 */
 	public static void printConcatLine(Object... messages) {
-		if (!isDisabled()) {
+		if (isPrinted()) {
+			StringBuilder buffer = state().buffer;
 			buffer.setLength(0); // Clear the buffer		    
 			for(int i = 0 ; i < messages.length ; i ++) {
 				buffer.append(String.valueOf(messages[i]));
@@ -120,7 +240,7 @@ public class Log {
 	 * @param message the message
 	 */
 	public static void printLine(Object message) {
-	    if (!isDisabled()) {
+	    if (isPrinted()) {
 		printLine(String.valueOf(message));
 	    }
 	}
@@ -134,7 +254,7 @@ public class Log {
 	 * @param args the args
 	 */
 	public static void format(String format, Object... args) {
-		if (!isDisabled()) {
+		if (isPrinted()) {
 			print(String.format(format, args));
 		}
 	}
@@ -146,18 +266,92 @@ public class Log {
 	 * @param args the args
 	 */
 	public static void formatLine(String format, Object... args) {
-		if (!isDisabled()) {
+		if (isPrinted()) {
 			printLine(String.format(format, args));
 		}
 	}
 
 	/**
-	 * Sets the output stream.
+	 * Prints the concatenated text representation of the messages and a new line, if the level is
+	 * enabled for the category. The messages are not converted to text otherwise.
+	 * 
+	 * @param category the category of the message, usually the class of the caller
+	 * @param level the level of the message
+	 * @param messages the messages to print
+	 */
+	public static void log(Class<?> category, Level level, Object... messages) {
+		State state = state();
+		if (state.isEnabled(category, level)) {
+			StringBuilder buffer = state.buffer;
+			buffer.setLength(0);
+			for (int i = 0; i < messages.length; i++) {
+				buffer.append(String.valueOf(messages[i]));
+			}
+			buffer.append(LINE_SEPARATOR);
+			write(state, buffer.toString());
+		}
+	}
+
+	/**
+	 * Checks if the messages of a level are printed for a category. Hot paths check it before
+	 * calling {@link #log(Class, Level, Object...)}, so that their messages are neither built nor
+	 * boxed when they are not printed.
+	 * 
+	 * @param category the category, usually the class of the caller
+	 * @param level the level of the messages
+	 * @return true, if the messages are printed
+	 */
+	public static boolean isEnabled(Class<?> category, Level level) {
+		return state().isEnabled(category, level);
+	}
+
+	/**
+	 * Sets the lowest level of the messages printed, for the categories with no level of their
+	 * own. The print methods log at {@link Level#INFO}.
+	 * 
+	 * @param level the level
+	 */
+	public static void setLevel(Level level) {
+		state().level = level;
+	}
+
+	/**
+	 * Gets the lowest level of the messages printed, for the categories with no level of their
+	 * own.
+	 * 
+	 * @return the level
+	 */
+	public static Level getLevel() {
+		return state().level;
+	}
+
+	/**
+	 * Sets the lowest level of the messages printed for a category.
+	 * 
+	 * @param category the category
+	 * @param level the level, or <tt>null</tt> to use the level of the categories with no level
+	 */
+	public static void setLevel(Class<?> category, Level level) {
+		if (level == null) {
+			state().categoryLevels.remove(category);
+		} else {
+			state().categoryLevels.put(category, level);
+		}
+	}
+
+	/**
+	 * Sets the output stream. The messages in the buffer of an asynchronous logger are written to
+	 * the previous stream first.
 	 * 
 	 * @param _output the new output
 	 */
 	public static void setOutput(OutputStream _output) {
-		output = _output;
+		State state = state();
+		if (state.writer != null) {
+			state.writer.close();
+			state.writer = new AsyncWriter(_output == null ? System.out : _output);
+		}
+		state.output = _output;
 	}
 
 	/**
@@ -166,10 +360,43 @@ public class Log {
 	 * @return the output
 	 */
 	public static OutputStream getOutput() {
-		if (output == null) {
-			setOutput(System.out);
+		return state().output();
+	}
+
+	/**
+	 * Makes the logger asynchronous or synchronous. The messages in the buffer are written when it
+	 * becomes synchronous.
+	 * 
+	 * @param asynchronous whether the logger is asynchronous
+	 */
+	public static void setAsynchronous(boolean asynchronous) {
+		State state = state();
+		if (asynchronous && state.writer == null) {
+			state.writer = new AsyncWriter(state.output());
+		} else if (!asynchronous && state.writer != null) {
+			state.writer.close();
+			state.writer = null;
+		}
+	}
+
+	/**
+	 * Checks if the logger is asynchronous.
+	 * 
+	 * @return true, if the logger is asynchronous
+	 */
+	public static boolean isAsynchronous() {
+		return state().writer != null;
+	}
+
+	/**
+	 * Waits until the messages in the buffer of an asynchronous logger are written and flushes the
+	 * output. It has no effect on a synchronous logger.
+	 */
+	public static void flush() {
+		AsyncWriter writer = state().writer;
+		if (writer != null) {
+			writer.flush();
 		}
-		return output;
 	}
 
 	/**
@@ -178,7 +405,7 @@ public class Log {
 	 * @param _disabled the new disabled
 	 */
 	public static void setDisabled(boolean _disabled) {
-		disabled = _disabled;
+		state().disabled = _disabled;
 	}
 
 	/**
@@ -187,7 +414,7 @@ public class Log {
 	 * @return true, if is disable
 	 */
 	public static boolean isDisabled() {
-		return disabled;
+		return state().disabled;
 	}
 
 	/**
@@ -204,4 +431,155 @@ public class Log {
 		setDisabled(false);
 	}
 
+	/**
+	 * The writers of the asynchronous loggers not closed yet. The first writer registers a
+	 * shutdown hook which writes their buffers before the JVM exits.
+	 */
+	private static final class OpenWriters {
+
+		private static final Set<AsyncWriter> WRITERS = ConcurrentHashMap.newKeySet();
+
+		static {
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				for (AsyncWriter writer : WRITERS) {
+					writer.flush();
+				}
+			}, "Log flush"));
+		}
+	}
+
+	/**
+	 * Writes the messages of an asynchronous logger from a bounded ring buffer. Each writer has one
+	 * daemon thread, which waits for messages until the writer is closed. The buffers of the
+	 * writers still open are written by a shutdown hook, so the daemon threads do not lose messages
+	 * when the JVM exits.
+	 */
+	private static final class AsyncWriter implements Runnable {
+
+		/** The output stream. */
+		private final OutputStream output;
+
+		/** The ring buffer of the messages. */
+		private final String[] ring = new String[BUFFER_CAPACITY];
+
+		/** The position of the oldest message in the ring buffer. */
+		private int head;
+
+		/** The number of messages in the ring buffer. */
+		private int size;
+
+		/** The number of messages put in the buffer and not written yet. */
+		private int pending;
+
+		/** Whether the writer is closed, its thread ending once the buffer is empty. */
+		private boolean closed;
+
+		AsyncWriter(OutputStream output) {
+			this.output = output;
+			OpenWriters.WRITERS.add(this);
+			Thread thread = new Thread(this, "Log writer");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		/**
+		 * Puts a message in the ring buffer, waiting while it is full.
+		 * 
+		 * @param message the message
+		 */
+		synchronized void write(String message) {
+			boolean interrupted = false;
+			while (size == ring.length) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			ring[(head + size) % ring.length] = message;
+			size++;
+			pending++;
+			notifyAll();
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Waits until the messages in the ring buffer are written and flushes the output.
+		 */
+		synchronized void flush() {
+			boolean interrupted = false;
+			while (pending > 0) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			try {
+				output.flush();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Writes the messages in the ring buffer and ends the writer thread.
+		 */
+		synchronized void close() {
+			flush();
+			closed = true;
+			notifyAll();
+			OpenWriters.WRITERS.remove(this);
+		}
+
+		/**
+		 * Writes the messages of the ring buffer, a batch at a time, until the writer is closed.
+		 */
+		@Override
+		public void run() {
+			StringBuilder batch = new StringBuilder();
+			while (true) {
+				int count;
+				synchronized (this) {
+					while (size == 0 && !closed) {
+						try {
+							wait();
+						} catch (InterruptedException e) {
+							// the thread only ends when the writer is closed
+						}
+					}
+					if (size == 0) {
+						return;
+					}
+					count = size;
+					for (int i = 0; i < count; i++) {
+						batch.append(ring[head]);
+						ring[head] = null;
+						head = (head + 1) % ring.length;
+					}
+					size = 0;
+					notifyAll();
+				}
+
+				try {
+					output.write(batch.toString().getBytes());
+					output.flush();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+				batch.setLength(0);
+
+				synchronized (this) {
+					pending -= count;
+					notifyAll();
+				}
+			}
+		}
+	}
+
 }
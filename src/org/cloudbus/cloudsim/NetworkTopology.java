@@ -13,8 +13,10 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.cloudbus.cloudsim.network.DelayMatrix_Float;
 import org.cloudbus.cloudsim.network.GraphReaderBrite;
+import org.cloudbus.cloudsim.network.SparseDelayMatrix_Float;
 import org.cloudbus.cloudsim.network.TopologicalGraph;
 import org.cloudbus.cloudsim.network.TopologicalLink;
 import org.cloudbus.cloudsim.network.TopologicalNode;
@@ -30,6 +32,12 @@ import org.cloudbus.cloudsim.network.TopologicalNode;
  * Nevertheless, each CloudSim entity must be mapped to one (and only one) BRITE node to allow
  * proper work of the network simulation. Each BRITE node can be mapped to only one entity at a
  * time.
+ * <p/>
+ * Topologies with up to {@link #getDenseNodeLimit()} nodes keep the delay and the bandwidth
+ * between every pair of nodes in matrices, the delays being computed for all pairs with the
+ * Floyd-Warshall algorithm. Larger topologies keep only their links, and the delays from a node
+ * are computed the first time they are needed and cached for the last nodes used (see
+ * {@link SparseDelayMatrix_Float}); they have no bandwidth matrix.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -40,34 +48,70 @@ import org.cloudbus.cloudsim.network.TopologicalNode;
  * A private default constructor would be created to avoid instantiation.
  */
 public class NetworkTopology {
-        /**
-         * The BRITE id to use for the next node to be created in the network.
-         */
-	protected static int nextIdx = 0;
-
-	private static boolean networkEnabled = false;
-
-        /**
-         * A matrix containing the delay between every pair of nodes in the network.
-         */
-	protected static DelayMatrix_Float delayMatrix = null;
 
-        /**
-         * A matrix containing the bandwidth between every pair of nodes in the network.
-         */
-	protected static double[][] bwMatrix = null;
+	/**
+	 * The default maximum number of nodes of a topology kept in dense matrices.
+	 */
+	public static final int DEFAULT_DENSE_NODE_LIMIT = 1000;
 
-        /**
-         * The Topological Graph of the network.
-         */
-	protected static TopologicalGraph graph = null;
+	/**
+	 * The network of a simulation, kept in its {@link SimulationContext}.
+	 */
+	protected static final class Network {
+
+		/**
+		 * The BRITE id to use for the next node to be created in the network.
+		 */
+		protected int nextIdx = 0;
+
+		private boolean networkEnabled = false;
+
+		/**
+		 * A matrix containing the delay between every pair of nodes in the network.
+		 */
+		protected DelayMatrix_Float delayMatrix = null;
+
+		/**
+		 * The delays between the nodes of a network larger than {@link #denseNodeLimit}.
+		 */
+		protected SparseDelayMatrix_Float sparseDelayMatrix = null;
+
+		/**
+		 * The maximum number of nodes of a network kept in dense matrices.
+		 */
+		protected int denseNodeLimit = DEFAULT_DENSE_NODE_LIMIT;
+
+		/**
+		 * The number of source nodes whose delays are cached in a sparse network.
+		 */
+		protected int cachedSources = SparseDelayMatrix_Float.DEFAULT_CACHED_SOURCES;
+
+		/**
+		 * A matrix containing the bandwidth between every pair of nodes in the network.
+		 */
+		protected double[][] bwMatrix = null;
+
+		/**
+		 * The Topological Graph of the network.
+		 */
+		protected TopologicalGraph graph = null;
+
+		/**
+		 * The map between CloudSim entities and BRITE entities.
+		 * Each key is a CloudSim entity ID and each value the corresponding
+		 * BRITE entity ID.
+		 */
+		protected Map<Integer, Integer> map = null;
+	}
 
 	/**
-         * The map between CloudSim entities and BRITE entities.
-         * Each key is a CloudSim entity ID and each value the corresponding
-         * BRITE entity ID.
-         */
-        protected static Map<Integer, Integer> map = null;
+	 * Gets the network of the current simulation context.
+	 * 
+	 * @return the network
+	 */
+	protected static Network network() {
+		return SimulationContext.current().getState(Network.class, Network::new);
+	}
 
 	/**
 	 * Creates the network topology if the file exists and can be successfully parsed. File is
@@ -78,14 +122,15 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void buildNetworkTopology(String fileName) {
+		Network network = network();
 		Log.printConcatLine("Topology file: ", fileName);
 
 		// try to find the file
 		GraphReaderBrite reader = new GraphReaderBrite();
 
 		try {
-			graph = reader.readGraphFile(fileName);
-			map = new HashMap<Integer, Integer>();
+			network.graph = reader.readGraphFile(fileName);
+			network.map = new HashMap<Integer, Integer>();
 			generateMatrices();
 		} catch (IOException e) {
 			// problem with the file. Does not simulate network
@@ -99,13 +144,22 @@ public class NetworkTopology {
 	 * Generates the matrices used internally to set latency and bandwidth between elements.
 	 */
 	private static void generateMatrices() {
-		// creates the delay matrix
-		delayMatrix = new DelayMatrix_Float(graph, false);
-
-		// creates the bw matrix
-		bwMatrix = createBwMatrix(graph, false);
+		Network network = network();
+		if (network.graph.getNumberOfNodes() <= network.denseNodeLimit) {
+			// creates the delay matrix
+			network.delayMatrix = new DelayMatrix_Float(network.graph, false);
+
+			// creates the bw matrix
+			network.bwMatrix = createBwMatrix(network.graph, false);
+
+			network.sparseDelayMatrix = null;
+		} else {
+			network.sparseDelayMatrix = new SparseDelayMatrix_Float(network.graph, false, network.cachedSources);
+			network.delayMatrix = null;
+			network.bwMatrix = null;
+		}
 
-		networkEnabled = true;
+		network.networkEnabled = true;
 	}
 
 	/**
@@ -122,30 +176,31 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void addLink(int srcId, int destId, double bw, double lat) {
+		Network network = network();
 
-		if (graph == null) {
-			graph = new TopologicalGraph();
+		if (network.graph == null) {
+			network.graph = new TopologicalGraph();
 		}
 
-		if (map == null) {
-			map = new HashMap<Integer, Integer>();
+		if (network.map == null) {
+			network.map = new HashMap<Integer, Integer>();
 		}
 
 		// maybe add the nodes
-		if (!map.containsKey(srcId)) {
-			graph.addNode(new TopologicalNode(nextIdx));
-			map.put(srcId, nextIdx);
-			nextIdx++;
+		if (!network.map.containsKey(srcId)) {
+			network.graph.addNode(new TopologicalNode(network.nextIdx));
+			network.map.put(srcId, network.nextIdx);
+			network.nextIdx++;
 		}
 
-		if (!map.containsKey(destId)) {
-			graph.addNode(new TopologicalNode(nextIdx));
-			map.put(destId, nextIdx);
-			nextIdx++;
+		if (!network.map.containsKey(destId)) {
+			network.graph.addNode(new TopologicalNode(network.nextIdx));
+			network.map.put(destId, network.nextIdx);
+			network.nextIdx++;
 		}
 
 		// generate a new link
-		graph.addLink(new TopologicalLink(map.get(srcId), map.get(destId), (float) lat, (float) bw));
+		network.graph.addLink(new TopologicalLink(network.map.get(srcId), network.map.get(destId), (float) lat, (float) bw));
 
 		generateMatrices();
 
@@ -194,12 +249,13 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void mapNode(int cloudSimEntityID, int briteID) {
-		if (networkEnabled) {
+		Network network = network();
+		if (network.networkEnabled) {
 			try {
 				// this CloudSim entity was already mapped?
-				if (!map.containsKey(cloudSimEntityID)) {
-					if (!map.containsValue(briteID)) { // this BRITE node was already mapped?
-						map.put(cloudSimEntityID, briteID);
+				if (!network.map.containsKey(cloudSimEntityID)) {
+					if (!network.map.containsValue(briteID)) { // this BRITE node was already mapped?
+						network.map.put(cloudSimEntityID, briteID);
 					} else {
 						Log.printConcatLine("Error in network mapping. BRITE node ", briteID, " already in use.");
 					}
@@ -222,9 +278,10 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void unmapNode(int cloudSimEntityID) {
-		if (networkEnabled) {
+		Network network = network();
+		if (network.networkEnabled) {
 			try {
-				map.remove(cloudSimEntityID);
+				network.map.remove(cloudSimEntityID);
 			} catch (Exception e) {
 				Log.printConcatLine("Error in network unmapping. CloudSim node: ", cloudSimEntityID);
 			}
@@ -242,10 +299,16 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static double getDelay(int srcID, int destID) {
-		if (networkEnabled) {
+		Network network = network();
+		if (network.networkEnabled) {
 			try {
 				// add the network latency
-				double delay = delayMatrix.getDelay(map.get(srcID), map.get(destID));
+				double delay;
+				if (network.sparseDelayMatrix != null) {
+					delay = network.sparseDelayMatrix.getDelay(network.map.get(srcID), network.map.get(destID));
+				} else {
+					delay = network.delayMatrix.getDelay(network.map.get(srcID), network.map.get(destID));
+				}
 
 				return delay;
 			} catch (Exception e) {
@@ -265,7 +328,50 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static boolean isNetworkEnabled() {
-		return networkEnabled;
+		return network().networkEnabled;
+	}
+
+	/**
+	 * Sets the maximum number of nodes of a topology kept in dense matrices. It applies to the
+	 * topologies built or changed afterwards.
+	 * 
+	 * @param limit the maximum number of nodes
+	 * @pre limit >= 0
+	 * @post $none
+	 */
+	public static void setDenseNodeLimit(int limit) {
+		network().denseNodeLimit = limit;
+	}
+
+	/**
+	 * Gets the maximum number of nodes of a topology kept in dense matrices.
+	 * 
+	 * @return the maximum number of nodes
+	 */
+	public static int getDenseNodeLimit() {
+		return network().denseNodeLimit;
+	}
+
+	/**
+	 * Sets the number of source nodes whose delays are cached when the topology is too large for
+	 * dense matrices. It applies to the topologies built or changed afterwards.
+	 * 
+	 * @param sources the number of sources
+	 * @pre sources > 0
+	 * @post $none
+	 */
+	public static void setCachedSources(int sources) {
+		network().cachedSources = sources;
+	}
+
+	/**
+	 * Gets the number of source nodes whose delays are cached when the topology is too large for
+	 * dense matrices.
+	 * 
+	 * @return the number of sources
+	 */
+	public static int getCachedSources() {
+		return network().cachedSources;
 	}
 
 }
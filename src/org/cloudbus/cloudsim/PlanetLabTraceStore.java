@@ -0,0 +1,362 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A read-only store of the <a href="https://www.planet-lab.org">PlanetLab</a> traces of a
+ * directory. The traces are converted once into a binary file of integer samples, which is
+ * memory-mapped, and the utilization models created from the store read their samples from the
+ * mapped file instead of parsing their trace.
+ * <p>
+ * The stores are shared by all the simulations of the JVM: {@link #get(String)} returns the same
+ * store for the same directory. The binary file is kept in {@link #getCacheDirectory()} and is
+ * converted again when the names, sizes or modification times of the traces change.
+ * <p>
+ * Each trace keeps the samples of its lines up to the first line that is not an integer, so a
+ * model asking for more samples fails as a model reading the trace file does.
+ *
+ * @see UtilizationModelPlanetLabInMemory
+ */
+public final class PlanetLabTraceStore {
+
+	/** The first bytes of a binary file. */
+	private static final int MAGIC = 0x504c5452; // "PLTR"
+
+	/** The version of the binary format. */
+	private static final int VERSION = 1;
+
+	/** The stores by canonical directory path. */
+	private static final Map<String, PlanetLabTraceStore> STORES = new ConcurrentHashMap<String, PlanetLabTraceStore>();
+
+	/** The directory of the binary files. */
+	private static volatile File cacheDirectory = new File(System.getProperty("java.io.tmpdir"), "cloudsim-traces");
+
+	/** The directory of the traces. */
+	private final File directory;
+
+	/** The index of each trace by file name. */
+	private final Map<String, Integer> indexes;
+
+	/** The file names of the traces. */
+	private final List<String> names;
+
+	/** The first sample of each trace in {@link #samples}. */
+	private final int[] starts;
+
+	/** The number of samples of each trace. */
+	private final int[] lengths;
+
+	/** The samples of all the traces, mapped from the binary file. */
+	private final IntBuffer samples;
+
+	/**
+	 * Gets the store of a directory, converting or mapping its binary file on first use.
+	 *
+	 * @param directory the directory of the traces
+	 * @return the store
+	 * @throws IOException if the traces or the binary file cannot be read, or the binary file
+	 *             cannot be written
+	 */
+	public static PlanetLabTraceStore get(String directory) throws IOException {
+		final File dir = new File(directory).getCanonicalFile();
+		try {
+			return STORES.computeIfAbsent(dir.getPath(), path -> {
+				try {
+					return new PlanetLabTraceStore(dir);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Removes the stores from the pool. The utilization models created before still work.
+	 */
+	public static void clear() {
+		STORES.clear();
+	}
+
+	/**
+	 * Sets the directory of the binary files. It applies to the stores created afterwards.
+	 *
+	 * @param directory the directory, created if it does not exist
+	 */
+	public static void setCacheDirectory(File directory) {
+		cacheDirectory = directory;
+	}
+
+	/**
+	 * Gets the directory of the binary files, by default <tt>cloudsim-traces</tt> in the
+	 * temporary directory.
+	 *
+	 * @return the directory
+	 */
+	public static File getCacheDirectory() {
+		return cacheDirectory;
+	}
+
+	/**
+	 * Creates the store of a directory.
+	 *
+	 * @param directory the canonical directory of the traces
+	 * @throws IOException if the traces or the binary file cannot be read, or the binary file
+	 *             cannot be written
+	 */
+	private PlanetLabTraceStore(File directory) throws IOException {
+		this.directory = directory;
+		File[] files = directory.listFiles();
+		if (files == null) {
+			throw new IOException(directory + " is not a directory");
+		}
+		Arrays.sort(files);
+		long fingerprint = fingerprint(files);
+
+		File binaryFile = new File(cacheDirectory, directory.getName() + "-"
+				+ Integer.toHexString(directory.getPath().hashCode()) + ".bin");
+		MappedByteBuffer buffer = map(binaryFile, fingerprint);
+		if (buffer == null) {
+			convert(files, fingerprint, binaryFile);
+			buffer = map(binaryFile, fingerprint);
+			if (buffer == null) {
+				throw new IOException(binaryFile + " is not a valid trace file");
+			}
+		}
+
+		// the header has been checked by map
+		buffer.position(16);
+		int count = buffer.getInt();
+		names = new ArrayList<String>(count);
+		indexes = new HashMap<String, Integer>();
+		starts = new int[count];
+		lengths = new int[count];
+		int start = 0;
+		for (int i = 0; i < count; i++) {
+			byte[] name = new byte[buffer.getShort() & 0xffff];
+			buffer.get(name);
+			names.add(new String(name, "UTF-8"));
+			indexes.put(names.get(i), i);
+			starts[i] = start;
+			lengths[i] = buffer.getInt();
+			start += lengths[i];
+		}
+		samples = buffer.slice().asIntBuffer();
+	}
+
+	/**
+	 * Maps a binary file.
+	 *
+	 * @return the buffer, or null if the file does not exist or is not the one of the traces
+	 */
+	private static MappedByteBuffer map(File binaryFile, long fingerprint) throws IOException {
+		if (!binaryFile.isFile()) {
+			return null;
+		}
+		try (RandomAccessFile file = new RandomAccessFile(binaryFile, "r"); FileChannel channel = file.getChannel()) {
+			if (channel.size() < 20) {
+				return null;
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != fingerprint) {
+				return null;
+			}
+			return buffer;
+		}
+	}
+
+	/**
+	 * Converts the traces to a binary file: the header, the name and the number of samples of
+	 * each trace, then the samples. The file is written next to the binary file and then renamed,
+	 * so it is never read half-written.
+	 */
+	private static void convert(File[] files, long fingerprint, File binaryFile) throws IOException {
+		List<String> names = new ArrayList<String>();
+		List<int[]> traces = new ArrayList<int[]>();
+		for (File file : files) {
+			if (file.isFile()) {
+				names.add(file.getName());
+				traces.add(read(file));
+			}
+		}
+
+		File parent = binaryFile.getParentFile();
+		if (!parent.isDirectory() && !parent.mkdirs()) {
+			throw new IOException("Couldn't create dir: " + parent);
+		}
+		File temporary = File.createTempFile(binaryFile.getName(), ".tmp", parent);
+		try {
+			try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+				output.writeLong(fingerprint);
+				output.writeInt(names.size());
+				for (int i = 0; i < names.size(); i++) {
+					byte[] name = names.get(i).getBytes("UTF-8");
+					output.writeShort(name.length);
+					output.write(name);
+					output.writeInt(traces.get(i).length);
+				}
+				for (int[] trace : traces) {
+					for (int sample : trace) {
+						output.writeInt(sample);
+					}
+				}
+			}
+			Files.move(temporary.toPath(), binaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			temporary.delete();
+		}
+	}
+
+	/**
+	 * Reads the samples of a trace, up to the first line that is not an integer.
+	 */
+	private static int[] read(File file) throws IOException {
+		int[] trace = new int[289];
+		int length = 0;
+		try (BufferedReader input = new BufferedReader(new FileReader(file))) {
+			String line;
+			while ((line = input.readLine()) != null) {
+				int sample;
+				try {
+					sample = Integer.parseInt(line);
+				} catch (NumberFormatException e) {
+					break;
+				}
+				if (length == trace.length) {
+					trace = Arrays.copyOf(trace, length * 2);
+				}
+				trace[length++] = sample;
+			}
+		}
+		return Arrays.copyOf(trace, length);
+	}
+
+	/**
+	 * Computes a fingerprint of the names, sizes and modification times of the traces.
+	 */
+	private static long fingerprint(File[] files) {
+		long fingerprint = 1125899906842597L;
+		for (File file : files) {
+			if (file.isFile()) {
+				fingerprint = 31 * fingerprint + file.getName().hashCode();
+				fingerprint = 31 * fingerprint + file.length();
+				fingerprint = 31 * fingerprint + file.lastModified();
+			}
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Gets the directory of the traces.
+	 *
+	 * @return the directory
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Gets the file names of the traces, sorted.
+	 *
+	 * @return the file names
+	 */
+	public List<String> getTraceNames() {
+		return Collections.unmodifiableList(names);
+	}
+
+	/**
+	 * Checks if the store has a trace.
+	 *
+	 * @param name the file name of the trace
+	 * @return true if the store has the trace
+	 */
+	public boolean containsTrace(String name) {
+		return indexes.containsKey(name);
+	}
+
+	/**
+	 * Gets the number of samples of a trace.
+	 *
+	 * @param name the file name of the trace
+	 * @return the number of samples
+	 * @throws IllegalArgumentException if the store has no such trace
+	 */
+	public int getSampleCount(String name) {
+		return lengths[index(name)];
+	}
+
+	/**
+	 * Creates a utilization model of a trace, with 289 samples (5 min * 288 = 24 hours).
+	 *
+	 * @param name the file name of the trace
+	 * @param schedulingInterval the scheduling interval
+	 * @return the utilization model
+	 * @throws NumberFormatException if the trace has less than 288 samples
+	 * @throws IllegalArgumentException if the store has no such trace
+	 */
+	public UtilizationModelPlanetLabInMemory createUtilizationModel(String name, double schedulingInterval) {
+		return createUtilizationModel(name, schedulingInterval, 289);
+	}
+
+	/**
+	 * Creates a utilization model of a trace. The last sample repeats the one before it, as in
+	 * {@link UtilizationModelPlanetLabInMemory#UtilizationModelPlanetLabInMemory(String, double, int)}.
+	 *
+	 * @param name the file name of the trace
+	 * @param schedulingInterval the scheduling interval
+	 * @param dataSamples the number of samples of the model
+	 * @return the utilization model
+	 * @throws NumberFormatException if the trace has less than <tt>dataSamples - 1</tt> samples
+	 * @throws IllegalArgumentException if the store has no such trace
+	 */
+	public UtilizationModelPlanetLabInMemory createUtilizationModel(String name, double schedulingInterval,
+			int dataSamples) {
+		int index = index(name);
+		if (lengths[index] < dataSamples - 1) {
+			throw new NumberFormatException(name + " has " + lengths[index] + " samples, " + (dataSamples - 1)
+					+ " needed");
+		}
+		return new UtilizationModelPlanetLabInMemory(samples, starts[index], dataSamples, schedulingInterval);
+	}
+
+	private int index(String name) {
+		Integer index = indexes.get(name);
+		if (index == null) {
+			throw new IllegalArgumentException(directory + " has no trace " + name);
+		}
+		return index;
+	}
+
+}
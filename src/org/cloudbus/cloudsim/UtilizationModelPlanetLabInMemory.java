@@ -3,19 +3,32 @@ package org.cloudbus.cloudsim;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.IntBuffer;
 
 /**
  * Defines the resource utilization model based on 
  * a <a href="https://www.planet-lab.org">PlanetLab</a>
  * datacenter trace file.
+ * <p>
+ * A model created by a {@link PlanetLabTraceStore} reads its samples from the
+ * memory-mapped samples of the store, shared by all the models of the trace.
  */
 public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 	
 	/** The scheduling interval. */
 	private double schedulingInterval;
 
-	/** The data (5 min * 288 = 24 hours). */
-	private final double[] data; 
+	/** The data (5 min * 288 = 24 hours), null until {@link #getData()} for a model of a store. */
+	private double[] data;
+
+	/** The samples of a model of a store, in hundredths, or null. */
+	private final IntBuffer samples;
+
+	/** The index of the first sample of the model in {@link #samples}. */
+	private final int start;
+
+	/** The number of samples of the model. */
+	private final int length;
 	
 	/**
 	 * Instantiates a new PlanetLab resource utilization model from a trace file.
@@ -29,6 +42,9 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 			throws NumberFormatException,
 			IOException {
 		data = new double[289];
+		samples = null;
+		start = 0;
+		length = data.length;
 		setSchedulingInterval(schedulingInterval);
 		BufferedReader input = new BufferedReader(new FileReader(inputPath));
 		int n = data.length;
@@ -53,6 +69,9 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 			IOException {
 		setSchedulingInterval(schedulingInterval);
 		data = new double[dataSamples];
+		samples = null;
+		start = 0;
+		length = data.length;
 		BufferedReader input = new BufferedReader(new FileReader(inputPath));
 		int n = data.length;
 		for (int i = 0; i < n - 1; i++) {
@@ -62,15 +81,48 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 		input.close();
 	}
 
+	/**
+	 * Instantiates a new PlanetLab resource utilization model reading the samples of a
+	 * {@link PlanetLabTraceStore}. The last sample repeats the one before it.
+	 * 
+	 * @param samples the samples of the store, in hundredths
+	 * @param start the index of the first sample of the trace
+	 * @param dataSamples number of samples of the model
+	 * @param schedulingInterval the scheduling interval
+	 */
+	UtilizationModelPlanetLabInMemory(IntBuffer samples, int start, int dataSamples, double schedulingInterval) {
+		setSchedulingInterval(schedulingInterval);
+		this.samples = samples;
+		this.start = start;
+		this.length = dataSamples;
+	}
+
+	/**
+	 * Gets a sample.
+	 * 
+	 * @param index the index of the sample
+	 * @return the sample
+	 */
+	private double getSample(int index) {
+		if (samples == null) {
+			return data[index];
+		}
+		if (index < 0 || index >= length) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+		// the last sample repeats the one before it
+		return samples.get(start + Math.min(index, length - 2)) / 100.0;
+	}
+
 	@Override
 	public double getUtilization(double time) {
 		if (time % getSchedulingInterval() == 0) {
-			return data[(int) time / (int) getSchedulingInterval()];
+			return getSample((int) time / (int) getSchedulingInterval());
 		}
 		int time1 = (int) Math.floor(time / getSchedulingInterval());
 		int time2 = (int) Math.ceil(time / getSchedulingInterval());
-		double utilization1 = data[time1];
-		double utilization2 = data[time2];
+		double utilization1 = getSample(time1);
+		double utilization2 = getSample(time2);
 		double delta = (utilization2 - utilization1) / ((time2 - time1) * getSchedulingInterval());
 		double utilization = utilization1 + delta * (time - time1 * getSchedulingInterval());
 		return utilization;
@@ -95,7 +147,20 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 		return schedulingInterval;
 	}
 	
+	/**
+	 * Gets the data. For a model of a {@link PlanetLabTraceStore}, the data are copied from the
+	 * store on the first call.
+	 * 
+	 * @return the data
+	 */
 	public double[] getData(){
+		if (data == null) {
+			double[] copy = new double[length];
+			for (int i = 0; i < length; i++) {
+				copy[i] = getSample(i);
+			}
+			data = copy;
+		}
 		return data;
 	}
 }
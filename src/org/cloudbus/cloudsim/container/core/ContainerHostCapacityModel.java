@@ -0,0 +1,279 @@
+package org.cloudbus.cloudsim.container.core;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A shadow of the capacity of the hosts, used to try placements of pods without allocating them
+ * on the hosts.
+ * <p>
+ * It keeps, for each host, the free MIPS, RAM, BW and storage, the MIPS requested by its pods and
+ * the MIPS allocated to them, in primitive arrays loaded from the hosts. The pods are then moved
+ * between the hosts of the model only: the provisioners, the schedulers and the pod lists of the
+ * hosts do not change, so nothing has to be restored after the search.
+ * <p>
+ * The checks follow the ones of the hosts: a pod is suitable for a host as in
+ * {@link ContainerHost#isSuitableForContainerVm(ContainerPod)}, and it can be created on the host
+ * if the storage is also enough, as in {@link ContainerHost#containerVmCreate(ContainerPod)}. The
+ * arrays are reused, so a policy can keep one model for all its optimizations.
+ *
+ * @see org.cloudbus.cloudsim.container.resourceAllocatorMigrationEnabled.PowerContainerPodAllocationPolicyMigrationAbstract#optimizeAllocation(List)
+ */
+public class ContainerHostCapacityModel {
+
+    /**
+     * The number of hosts loaded.
+     */
+    private int size;
+
+    /**
+     * Whether the model is loaded.
+     */
+    private boolean loaded;
+
+    /**
+     * The index of each host loaded.
+     */
+    private final Map<ContainerHost, Integer> hostIndexes = new IdentityHashMap<ContainerHost, Integer>();
+
+    /**
+     * The host index of each pod moved in the model, -1 if it is on no host.
+     */
+    private final Map<ContainerPod, Integer> podHostIndexes = new IdentityHashMap<ContainerPod, Integer>();
+
+    /**
+     * The MIPS of a PE of each host.
+     */
+    private double[] peCapacities = new double[16];
+
+    /**
+     * The free MIPS of each host.
+     */
+    private double[] freeMips = new double[16];
+
+    /**
+     * The MIPS requested by the pods of each host.
+     */
+    private double[] requestedMips = new double[16];
+
+    /**
+     * The MIPS allocated to the pods of each host, with the additional potential usage of the pods
+     * migrating in.
+     */
+    private double[] utilizationMips = new double[16];
+
+    /**
+     * The free RAM of each host.
+     */
+    private float[] freeRam = new float[16];
+
+    /**
+     * The free BW of each host.
+     */
+    private long[] freeBw = new long[16];
+
+    /**
+     * The free storage of each host.
+     */
+    private long[] freeStorage = new long[16];
+
+    /**
+     * Loads the capacity of the hosts, as they are allocated now.
+     *
+     * @param hosts the hosts
+     */
+    public void load(List<? extends ContainerHost> hosts) {
+        clear();
+        if (hosts.size() > peCapacities.length) {
+            int length = Math.max(hosts.size(), 2 * peCapacities.length);
+            peCapacities = Arrays.copyOf(peCapacities, length);
+            freeMips = Arrays.copyOf(freeMips, length);
+            requestedMips = Arrays.copyOf(requestedMips, length);
+            utilizationMips = Arrays.copyOf(utilizationMips, length);
+            freeRam = Arrays.copyOf(freeRam, length);
+            freeBw = Arrays.copyOf(freeBw, length);
+            freeStorage = Arrays.copyOf(freeStorage, length);
+        }
+        for (ContainerHost host : hosts) {
+            int index = size++;
+            hostIndexes.put(host, index);
+            peCapacities[index] = host.getContainerVmScheduler().getPeCapacity();
+            freeMips[index] = host.getContainerVmScheduler().getAvailableMips();
+            freeRam[index] = host.getContainerVmRamProvisioner().getAvailableRam();
+            freeBw[index] = host.getContainerVmBwProvisioner().getAvailableBw();
+            freeStorage[index] = host.getStorage();
+
+            double requested = 0;
+            double utilization = 0;
+            for (ContainerPod vm : host.getVmList()) {
+                requested += vm.getCurrentRequestedTotalMips();
+                if (host.getVmsMigratingIn().contains(vm)) {
+                    // calculate additional potential CPU usage of a migrating in VM
+                    utilization += host.getTotalAllocatedMipsForContainerVm(vm) * 0.9 / 0.1;
+                }
+                utilization += host.getTotalAllocatedMipsForContainerVm(vm);
+            }
+            requestedMips[index] = requested;
+            utilizationMips[index] = utilization;
+        }
+        loaded = true;
+    }
+
+    /**
+     * Removes the hosts and the pods moved.
+     */
+    public void clear() {
+        size = 0;
+        loaded = false;
+        hostIndexes.clear();
+        podHostIndexes.clear();
+    }
+
+    /**
+     * Checks whether the model is loaded.
+     *
+     * @return true if it is loaded
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Gets the MIPS requested by the pods of a host in the model.
+     *
+     * @param host the host
+     * @return the requested MIPS
+     */
+    public double getRequestedMips(ContainerHost host) {
+        return requestedMips[index(host)];
+    }
+
+    /**
+     * Gets the MIPS allocated to the pods of a host in the model.
+     *
+     * @param host the host
+     * @return the allocated MIPS
+     */
+    public double getUtilizationMips(ContainerHost host) {
+        return utilizationMips[index(host)];
+    }
+
+    /**
+     * Gets the free RAM of a host in the model.
+     *
+     * @param host the host
+     * @return the free RAM
+     */
+    public float getAvailableRam(ContainerHost host) {
+        return freeRam[index(host)];
+    }
+
+    /**
+     * Gets the free storage of a host in the model.
+     *
+     * @param host the host
+     * @return the free storage
+     */
+    public long getStorage(ContainerHost host) {
+        return freeStorage[index(host)];
+    }
+
+    /**
+     * Checks if a pod, which is not on a host, is suitable for it in the model.
+     *
+     * @param host the host
+     * @param vm   the pod
+     * @return true, if the host has the PE MIPS, the MIPS, the RAM and the BW requested
+     */
+    public boolean isSuitableForContainerVm(ContainerHost host, ContainerPod vm) {
+        int index = index(host);
+        return peCapacities[index] >= vm.getCurrentRequestedMaxMips()
+                && freeMips[index] >= vm.getCurrentRequestedTotalMips()
+                && freeRam[index] >= getRequestedRam(vm)
+                && freeBw[index] >= vm.getCurrentRequestedBw();
+    }
+
+    /**
+     * Checks if a pod, which is not on a host, can be created on it in the model.
+     *
+     * @param host the host
+     * @param vm   the pod
+     * @return true, if it is suitable and the host has its storage
+     */
+    public boolean canCreateContainerVm(ContainerHost host, ContainerPod vm) {
+        return isSuitableForContainerVm(host, vm) && freeStorage[index(host)] >= vm.getSize();
+    }
+
+    /**
+     * Creates a pod on a host in the model.
+     *
+     * @param host the host
+     * @param vm   the pod, which is not on a host of the model
+     * @return true, if it could be created
+     */
+    public boolean containerVmCreate(ContainerHost host, ContainerPod vm) {
+        if (!canCreateContainerVm(host, vm)) {
+            return false;
+        }
+        int index = index(host);
+        double mips = vm.getCurrentRequestedTotalMips();
+        freeMips[index] -= mips;
+        requestedMips[index] += mips;
+        utilizationMips[index] += mips;
+        freeRam[index] -= getRequestedRam(vm);
+        freeBw[index] -= vm.getCurrentRequestedBw();
+        freeStorage[index] -= vm.getSize();
+        podHostIndexes.put(vm, index);
+        return true;
+    }
+
+    /**
+     * Destroys a pod on its host in the model. A pod which has not been moved in the model frees
+     * what its host has allocated to it.
+     *
+     * @param vm the pod
+     */
+    public void containerVmDestroy(ContainerPod vm) {
+        Integer moved = podHostIndexes.get(vm);
+        if (moved != null) {
+            if (moved >= 0) {
+                double mips = vm.getCurrentRequestedTotalMips();
+                freeMips[moved] += mips;
+                requestedMips[moved] -= mips;
+                utilizationMips[moved] -= mips;
+                freeRam[moved] += getRequestedRam(vm);
+                freeBw[moved] += vm.getCurrentRequestedBw();
+                freeStorage[moved] += vm.getSize();
+            }
+        } else {
+            ContainerHost host = vm.getHost();
+            Integer index = host == null ? null : hostIndexes.get(host);
+            if (index != null) {
+                freeMips[index] += vm.getCurrentRequestedTotalMips();
+                requestedMips[index] -= vm.getCurrentRequestedTotalMips();
+                utilizationMips[index] -= host.getTotalAllocatedMipsForContainerVm(vm);
+                freeRam[index] += host.getContainerVmRamProvisioner().getAllocatedRamForContainerVm(vm);
+                freeBw[index] += host.getContainerVmBwProvisioner().getAllocatedBwForContainerVm(vm);
+                freeStorage[index] += vm.getSize();
+            }
+        }
+        podHostIndexes.put(vm, -1);
+    }
+
+    /**
+     * Gets the RAM a host allocates to a pod, which is at most the RAM of the pod.
+     */
+    private static float getRequestedRam(ContainerPod vm) {
+        return Math.min(vm.getCurrentRequestedRam(), vm.getRam());
+    }
+
+    private int index(ContainerHost host) {
+        Integer index = hostIndexes.get(host);
+        if (index == null) {
+            throw new IllegalArgumentException("Host #" + host.getId() + " is not in the capacity model");
+        }
+        return index;
+    }
+}
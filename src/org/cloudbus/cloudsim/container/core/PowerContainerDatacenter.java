@@ -99,6 +99,16 @@ public class PowerContainerDatacenter extends WFCDatacenter {
         setNumberOfContainers(0);
     }
 
+    /**
+     * This datacenter updates all its hosts, as it also records their power and migrates their vms.
+     *
+     * @return false
+     */
+    @Override
+    protected boolean isIncrementalCloudletProcessing() {
+        return false;
+    }
+
     /**
      * Updates processing of each cloudlet running in this PowerDatacenter. It is necessary because
      * Hosts and VirtualMachines are simple objects, not entities. So, they don't receive events and
@@ -530,13 +540,30 @@ public class PowerContainerDatacenter extends WFCDatacenter {
         this.numberOfContainers = numberOfVms;
     }
 
+    /**
+     * Closes the metrics writers, writing the rows they buffer.
+     */
+    @Override
+    public void shutdownEntity() {
+        super.shutdownEntity();
+        closeWriters(getVmMigrationWriter(), getContainerMigrationWriter(), getDatacenterEnergyWriter());
+    }
 
-
-
-
-
+    /**
+     * Closes metrics writers.
+     *
+     * @param writers the writers
+     */
+    protected void closeWriters(CostumeCSVWriter... writers) {
+        for (CostumeCSVWriter writer : writers) {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
 
 }
-
-
-
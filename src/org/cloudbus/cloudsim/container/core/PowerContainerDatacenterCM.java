@@ -341,5 +341,13 @@ public class PowerContainerDatacenterCM extends PowerContainerDatacenter {
         this.newlyCreatedVmsList = newlyCreatedVmsList;
     }
 
+    /**
+     * Closes the metrics writers, writing the rows they buffer.
+     */
+    @Override
+    public void shutdownEntity() {
+        super.shutdownEntity();
+        closeWriters(getNewlyCreatedVmWriter());
+    }
 
-}
\ No newline at end of file
+}
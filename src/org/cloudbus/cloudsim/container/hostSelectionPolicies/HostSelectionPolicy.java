@@ -1,6 +1,7 @@
 package org.cloudbus.cloudsim.container.hostSelectionPolicies;
 
 import org.cloudbus.cloudsim.container.core.ContainerHost;
+import org.cloudbus.cloudsim.container.core.ContainerHostCapacityModel;
 
 import java.util.List;
 import java.util.Set;
@@ -18,4 +19,17 @@ public abstract class HostSelectionPolicy {
      */
     public abstract ContainerHost getHost(List<ContainerHost> hostList, Object obj, Set<? extends ContainerHost> excludedHostList);
 
+    /**
+     * Gets the host while a migration search places pods in a capacity model of the hosts.
+     * The policies reading the free resources of the hosts override it to read them from the model.
+     *
+     * @param hostList the host
+     * @param capacityModel the capacity model of the hosts
+     * @return the destination host to migrate
+     */
+    public ContainerHost getHost(List<ContainerHost> hostList, Object obj, Set<? extends ContainerHost> excludedHostList,
+                                 ContainerHostCapacityModel capacityModel) {
+        return getHost(hostList, obj, excludedHostList);
+    }
+
 }
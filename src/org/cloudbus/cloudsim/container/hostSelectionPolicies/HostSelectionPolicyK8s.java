@@ -3,6 +3,7 @@ package org.cloudbus.cloudsim.container.hostSelectionPolicies;
 import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.container.core.ContainerHost;
+import org.cloudbus.cloudsim.container.core.ContainerHostCapacityModel;
 
 import java.util.List;
 import java.util.Set;
@@ -10,20 +11,19 @@ import java.util.Set;
 public class HostSelectionPolicyK8s extends HostSelectionPolicy{
 
 
-    private double leastRequestedPriority(ContainerHost host) {
+    private double leastRequestedPriority(ContainerHost host, float free_ram) {
         int free_pes = host.getNumberOfFreePes();
         int total_pes = host.getNumberOfPes();
         double cpu_score = 10 * free_pes / total_pes;
-        float free_ram = host.getContainerVmRamProvisioner().getAvailableRam();
         float total_ram = host.getContainerVmRamProvisioner().getRam();
         double ram_score = 10 * free_ram / total_ram;
         return (cpu_score + ram_score) / 2;
     }
 
-    private double balancedResourceAllocation(ContainerHost host) {
+    private double balancedResourceAllocation(ContainerHost host, float free_ram, long storage) {
         double cpu_fraction = (host.getNumberOfPes() - host.getNumberOfFreePes()) / host.getNumberOfPes();
-        double ram_fraction = (host.getRam() - host.getContainerVmRamProvisioner().getAvailableRam()) / host.getRam();
-        double storage_fraction = host.getStorage() / host.getTotal_storage();
+        double ram_fraction = (host.getRam() - free_ram) / host.getRam();
+        double storage_fraction = storage / host.getTotal_storage();
         double mean = (cpu_fraction + ram_fraction + storage_fraction) / 3;
         double variance = ((cpu_fraction - mean)*(cpu_fraction - mean)
                 + (ram_fraction - mean)*(ram_fraction - mean)
@@ -31,13 +31,32 @@ public class HostSelectionPolicyK8s extends HostSelectionPolicy{
         return 10 - variance * 10;
     }
 
-    private double getScore(ContainerHost host) {
-        return (balancedResourceAllocation(host) + leastRequestedPriority(host)) / 2;
+    private double getScore(ContainerHost host, ContainerHostCapacityModel capacityModel) {
+        float free_ram;
+        long storage;
+        if (capacityModel == null) {
+            free_ram = host.getContainerVmRamProvisioner().getAvailableRam();
+            storage = host.getStorage();
+        } else {
+            free_ram = capacityModel.getAvailableRam(host);
+            storage = capacityModel.getStorage(host);
+        }
+        return (balancedResourceAllocation(host, free_ram, storage) + leastRequestedPriority(host, free_ram)) / 2;
     }
 
 
     @Override
     public ContainerHost getHost(List<ContainerHost> hostList, Object obj, Set<? extends ContainerHost> excludedHostList) {
+        return getHost(hostList, obj, excludedHostList, null);
+    }
+
+    /**
+     * Scores the hosts with the free RAM and storage of the capacity model, the
+     * pods placed by the migration search included, or of the hosts if it is null.
+     */
+    @Override
+    public ContainerHost getHost(List<ContainerHost> hostList, Object obj, Set<? extends ContainerHost> excludedHostList,
+                                 ContainerHostCapacityModel capacityModel) {
         double maxScore = Double.MIN_VALUE;
         ContainerHost selectedHost = null;
         for (ContainerHost host: hostList) {
@@ -45,7 +64,7 @@ public class HostSelectionPolicyK8s extends HostSelectionPolicy{
             if (excludedHostList.contains(host)) {
                 continue;
             }
-            score = getScore(host);
+            score = getScore(host, capacityModel);
             Log.printLine("host " + host.getId() + " 's score: " + score);
             if(score > maxScore) {
                 maxScore = score;
@@ -25,6 +25,12 @@ public abstract class PowerContainerPodAllocationPolicyMigrationAbstract extends
      */
     private final List<Map<String, Object>> savedAllocation = new ArrayList<Map<String, Object>>();
 
+    /**
+     * The capacity model of the hosts, in which {@link #optimizeAllocation(List)} searches the new
+     * placement of the vms. It is loaded during the search only.
+     */
+    private final ContainerHostCapacityModel capacityModel = new ContainerHostCapacityModel();
+
     /**
      * The utilization history.
      */
@@ -76,6 +82,11 @@ public abstract class PowerContainerPodAllocationPolicyMigrationAbstract extends
 
     /**
      * Optimize allocation of the VMs according to current utilization.
+     * <p>
+     * The new placement is searched in the capacity model of the hosts, so the hosts are not
+     * changed and no allocation has to be saved and restored. The vms selected to migrate are
+     * marked as in migration during the search, so that the vm selection policy does not select
+     * them again, as if they had left their hosts.
      *
      * @param vmList the vm list
      * @return the array list< hash map< string, object>>
@@ -91,23 +102,29 @@ public abstract class PowerContainerPodAllocationPolicyMigrationAbstract extends
 
         printOverUtilizedHosts(overUtilizedHosts);
 
-        saveAllocation();
-
-        ExecutionTimeMeasurer.start("optimizeAllocationVmSelection");
-        List<? extends ContainerPod> vmsToMigrate = getVmsToMigrateFromHosts(overUtilizedHosts);
-        getExecutionTimeHistoryVmSelection().add(ExecutionTimeMeasurer.end("optimizeAllocationVmSelection"));
-
-        Log.printLine("Reallocation of VMs from the over-utilized hosts:");
-        ExecutionTimeMeasurer.start("optimizeAllocationVmReallocation");
-        List<Map<String, Object>> migrationMap = getNewVmPlacement(vmsToMigrate, new HashSet<ContainerHost>(
-                overUtilizedHosts));
-        getExecutionTimeHistoryVmReallocation().add(
-                ExecutionTimeMeasurer.end("optimizeAllocationVmReallocation"));
-        Log.printLine();
-
-        migrationMap.addAll(getMigrationMapFromUnderUtilizedHosts(overUtilizedHosts, migrationMap));
+        getCapacityModel().load(getContainerHostList());
+        List<? extends ContainerPod> vmsToMigrate = Collections.emptyList();
+        List<Map<String, Object>> migrationMap;
+        try {
+            ExecutionTimeMeasurer.start("optimizeAllocationVmSelection");
+            vmsToMigrate = getVmsToMigrateFromHosts(overUtilizedHosts);
+            getExecutionTimeHistoryVmSelection().add(ExecutionTimeMeasurer.end("optimizeAllocationVmSelection"));
+
+            Log.printLine("Reallocation of VMs from the over-utilized hosts:");
+            ExecutionTimeMeasurer.start("optimizeAllocationVmReallocation");
+            migrationMap = getNewVmPlacement(vmsToMigrate, new HashSet<ContainerHost>(
+                    overUtilizedHosts));
+            getExecutionTimeHistoryVmReallocation().add(
+                    ExecutionTimeMeasurer.end("optimizeAllocationVmReallocation"));
+            Log.printLine();
 
-        restoreAllocation();
+            migrationMap.addAll(getMigrationMapFromUnderUtilizedHosts(overUtilizedHosts, migrationMap));
+        } finally {
+            for (ContainerPod vm : vmsToMigrate) {
+                vm.setInMigration(false);
+            }
+            getCapacityModel().clear();
+        }
 
         getExecutionTimeHistoryTotal().add(ExecutionTimeMeasurer.end("optimizeAllocationTotal"));
 
@@ -211,7 +228,7 @@ public abstract class PowerContainerPodAllocationPolicyMigrationAbstract extends
             if (excludedHosts.contains(host)) {
                 continue;
             }
-            if (host.isSuitableForContainerVm(vm)) {
+            if (isSuitableForContainerVm(host, vm)) {
                 if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
                     continue;
                 }
@@ -240,6 +257,10 @@ public abstract class PowerContainerPodAllocationPolicyMigrationAbstract extends
      * @return true, if is host over utilized after allocation
      */
     protected boolean isHostOverUtilizedAfterAllocation(PowerContainerHost host, ContainerPod vm) {
+        if (getCapacityModel().isLoaded()) {
+            return !getCapacityModel().canCreateContainerVm(host, vm) || isHostOverUtilized(host,
+                    getCapacityModel().getRequestedMips(host) + vm.getCurrentRequestedTotalMips());
+        }
         boolean isHostOverUtilizedAfterAllocation = true;
         if (host.containerVmCreate(vm)) {
             isHostOverUtilizedAfterAllocation = isHostOverUtilized(host);
@@ -248,6 +269,49 @@ public abstract class PowerContainerPodAllocationPolicyMigrationAbstract extends
         return isHostOverUtilizedAfterAllocation;
     }
 
+    /**
+     * Checks if a host is suitable for a vm, in the capacity model during the search of a new
+     * placement.
+     *
+     * @param host the host
+     * @param vm   the vm
+     * @return true, if the host is suitable for the vm
+     */
+    protected boolean isSuitableForContainerVm(ContainerHost host, ContainerPod vm) {
+        if (getCapacityModel().isLoaded()) {
+            return getCapacityModel().isSuitableForContainerVm(host, vm);
+        }
+        return host.isSuitableForContainerVm(vm);
+    }
+
+    /**
+     * Creates a vm on a host, in the capacity model during the search of a new placement.
+     *
+     * @param host the host
+     * @param vm   the vm
+     * @return true, if the vm could be created
+     */
+    protected boolean containerVmCreate(ContainerHost host, ContainerPod vm) {
+        if (getCapacityModel().isLoaded()) {
+            return getCapacityModel().containerVmCreate(host, vm);
+        }
+        return host.containerVmCreate(vm);
+    }
+
+    /**
+     * Destroys a vm on a host, in the capacity model during the search of a new placement.
+     *
+     * @param host the host
+     * @param vm   the vm
+     */
+    protected void containerVmDestroy(ContainerHost host, ContainerPod vm) {
+        if (getCapacityModel().isLoaded()) {
+            getCapacityModel().containerVmDestroy(vm);
+        } else {
+            host.containerVmDestroy(vm);
+        }
+    }
+
     /**
      * Find host for vm.
      *
@@ -296,7 +360,7 @@ public abstract class PowerContainerPodAllocationPolicyMigrationAbstract extends
         for (ContainerPod vm : vmsToMigrate) {
             PowerContainerHost allocatedHost = findHostForVm(vm, excludedHosts);
             if (allocatedHost != null) {
-                allocatedHost.containerVmCreate(vm);
+                containerVmCreate(allocatedHost, vm);
                 Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
 
                 Map<String, Object> migrate = new HashMap<String, Object>();
@@ -323,7 +387,7 @@ public abstract class PowerContainerPodAllocationPolicyMigrationAbstract extends
         for (ContainerPod vm : vmsToMigrate) {
             PowerContainerHost allocatedHost = findHostForVm(vm, excludedHosts);
             if (allocatedHost != null) {
-                allocatedHost.containerVmCreate(vm);
+                containerVmCreate(allocatedHost, vm);
                 Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
 
                 Map<String, Object> migrate = new HashMap<String, Object>();
@@ -333,7 +397,7 @@ public abstract class PowerContainerPodAllocationPolicyMigrationAbstract extends
             } else {
                 Log.printLine("Not all VMs can be reallocated from the host, reallocation cancelled");
                 for (Map<String, Object> map : migrationMap) {
-                    ((ContainerHost) map.get("host")).containerVmDestroy((ContainerPod) map.get("vm"));
+                    containerVmDestroy((ContainerHost) map.get("host"), (ContainerPod) map.get("vm"));
                 }
                 migrationMap.clear();
                 break;
@@ -357,9 +421,17 @@ public abstract class PowerContainerPodAllocationPolicyMigrationAbstract extends
                     break;
                 }
                 vmsToMigrate.add(vm);
-                host.containerVmDestroy(vm);
-                if (!isHostOverUtilized(host)) {
-                    break;
+                if (getCapacityModel().isLoaded()) {
+                    getCapacityModel().containerVmDestroy(vm);
+                    vm.setInMigration(true);
+                    if (!isHostOverUtilized(host, getCapacityModel().getRequestedMips(host))) {
+                        break;
+                    }
+                } else {
+                    host.containerVmDestroy(vm);
+                    if (!isHostOverUtilized(host)) {
+                        break;
+                    }
                 }
             }
         }
@@ -488,6 +560,16 @@ public abstract class PowerContainerPodAllocationPolicyMigrationAbstract extends
      */
     protected abstract boolean isHostOverUtilized(PowerContainerHost host);
 
+    /**
+     * Checks if a host is over utilized when its vms request some MIPS, as in the capacity model
+     * during the search of a new placement.
+     *
+     * @param host          the host
+     * @param requestedMips the MIPS requested by the vms of the host
+     * @return true, if is host over utilized
+     */
+    protected abstract boolean isHostOverUtilized(PowerContainerHost host, double requestedMips);
+
 
     /**
      * Checks if is host over utilized.
@@ -600,6 +682,9 @@ public abstract class PowerContainerPodAllocationPolicyMigrationAbstract extends
      * @return the utilization of the CPU in MIPS
      */
     protected double getUtilizationOfCpuMips(PowerContainerHost host) {
+        if (getCapacityModel().isLoaded()) {
+            return getCapacityModel().getUtilizationMips(host);
+        }
         double hostUtilizationMips = 0;
         for (ContainerPod vm2 : host.getVmList()) {
             if (host.getVmsMigratingIn().contains(vm2)) {
@@ -620,6 +705,15 @@ public abstract class PowerContainerPodAllocationPolicyMigrationAbstract extends
         return savedAllocation;
     }
 
+    /**
+     * Gets the capacity model of the hosts.
+     *
+     * @return the capacity model
+     */
+    protected ContainerHostCapacityModel getCapacityModel() {
+        return capacityModel;
+    }
+
     /**
      * Sets the vm selection policy.
      *
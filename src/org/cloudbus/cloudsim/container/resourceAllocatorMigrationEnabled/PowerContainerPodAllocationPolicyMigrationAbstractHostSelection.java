@@ -43,12 +43,13 @@ public class PowerContainerPodAllocationPolicyMigrationAbstractHostSelection ext
         Boolean find = false;
         Set<ContainerHost> excludedHost1 = new HashSet<>();
         excludedHost1.addAll(excludedHosts);
+        ContainerHostCapacityModel capacityModel = getCapacityModel().isLoaded() ? getCapacityModel() : null;
         while (!find) {
-            ContainerHost host = getHostSelectionPolicy().getHost(getContainerHostList(), vm, excludedHost1);
+            ContainerHost host = getHostSelectionPolicy().getHost(getContainerHostList(), vm, excludedHost1, capacityModel);
             if (host == null) {
                 return allocatedHost;
             }
-            if (host.isSuitableForContainerVm(vm)) {
+            if (isSuitableForContainerVm(host, vm)) {
                 find = true;
                 allocatedHost = (PowerContainerHost) host;
             } else {
@@ -87,7 +88,12 @@ public class PowerContainerPodAllocationPolicyMigrationAbstractHostSelection ext
         for (ContainerPod vm : host.getVmList()) {
             totalRequestedMips += vm.getCurrentRequestedTotalMips();
         }
-        double utilization = totalRequestedMips / host.getTotalMips();
+        return isHostOverUtilized(host, totalRequestedMips);
+    }
+
+    @Override
+    protected boolean isHostOverUtilized(PowerContainerHost host, double requestedMips) {
+        double utilization = requestedMips / host.getTotalMips();
         return utilization > getUtilizationThreshold();
     }
 
@@ -50,7 +50,12 @@ public class PowerContainerPodAllocationPolicyMigrationStaticThresholdMC extends
         for (ContainerPod vm : host.getVmList()) {
             totalRequestedMips += vm.getCurrentRequestedTotalMips();
         }
-        double utilization = totalRequestedMips / host.getTotalMips();
+        return isHostOverUtilized(host, totalRequestedMips);
+    }
+
+    @Override
+    protected boolean isHostOverUtilized(PowerContainerHost host, double requestedMips) {
+        double utilization = requestedMips / host.getTotalMips();
         return utilization > getUtilizationThreshold();
     }
 
@@ -51,7 +51,12 @@ public class PowerContainerPodAllocationPolicyMigrationStaticThresholdMCUnderUti
         for (ContainerPod vm : host.getVmList()) {
             totalRequestedMips += vm.getCurrentRequestedTotalMips();
         }
-        double utilization = totalRequestedMips / host.getTotalMips();
+        return isHostOverUtilized(host, totalRequestedMips);
+    }
+
+    @Override
+    protected boolean isHostOverUtilized(PowerContainerHost host, double requestedMips) {
+        double utilization = requestedMips / host.getTotalMips();
         return utilization > getUtilizationThreshold();
     }
 
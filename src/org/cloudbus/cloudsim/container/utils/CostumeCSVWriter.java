@@ -3,18 +3,50 @@ package org.cloudbus.cloudsim.container.utils;
 import au.com.bytecode.opencsv.CSVWriter;
 import org.cloudbus.cloudsim.Log;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Writer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 /**
  * Created by sareh on 30/07/15.
+ *
+ * Appends rows of metrics to a file. The file is opened on the first row and kept open, and the
+ * rows are buffered and flushed every {@link #FLUSH_ROWS} rows, on {@link #flush()}, on
+ * {@link #close()} and when the JVM shuts down.
  */
 public class CostumeCSVWriter {
+
+    /** The number of rows written between two flushes. */
+    public static final int FLUSH_ROWS = 1024;
+
+    /** The writers open, flushed when the JVM shuts down. */
+    private static final Set<CostumeCSVWriter> OPEN_WRITERS =
+            Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<CostumeCSVWriter, Boolean>()));
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            CostumeCSVWriter[] writers;
+            synchronized (OPEN_WRITERS) {
+                writers = OPEN_WRITERS.toArray(new CostumeCSVWriter[0]);
+            }
+            for (CostumeCSVWriter writer : writers) {
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "CSV writers flush"));
+    }
+
     CSVWriter writer;
     String fileAddress;
-    Writer fileWriter;
+    /** The rows written since the last flush. */
+    int unflushedRows;
 
     public CostumeCSVWriter(String fileAddress) throws IOException {
         File f = new File(fileAddress);
@@ -29,19 +61,58 @@ public class CostumeCSVWriter {
 
     }
 
-    public void writeTofile(String[] entries) throws IOException {
-        // feed in your array (or convert your data to an array)
-        try {
-            writer = new CSVWriter(new FileWriter(fileAddress, true), ',',CSVWriter.NO_QUOTE_CHARACTER);
+    public synchronized void writeTofile(String[] entries) throws IOException {
+        if (writer == null) {
+            open();
+        }
+        writer.writeNext(entries);
+        if (++unflushedRows >= FLUSH_ROWS) {
+            flush();
+        }
+    }
 
+    /**
+     * Opens the file in append mode.
+     */
+    private void open() throws IOException {
+        try {
+            writer = new CSVWriter(new BufferedWriter(new FileWriter(fileAddress, true)), ',', CSVWriter.NO_QUOTE_CHARACTER);
         } catch (IOException e) {
             Log.printConcatLine("Couldn't find the file to write to: ", fileAddress);
+            throw e;
+        }
+        OPEN_WRITERS.add(this);
+    }
 
+    /**
+     * Writes the buffered rows to the file.
+     *
+     * @throws IOException if the rows cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        unflushedRows = 0;
+        if (writer != null) {
+            writer.flush();
+        }
+    }
 
+    /**
+     * Writes the buffered rows and closes the file. The file is opened again by the next row.
+     *
+     * @throws IOException if the rows cannot be written
+     */
+    public void close() throws IOException {
+        OPEN_WRITERS.remove(this);
+        synchronized (this) {
+            unflushedRows = 0;
+            try {
+                if (writer != null) {
+                    writer.close();
+                }
+            } finally {
+                writer = null;
+            }
         }
-        writer.writeNext(entries);
-        writer.flush();
-        writer.close();
     }
 
     public String getFileAddress() {
@@ -52,7 +123,3 @@ public class CostumeCSVWriter {
         this.fileAddress = fileAddress;
     }
 }
-
-
-
-
@@ -7,6 +7,7 @@ package org.cloudbus.cloudsim.container.utils;
 import org.cloudbus.cloudsim.container.containerProvisioners.ContainerPe;
 import org.cloudbus.cloudsim.container.containerPodProvisioners.ContainerPodPe;
 import org.cloudbus.cloudsim.container.core.*;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 import java.util.LinkedHashMap;
 import java.util.HashSet;
@@ -24,35 +25,51 @@ import java.util.Map;
 
 public final class IDs {
 
-
-    private static final Map<Class<?>, Integer> COUNTERS = new LinkedHashMap<>();
-    private static final Set<Class<?>> NO_COUNTERS = new HashSet<>();
-    private static int globalCounter = 1;
-
-    static {
-        COUNTERS.put(ContainerCloudlet.class, 1);
-        COUNTERS.put(ContainerPod.class, 1);
-        COUNTERS.put(Container.class, 1);
-        COUNTERS.put(ContainerHost.class, 1);        
-        COUNTERS.put(ContainerPe.class, 1);
-        COUNTERS.put(ContainerPodPe.class, 1);
+    /**
+     * The id counters of a simulation, kept in its SimulationContext.
+     */
+    private static final class Counters {
+
+        private final Map<Class<?>, Integer> byClass = new LinkedHashMap<>();
+        private final Set<Class<?>> noCounters = new HashSet<>();
+        private int globalCounter = 1;
+
+        Counters() {
+            byClass.put(ContainerCloudlet.class, 1);
+            byClass.put(ContainerPod.class, 1);
+            byClass.put(Container.class, 1);
+            byClass.put(ContainerHost.class, 1);
+            byClass.put(ContainerPe.class, 1);
+            byClass.put(ContainerPodPe.class, 1);
+        }
     }
 
     private IDs() {
     }
 
+    private static Counters counters() {
+        return SimulationContext.current().getState(Counters.class, Counters::new);
+    }
+
     /**
      * Returns a valid id for the specified class.
      *
      * @param clazz - the class of the object to get an id for. Must not be null.
      * @return a valid id for the specified class.
      */
-    public static synchronized int pollId(final Class<?> clazz) {
+    public static int pollId(final Class<?> clazz) {
+        Counters counters = counters();
+        synchronized (counters) {
+            return pollId(counters, clazz);
+        }
+    }
+
+    private static int pollId(Counters counters, final Class<?> clazz) {
         Class<?> matchClass = null;
-        if (COUNTERS.containsKey(clazz)) {
+        if (counters.byClass.containsKey(clazz)) {
             matchClass = clazz;
-        } else if (!NO_COUNTERS.contains(clazz)) {
-            for (Class<?> key : COUNTERS.keySet()) {
+        } else if (!counters.noCounters.contains(clazz)) {
+            for (Class<?> key : counters.byClass.keySet()) {
                 if (key.isAssignableFrom(clazz)) {
                     matchClass = key;
                     break;
@@ -62,11 +79,11 @@ public final class IDs {
 
         int result = -1;
         if (matchClass == null) {
-            NO_COUNTERS.add(clazz);
-            result = pollGlobalId();
+            counters.noCounters.add(clazz);
+            result = counters.globalCounter++;
         } else {
-            result = COUNTERS.get(matchClass);
-            COUNTERS.put(matchClass, result + 1);
+            result = counters.byClass.get(matchClass);
+            counters.byClass.put(matchClass, result + 1);
         }
 
         if (result < 0) {
@@ -77,10 +94,6 @@ public final class IDs {
         return result;
     }
 
-    private static synchronized int pollGlobalId() {
-        return globalCounter++;
-    }
-
 }
 
 
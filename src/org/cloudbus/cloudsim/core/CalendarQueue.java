@@ -0,0 +1,534 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements the future event queue used by {@link CloudSim} as a calendar queue
+ * (R. Brown, "Calendar queues: a fast O(1) priority queue implementation for the simulation
+ * event set problem", CACM 31(10), 1988).
+ * <p>
+ * The time line is split into "days" of a fixed width, and the days are hashed into a
+ * circular array of buckets, which together form a "year". Each bucket keeps its events
+ * sorted, so enqueue and dequeue cost amortized O(1) as long as the day width matches the
+ * average distance between pending events. The number of buckets doubles or halves as the
+ * queue grows or shrinks, and the day width is re-estimated from the head of the queue on
+ * every resize.
+ * <p>
+ * The ordering is exactly the one of {@link FutureQueue}: events are sorted by time, then by
+ * serial, and events with the same time and serial keep their insertion order. All the events
+ * scheduled for the same time always fall into the same bucket.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see FutureEventQueue
+ * @see FutureQueue
+ */
+public class CalendarQueue implements FutureEventQueue {
+
+	/** The minimum (and initial) number of buckets. Must be a power of two. */
+	private static final int MIN_BUCKETS = 16;
+
+	/** The initial width of a day, in simulation time units. */
+	private static final double INITIAL_WIDTH = 1.0;
+
+	/** The number of events sampled from the head of the queue to estimate the day width. */
+	private static final int WIDTH_SAMPLE_SIZE = 25;
+
+	/** The buckets of the calendar, one per day of the year. */
+	private Bucket[] buckets;
+
+	/** The mask used to map a day number to its bucket; always buckets.length - 1. */
+	private int mask;
+
+	/** The width of a day. */
+	private double width;
+
+	/** The lowest day that may still hold events. */
+	private long currentDay;
+
+	/** The number of events in the queue. */
+	private int size;
+
+	/** The number of structural modifications, used to make the iterators fail-fast. */
+	private int modCount;
+
+	/** A incremental number used for {@link SimEvent#serial} event attribute.
+         */
+	private long serial = 0;
+
+	/**
+	 * Creates an empty calendar queue.
+	 */
+	public CalendarQueue() {
+		width = INITIAL_WIDTH;
+		setBuckets(MIN_BUCKETS);
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		insert(newEvent);
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new CalendarIterator();
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		if (!unlink(event)) {
+			return false;
+		}
+		if (size < buckets.length / 2 && buckets.length > MIN_BUCKETS) {
+			resize(buckets.length / 2);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the first event of the queue together with all the events scheduled for the same
+	 * time. Those events are always at the front of a single bucket, so they are popped in one pass.
+	 * 
+	 * @param events the list the removed events are appended to, in queue order
+	 * @return the number of events removed
+	 */
+	@Override
+	public int drainFirst(List<SimEvent> events) {
+		if (size == 0) {
+			return 0;
+		}
+		Bucket bucket = headBucket();
+		SimEvent first = bucket.events[bucket.start];
+		int count = 0;
+		do {
+			events.add(bucket.events[bucket.start]);
+			bucket.removeAt(bucket.start);
+			count++;
+		} while (bucket.start < bucket.end && bucket.events[bucket.start].eventTime() == first.eventTime());
+		size -= count;
+		modCount++;
+		if (size < buckets.length / 2 && buckets.length > MIN_BUCKETS) {
+			resize(buckets.length / 2);
+		}
+		return count;
+	}
+
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		boolean modified = false;
+		for (SimEvent event : events) {
+			modified |= unlink(event);
+		}
+		if (size < buckets.length / 2 && buckets.length > MIN_BUCKETS) {
+			resize(buckets.length / 2);
+		}
+		return modified;
+	}
+
+	@Override
+	public void clear() {
+		width = INITIAL_WIDTH;
+		setBuckets(MIN_BUCKETS);
+		size = 0;
+		currentDay = 0;
+		modCount++;
+	}
+
+	/**
+	 * Gets the day an event time falls into.
+	 *
+	 * @param time the event time
+	 * @return the day number
+	 */
+	private long dayOf(double time) {
+		return (long) Math.floor(time / width);
+	}
+
+	/**
+	 * Gets the bucket of a given day.
+	 *
+	 * @param day the day number
+	 * @return the bucket
+	 */
+	private Bucket bucketOf(long day) {
+		return buckets[(int) (day & mask)];
+	}
+
+	/**
+	 * Finds the bucket holding the first event of a non-empty queue, moving {@link #currentDay} to
+	 * the day of that event. After a whole year of empty days, the search jumps directly to the
+	 * earliest day found at the front of the buckets.
+	 *
+	 * @return the bucket whose first event is the head of the queue
+	 */
+	private Bucket headBucket() {
+		for (int i = 0; i < buckets.length; i++) {
+			Bucket bucket = bucketOf(currentDay);
+			if (bucket.start < bucket.end && dayOf(bucket.events[bucket.start].eventTime()) == currentDay) {
+				return bucket;
+			}
+			currentDay++;
+		}
+
+		Bucket head = null;
+		long headDay = Long.MAX_VALUE;
+		for (Bucket bucket : buckets) {
+			if (bucket.start < bucket.end) {
+				long day = dayOf(bucket.events[bucket.start].eventTime());
+				if (day < headDay) {
+					headDay = day;
+					head = bucket;
+				}
+			}
+		}
+		currentDay = headDay;
+		return head;
+	}
+
+	/**
+	 * Puts an event with an already assigned serial in its bucket, growing the calendar if
+	 * there are more than two events per bucket on average.
+	 *
+	 * @param event the event
+	 */
+	private void insert(SimEvent event) {
+		long day = dayOf(event.eventTime());
+		if (size == 0 || day < currentDay) {
+			currentDay = day;
+		}
+		bucketOf(day).add(event);
+		size++;
+		modCount++;
+		if (size > 2 * buckets.length) {
+			resize(2 * buckets.length);
+		}
+	}
+
+	/**
+	 * Removes an event from its bucket without resizing the calendar.
+	 *
+	 * @param event the event
+	 * @return true, if the event was in the queue
+	 */
+	private boolean unlink(SimEvent event) {
+		Bucket bucket = bucketOf(dayOf(event.eventTime()));
+		int index = bucket.indexOf(event);
+		if (index < 0) {
+			return false;
+		}
+		bucket.removeAt(index);
+		size--;
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Replaces the buckets by a new empty array of buckets.
+	 *
+	 * @param count the number of buckets, a power of two
+	 */
+	private void setBuckets(int count) {
+		buckets = new Bucket[count];
+		for (int i = 0; i < count; i++) {
+			buckets[i] = new Bucket();
+		}
+		mask = count - 1;
+	}
+
+	/**
+	 * Changes the number of buckets, re-estimates the day width and redistributes the events.
+	 * Buckets are drained front to back, so events with the same time and serial keep their
+	 * relative order.
+	 *
+	 * @param count the new number of buckets, a power of two
+	 */
+	private void resize(int count) {
+		double newWidth = estimateWidth();
+		Bucket[] old = buckets;
+		width = newWidth;
+		setBuckets(count);
+		long lowestDay = Long.MAX_VALUE;
+		for (Bucket bucket : old) {
+			for (int i = bucket.start; i < bucket.end; i++) {
+				SimEvent event = bucket.events[i];
+				long day = dayOf(event.eventTime());
+				if (day < lowestDay) {
+					lowestDay = day;
+				}
+				bucketOf(day).add(event);
+			}
+		}
+		currentDay = size == 0 ? 0 : lowestDay;
+		modCount++;
+	}
+
+	/**
+	 * Estimates a day width from the average separation of the distinct event times found at the
+	 * head of the queue. Separations bigger than twice the average are discarded, as suggested by
+	 * Brown, and the width is set to three times the refined average.
+	 *
+	 * @return the new day width, or the current one if the head of the queue does not tell
+	 */
+	private double estimateWidth() {
+		int samples = Math.min(size, WIDTH_SAMPLE_SIZE);
+		if (samples < 2) {
+			return width;
+		}
+
+		double[] gaps = new double[samples - 1];
+		int count = 0;
+		double sum = 0;
+		Iterator<SimEvent> it = iterator();
+		double previous = it.next().eventTime();
+		for (int i = 1; i < samples; i++) {
+			double time = it.next().eventTime();
+			if (time > previous) {
+				gaps[count++] = time - previous;
+				sum += time - previous;
+			}
+			previous = time;
+		}
+		if (count == 0) {
+			return width;
+		}
+
+		double average = sum / count;
+		double refinedSum = 0;
+		int refinedCount = 0;
+		for (int i = 0; i < count; i++) {
+			if (gaps[i] <= 2 * average) {
+				refinedSum += gaps[i];
+				refinedCount++;
+			}
+		}
+		double estimate = 3 * refinedSum / refinedCount;
+		return estimate > 0 && !Double.isInfinite(estimate) ? estimate : width;
+	}
+
+	/**
+	 * A sorted array of events. Events are removed from the front by moving {@link #start}
+	 * and inserted by shifting from the back, as new events are most often later than the
+	 * ones already in the bucket.
+	 */
+	private static final class Bucket {
+
+		private SimEvent[] events = new SimEvent[4];
+
+		/** The index of the first event. */
+		private int start;
+
+		/** The index after the last event. */
+		private int end;
+
+		/**
+		 * Inserts an event after all the events that do not come after it.
+		 *
+		 * @param event the event
+		 */
+		void add(SimEvent event) {
+			if (start == end) {
+				start = 0;
+				end = 0;
+			}
+			if (end == events.length) {
+				if (start > 0) {
+					System.arraycopy(events, start, events, 0, end - start);
+					Arrays.fill(events, end - start, end, null);
+					end -= start;
+					start = 0;
+				} else {
+					SimEvent[] grown = new SimEvent[events.length * 2];
+					System.arraycopy(events, 0, grown, 0, end);
+					events = grown;
+				}
+			}
+			int i = end;
+			while (i > start && comesAfter(events[i - 1], event)) {
+				events[i] = events[i - 1];
+				i--;
+			}
+			events[i] = event;
+			end++;
+		}
+
+		/**
+		 * Finds an event by identity.
+		 *
+		 * @param event the event
+		 * @return the index of the event, or -1 if it is not in the bucket
+		 */
+		int indexOf(SimEvent event) {
+			for (int i = start; i < end; i++) {
+				if (events[i] == event) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Removes the event at a given index.
+		 *
+		 * @param index the index, between {@link #start} and {@link #end}
+		 */
+		void removeAt(int index) {
+			if (index == start) {
+				events[start++] = null;
+				return;
+			}
+			System.arraycopy(events, index + 1, events, index, end - index - 1);
+			events[--end] = null;
+		}
+
+		/**
+		 * Checks if an event already in the bucket must be placed after a new one.
+		 *
+		 * @param queued the event in the bucket
+		 * @param added the new event
+		 * @return true if the queued event is later than the new one
+		 */
+		private static boolean comesAfter(SimEvent queued, SimEvent added) {
+			return queued.eventTime() > added.eventTime()
+					|| (queued.eventTime() == added.eventTime() && queued.getSerial() > added.getSerial());
+		}
+	}
+
+	/**
+	 * Walks the calendar day by day, starting at {@link #currentDay}. Only the events visited so far
+	 * are ever touched, so reading the head of the queue costs O(1) amortized. After a whole year of
+	 * empty days, the iterator jumps directly to the next day holding an event.
+	 */
+	private final class CalendarIterator implements Iterator<SimEvent> {
+
+		/** The day being walked. */
+		private long day = currentDay;
+
+		/** The position in the bucket of {@link #day}, or -1 if it was not located yet. */
+		private int position = -1;
+
+		/** Whether no event was returned yet, i.e. all the days walked so far are empty. */
+		private boolean atHead = true;
+
+		/** The number of events not visited yet. */
+		private int remaining = size;
+
+		/** The bucket and index of the last returned event, for {@link #remove()}. */
+		private Bucket lastBucket;
+
+		private int lastIndex = -1;
+
+		private int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			return remaining > 0;
+		}
+
+		@Override
+		public SimEvent next() {
+			if (expectedModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (remaining == 0) {
+				throw new NoSuchElementException();
+			}
+
+			int emptyDays = 0;
+			while (true) {
+				Bucket bucket = bucketOf(day);
+				if (position < 0) {
+					// skip the events of earlier years, which were already visited
+					position = bucket.start;
+					while (position < bucket.end && dayOf(bucket.events[position].eventTime()) < day) {
+						position++;
+					}
+				}
+				if (position < bucket.end && dayOf(bucket.events[position].eventTime()) == day) {
+					if (atHead) {
+						// nothing is scheduled before this day anymore
+						currentDay = day;
+						atHead = false;
+					}
+					lastBucket = bucket;
+					lastIndex = position;
+					remaining--;
+					return bucket.events[position++];
+				}
+
+				position = -1;
+				if (++emptyDays > buckets.length) {
+					day = nextBusyDay(day);
+					emptyDays = 0;
+				} else {
+					day++;
+				}
+			}
+		}
+
+		/**
+		 * Finds the earliest day after a given one which holds an event.
+		 *
+		 * @param after the day
+		 * @return the next day holding an event
+		 */
+		private long nextBusyDay(long after) {
+			long next = Long.MAX_VALUE;
+			for (Bucket bucket : buckets) {
+				for (int i = bucket.start; i < bucket.end; i++) {
+					long eventDay = dayOf(bucket.events[i].eventTime());
+					if (eventDay > after) {
+						if (eventDay < next) {
+							next = eventDay;
+						}
+						break;
+					}
+				}
+			}
+			return next;
+		}
+
+		@Override
+		public void remove() {
+			if (lastBucket == null) {
+				throw new IllegalStateException();
+			}
+			if (expectedModCount != modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (lastIndex != lastBucket.start) {
+				// the following events were shifted back by one
+				position--;
+			}
+			lastBucket.removeAt(lastIndex);
+			lastBucket = null;
+			size--;
+			modCount++;
+			expectedModCount = modCount;
+		}
+	}
+
+}
@@ -30,6 +30,9 @@ import org.wfc.core.WFCConstants;
  * network. Later, nodes in such file are mapped to CloudSim entities. Delay calculated from the
  * BRITE model are added to the messages send through CloudSim. Messages using the old model are
  * converted to the apropriate methods with the correct parameters.
+ * <p>
+ * The state of the simulation is kept in the {@link SimulationContext} bound to the current
+ * thread, so several simulations can run at once on different threads.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -40,32 +43,9 @@ public class CloudSim {
 	/** The Constant CLOUDSIM_VERSION_STRING. */
 	private static final String CLOUDSIM_VERSION_STRING = "3.0";
 
-	/** The id of CIS entity. */
-	private static int cisId = -1;
-
-	/** The id of CloudSimShutdown entity. */
-	@SuppressWarnings("unused")
-	private static int shutdownId = -1;
-
-	/** The CIS object. */
-	private static CloudInformationService cis = null;
-
 	/** The Constant NOT_FOUND. */
 	private static final int NOT_FOUND = -1;
 
-	/** The trace flag. */
-	@SuppressWarnings("unused")
-	private static boolean traceFlag = false;
-
-	/** The calendar. */
-	private static Calendar calendar = null;
-
-	/** The termination time. */
-	private static double terminateAt = -1;
-
-	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
-	private static double minTimeBetweenEvents = 0.1;
-	
 	/**
 	 * Initialises all the common attributes.
 	 * 
@@ -79,21 +59,22 @@ public class CloudSim {
 	 */
 	private static void initCommonVariable(Calendar _calendar, boolean _traceFlag, int numUser)
 			throws Exception {
+		SimulationContext context = SimulationContext.current();
 		initialize();
 		// NOTE: the order for the below 3 lines are important
-		traceFlag = _traceFlag;
+		context.traceFlag = _traceFlag;
 
 		// Set the current Wall clock time as the starting time of
 		// simulation
 		if (_calendar == null) {
-			calendar = Calendar.getInstance();
+			context.calendar = Calendar.getInstance();
 		} else {
-			calendar = _calendar;
+			context.calendar = _calendar;
 		}
 
 		// creates a CloudSimShutdown object
 		CloudSimShutdown shutdown = new CloudSimShutdown("CloudSimShutdown", numUser);
-		shutdownId = shutdown.getId();
+		context.shutdownId = shutdown.getId();
 	}
 
 	/**
@@ -118,14 +99,15 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void init(int numUser, Calendar cal, boolean traceFlag) {
+		SimulationContext context = SimulationContext.current();
 		try {
 			initCommonVariable(cal, traceFlag, numUser);
 
 			// create a GIS object
-			cis = new CloudInformationService("CloudInformationService");
+			context.cis = new CloudInformationService("CloudInformationService");
 
 			// set all the above entity IDs
-			cisId = cis.getId();
+			context.cisId = context.cis.getId();
 		} catch (IllegalArgumentException s) {
 			Log.printLine("CloudSim.init(): The simulation has been terminated due to an unexpected error");
 			Log.printLine(s.getMessage());
@@ -159,12 +141,13 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void init(int numUser, Calendar cal, boolean traceFlag, double periodBetweenEvents) {
+		SimulationContext context = SimulationContext.current();
 	    if (periodBetweenEvents <= 0) {
 		throw new IllegalArgumentException("The minimal time between events should be positive, but is:" + periodBetweenEvents);
 	    }
 	    
 	    init(numUser, cal, traceFlag);
-	    minTimeBetweenEvents = periodBetweenEvents;
+	    context.minTimeBetweenEvents = periodBetweenEvents;
 	}
 	
 	
@@ -184,16 +167,17 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static double startSimulation() throws NullPointerException {
+		SimulationContext context = SimulationContext.current();
 		Log.printConcatLine("Starting CloudSim version ", CLOUDSIM_VERSION_STRING);
 		try {
 			double clock = run();
 
-			// reset all static variables
-			cisId = -1;
-			shutdownId = -1;
-			cis = null;
-			calendar = null;
-			traceFlag = false;
+			// reset the state of the context
+			context.cisId = -1;
+			context.shutdownId = -1;
+			context.cis = null;
+			context.calendar = null;
+			context.traceFlag = false;
 
 			return clock;
 		} catch (IllegalArgumentException e) {
@@ -230,7 +214,8 @@ public class CloudSim {
 	 * @return true, if successful; false otherwise.
 	 */
 	public static boolean terminateSimulation() {
-		running = false;
+		SimulationContext context = SimulationContext.current();
+		context.running = false;
 		printMessage("Simulation: Reached termination time.");
 		return true;
 	}
@@ -242,10 +227,11 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean terminateSimulation(double time) {
-		if (time <= clock) {
+		SimulationContext context = SimulationContext.current();
+		if (time <= context.clock) {
 			return false;
 		} else {
-			terminateAt = time;
+			context.terminateAt = time;
 		}
 		return true;
 	}
@@ -256,7 +242,7 @@ public class CloudSim {
 	 * @return the minimum time between events.
 	 */
 	public static double getMinTimeBetweenEvents() {
-	    return minTimeBetweenEvents;
+	    return SimulationContext.current().minTimeBetweenEvents;
 	}
 
 	/**
@@ -269,10 +255,11 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static Calendar getSimulationCalendar() {
+		SimulationContext context = SimulationContext.current();
 		// make a new copy
-		Calendar clone = calendar;
-		if (calendar != null) {
-			clone = (Calendar) calendar.clone();
+		Calendar clone = context.calendar;
+		if (context.calendar != null) {
+			clone = (Calendar) context.calendar.clone();
 		}
 
 		return clone;
@@ -286,7 +273,7 @@ public class CloudSim {
 	 * @post $result >= -1
 	 */
 	public static int getCloudInfoServiceEntityId() {
-		return cisId;
+		return SimulationContext.current().cisId;
 	}
 
 	/**
@@ -299,61 +286,46 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static List<Integer> getCloudResourceList() {
-		if (cis == null) {
+		SimulationContext context = SimulationContext.current();
+		if (context.cis == null) {
 			return null;
 		}
 
-		return cis.getList();
+		return context.cis.getList();
 	}
 
 	// ======== SIMULATION METHODS ===============//
 
-	/** The entities. */
-	private static List<SimEntity> entities;
-
-	/** The future event queue. */
-	protected static FutureQueue future;
-
-	/** The deferred event queue. */
-	protected static DeferredQueue deferred;
-
-	/** 
-         * The current simulation clock.
-         */
-	private static double clock;
-
-	/** Flag for checking if the simulation is running. */
-	private static boolean running;
-
-	/** The entities by name. */
-	private static Map<String, SimEntity> entitiesByName;
-
-	// The predicates used in entity wait methods
-	/** The wait predicates. */
-	private static Map<Integer, Predicate> waitPredicates;
-
-	/** The paused. */
-	private static boolean paused = false;
-
-	/** The pause at. */
-	private static long pauseAt = -1;
-
-	/** The abrupt terminate. */
-	private static boolean abruptTerminate = false;
-
 	/**
 	 * Initialise the simulation for stand alone simulations. This function should be called at the
 	 * start of the simulation.
 	 */
 	protected static void initialize() {
+		SimulationContext context = SimulationContext.current();
 		Log.printLine("Initialising...");
-		entities = new ArrayList<SimEntity>();
-		entitiesByName = new LinkedHashMap<String, SimEntity>();
-		future = new FutureQueue();
-		deferred = new DeferredQueue();
-		waitPredicates = new HashMap<Integer, Predicate>();
-		clock = 0;
-		running = false;
+		context.entities = new ArrayList<SimEntity>();
+		context.entitiesByName = new LinkedHashMap<String, SimEntity>();
+		context.future = createFutureQueue(WFCConstants.FUTURE_QUEUE_TYPE);
+		context.deferred = new DeferredQueue();
+		context.waitPredicates = new HashMap<Integer, Predicate>();
+		context.clock = 0;
+		context.running = false;
+		context.clockTicks = 0;
+		context.processedEvents = 0;
+		context.runWallClockTime = 0;
+	}
+
+	/**
+	 * Creates the future event queue to be used by the simulation.
+	 * 
+	 * @param type the kind of queue; <tt>null</tt> means the default {@link FutureQueue}
+	 * @return the new queue
+	 */
+	protected static FutureEventQueue createFutureQueue(FutureEventQueue.QueueType type) {
+		if (type == FutureEventQueue.QueueType.CALENDAR) {
+			return new CalendarQueue();
+		}
+		return new FutureQueue();
 	}
 
 	// The two standard predicates
@@ -372,7 +344,7 @@ public class CloudSim {
 	 * @return the simulation time
 	 */
 	public static double clock() {
-		return clock;
+		return SimulationContext.current().clock;
 	}
 
 	/**
@@ -381,7 +353,7 @@ public class CloudSim {
 	 * @return The number of entities
 	 */
 	public static int getNumEntities() {
-		return entities.size();
+		return SimulationContext.current().entities.size();
 	}
 
 	/**
@@ -391,7 +363,7 @@ public class CloudSim {
 	 * @return The entity, or if it could not be found
 	 */
 	public static SimEntity getEntity(int id) {
-		return entities.get(id);
+		return SimulationContext.current().entities.get(id);
 	}
 
 	/**
@@ -401,7 +373,7 @@ public class CloudSim {
 	 * @return The entity
 	 */
 	public static SimEntity getEntity(String name) {
-		return entitiesByName.get(name);
+		return SimulationContext.current().entitiesByName.get(name);
 	}
 
 	/**
@@ -411,7 +383,8 @@ public class CloudSim {
 	 * @return The entity's unique id number
 	 */
 	public static int getEntityId(String name) {
-		SimEntity obj = entitiesByName.get(name);
+		SimulationContext context = SimulationContext.current();
+		SimEntity obj = context.entitiesByName.get(name);
 		if (obj == null) {
 			return NOT_FOUND;
 		} else {
@@ -458,10 +431,11 @@ public class CloudSim {
 	 * @return the entity iterator
 	 */
 	public static List<SimEntity> getEntityList() {
+		SimulationContext context = SimulationContext.current();
 		// create a new list to prevent the user from changing
 		// the list of entities used by Simulation
 		List<SimEntity> list = new LinkedList<SimEntity>();
-		list.addAll(entities);
+		list.addAll(context.entities);
 		return list;
 	}
 
@@ -474,17 +448,18 @@ public class CloudSim {
 	 * @param e The new entity
 	 */
 	public static void addEntity(SimEntity e) {
+		SimulationContext context = SimulationContext.current();
 		SimEvent evt;
-		if (running) {
+		if (context.running) {
 			// Post an event to make this entity
-			evt = new SimEvent(SimEvent.CREATE, clock, 1, 0, 0, e);
-			future.addEvent(evt);
+			evt = new SimEvent(SimEvent.CREATE, context.clock, 1, 0, 0, e);
+			context.future.addEvent(evt);
 		}
 		if (e.getId() == -1) { // Only add once!
-			int id = entities.size();
+			int id = context.entities.size();
 			e.setId(id);
-			entities.add(e);
-			entitiesByName.put(e.getName(), e);
+			context.entities.add(e);
+			context.entitiesByName.put(e.getName(), e);
 		}
 	}
 
@@ -513,13 +488,14 @@ public class CloudSim {
          * its visibility to package.
 	 */
 	public static boolean runClockTick() {
+		SimulationContext context = SimulationContext.current();
 		SimEntity ent;
 		boolean queue_empty;
 		
-		int entities_size =entities.size();
+		int entities_size =context.entities.size();
                                 
 		for (int i = 0; i < entities_size ; i++) {
-			ent = entities.get(i);
+			ent = context.entities.get(i);
 			if (ent.getState() == SimEntity.RUNNABLE) {
 				ent.run();
 			}
@@ -528,39 +504,30 @@ public class CloudSim {
                 
 		// If there are more future events then deal with them
                 if(WFCConstants.CAN_PRINT_SEQ_LOG)
-                Log.printLine("CloudSim=>runClockTick()=>future.size():"+future.size());
+                Log.printLine("CloudSim=>runClockTick()=>future.size():"+context.future.size());
                 
-		if (future.size() > 0) {
-			List<SimEvent> toRemove = new ArrayList<SimEvent>();
-			Iterator<SimEvent> fit = future.iterator();
+		if (context.future.size() > 0) {
 			queue_empty = false;
-			SimEvent first = fit.next();
-			processEvent(first);
-			future.remove(first);
+			context.tickEvents.clear();
+			context.future.drainFirst(context.tickEvents);
+			processEvent(context.tickEvents.get(0));
 
-			fit = future.iterator();
-
-			// Check if next events are at same time...
-			boolean trymore = fit.hasNext();
-			while (trymore) {
-				SimEvent next = fit.next();
-				if (next.eventTime() == first.eventTime()) {
+			// ...and then the next events at the same time
+			for (int i = 1; i < context.tickEvents.size(); i++) {
+				SimEvent next = context.tickEvents.get(i);
                                     if(WFCConstants.CAN_PRINT_SEQ_LOG)
                                     Log.printLine("/ Cloudsim=>runClockTick()=>next.eventTime():"+next.eventTime()+" /");                                    
                                            
-					processEvent(next);
-					toRemove.add(next);
-					trymore = fit.hasNext();
-				} else {
-					trymore = false;
-				}
+				processEvent(next);
 			}
 
-			future.removeAll(toRemove);
+			context.processedEvents += context.tickEvents.size();
+			context.clockTicks++;
+			context.tickEvents.clear();
 
 		} else {
 			queue_empty = true;
-			running = false;
+			context.running = false;
 			printMessage("Simulation: No more future events");
 		}
 
@@ -581,9 +548,10 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void hold(int src, long delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
-		entities.get(src).setState(SimEntity.HOLDING);
+		SimulationContext context = SimulationContext.current();
+		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, context.clock + delay, src);
+		context.future.addEvent(e);
+		context.entities.get(src).setState(SimEntity.HOLDING);
 	}
 
 	/**
@@ -593,9 +561,10 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void pause(int src, double delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
-		entities.get(src).setState(SimEntity.HOLDING);
+		SimulationContext context = SimulationContext.current();
+		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, context.clock + delay, src);
+		context.future.addEvent(e);
+		context.entities.get(src).setState(SimEntity.HOLDING);
 	}
 
 	/**
@@ -608,6 +577,7 @@ public class CloudSim {
 	 * @param data the data
 	 */
 	public static void send(int src, int dest, double delay, int tag, Object data) {
+		SimulationContext context = SimulationContext.current();
                 String className="";
                 int dataLength=0;
                 
@@ -624,8 +594,8 @@ public class CloudSim {
                 Log.printLine("*CloudSim=>send() new event to future By=> Source:"+src+" Dest:"+dest+" Tag:"+tag+" Data*:");                            
                 Log.printLine(data); 
                 }
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEvent(e);
+		SimEvent e = new SimEvent(SimEvent.SEND, context.clock + delay, src, dest, tag, data);
+		context.future.addEvent(e);
 	}
 
 	/**
@@ -638,14 +608,15 @@ public class CloudSim {
 	 * @param data the data
 	 */
 	public static void sendFirst(int src, int dest, double delay, int tag, Object data) {
+		SimulationContext context = SimulationContext.current();
 		if (delay < 0) {
 			throw new IllegalArgumentException("Send delay can't be negative.");
 		}
                 if(WFCConstants.CAN_PRINT_SEQ_LOG)                           
                 Log.printLine("********CloudSim=>sendFirst() new event to future By=> Source:"+src+" Dest:"+dest+" Tag:"+tag+ " Data:"+data +"********");
 		
-                SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEventFirst(e);
+                SimEvent e = new SimEvent(SimEvent.SEND, context.clock + delay, src, dest, tag, data);
+		context.future.addEventFirst(e);
 	}
 
 	/**
@@ -657,10 +628,11 @@ public class CloudSim {
 	 * @param p the p
 	 */
 	public static void wait(int src, Predicate p) {
-		entities.get(src).setState(SimEntity.WAITING);
+		SimulationContext context = SimulationContext.current();
+		context.entities.get(src).setState(SimEntity.WAITING);
 		if (p != SIM_ANY) {
 			// If a predicate has been used store it in order to check it
-			waitPredicates.put(src, p);
+			context.waitPredicates.put(src, p);
 		}
 	}
 
@@ -672,16 +644,7 @@ public class CloudSim {
 	 * @return the int
 	 */
 	public static int waiting(int d, Predicate p) {
-		int count = 0;
-		SimEvent event;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if ((event.getDestination() == d) && (p.match(event))) {
-				count++;
-			}
-		}
-		return count;
+		return SimulationContext.current().deferred.count(d, p);
 	}
 
 	/**
@@ -689,19 +652,10 @@ public class CloudSim {
 	 * 
 	 * @param src the src
 	 * @param p the p
-	 * @return the sim event
+	 * @return the sim event, or <tt>null</tt> if no deferred event matches
 	 */
 	public static SimEvent select(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				iterator.remove();
-				break;
-			}
-		}
-		return ev;
+		return SimulationContext.current().deferred.removeFirst(src, p);
 	}
 
 	/**
@@ -709,18 +663,10 @@ public class CloudSim {
 	 * 
 	 * @param src the src
 	 * @param p the p
-	 * @return the sim event
+	 * @return the sim event, or <tt>null</tt> if no deferred event matches
 	 */
 	public static SimEvent findFirstDeferred(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				break;
-			}
-		}
-		return ev;
+		return SimulationContext.current().deferred.findFirst(src, p);
 	}
 
 	/**
@@ -731,8 +677,9 @@ public class CloudSim {
 	 * @return the sim event
 	 */
 	public static SimEvent cancel(int src, Predicate p) {
+		SimulationContext context = SimulationContext.current();
 		SimEvent ev = null;
-		Iterator<SimEvent> iter = future.iterator();
+		Iterator<SimEvent> iter = context.future.iterator();
 		while (iter.hasNext()) {
 			ev = iter.next();
 			if (ev.getSource() == src && p.match(ev)) {
@@ -753,16 +700,17 @@ public class CloudSim {
 	 * @return true, if successful
 	 */
 	public static boolean cancelAll(int src, Predicate p) {
+		SimulationContext context = SimulationContext.current();
 		SimEvent ev = null;
-		int previousSize = future.size();
-		Iterator<SimEvent> iter = future.iterator();
+		int previousSize = context.future.size();
+		Iterator<SimEvent> iter = context.future.iterator();
 		while (iter.hasNext()) {
 			ev = iter.next();
 			if (ev.getSource() == src && p.match(ev)) {
 				iter.remove();
 			}
 		}
-		return previousSize < future.size();
+		return previousSize < context.future.size();
 	}
 
 	//
@@ -775,13 +723,14 @@ public class CloudSim {
 	 * @param e the e
 	 */
 	private static void processEvent(SimEvent e) {
+		SimulationContext context = SimulationContext.current();
 		int dest, src;
 		SimEntity dest_ent;
 		// Update the system's clock
-		if (e.eventTime() < clock) {
+		if (e.eventTime() < context.clock) {
 			throw new IllegalArgumentException("Past event detected.");
 		}
-		clock = e.eventTime();
+		context.clock = e.eventTime();
 
 		// Ok now process it
 		switch (e.getType()) {
@@ -800,19 +749,19 @@ public class CloudSim {
 					throw new IllegalArgumentException("Attempt to send to a null entity detected.");
 				} else {
 					int tag = e.getTag();
-					dest_ent = entities.get(dest);
+					dest_ent = context.entities.get(dest);
 					if (dest_ent.getState() == SimEntity.WAITING) {
 						Integer destObj = Integer.valueOf(dest);
-						Predicate p = waitPredicates.get(destObj);
+						Predicate p = context.waitPredicates.get(destObj);
 						if ((p == null) || (tag == 9999) || (p.match(e))) {
 							dest_ent.setEventBuffer((SimEvent) e.clone());
 							dest_ent.setState(SimEntity.RUNNABLE);
-							waitPredicates.remove(destObj);
+							context.waitPredicates.remove(destObj);
 						} else {
-							deferred.addEvent(e);
+							context.deferred.addEvent(e);
 						}
 					} else {
-						deferred.addEvent(e);
+						context.deferred.addEvent(e);
 					}
 				}
 				break;
@@ -822,7 +771,7 @@ public class CloudSim {
 				if (src < 0) {
 					throw new IllegalArgumentException("Null entity holding.");
 				} else {
-					entities.get(src).setState(SimEntity.RUNNABLE);
+					context.entities.get(src).setState(SimEntity.RUNNABLE);
 				}
 				break;
 
@@ -830,7 +779,7 @@ public class CloudSim {
 				break;
 		}
                 if(WFCConstants.CAN_PRINT_SEQ_LOG)
-               Log.printLine("CloudSim=>ProccessEvent()=> deferred.size():"+ deferred.size());
+               Log.printLine("CloudSim=>ProccessEvent()=> deferred.size():"+ context.deferred.size());
 	}
 
 	/**
@@ -838,9 +787,10 @@ public class CloudSim {
 	 * simulations.
 	 */
 	public static void runStart() {
-		running = true;
+		SimulationContext context = SimulationContext.current();
+		context.running = true;
 		// Start all the entities
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : context.entities) {
 			ent.startEntity();
 		}
 
@@ -854,7 +804,7 @@ public class CloudSim {
 	 * @return if the simulation is still running, otherwise
 	 */
 	public static boolean running() {
-		return running;
+		return SimulationContext.current().running;
 	}
 
 	/**
@@ -863,8 +813,9 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation() {
-		paused = true;
-		return paused;
+		SimulationContext context = SimulationContext.current();
+		context.paused = true;
+		return context.paused;
 	}
 
 	/**
@@ -874,10 +825,11 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation(long time) {
-		if (time <= clock) {
+		SimulationContext context = SimulationContext.current();
+		if (time <= context.clock) {
 			return false;
 		} else {
-			pauseAt = time;
+			context.pauseAt = time;
 		}
 		return true;
 	}
@@ -888,13 +840,14 @@ public class CloudSim {
 	 * @return if the simulation has been restarted or or otherwise.
 	 */
 	public static boolean resumeSimulation() {
-		paused = false;
+		SimulationContext context = SimulationContext.current();
+		context.paused = false;
 
-		if (pauseAt <= clock) {
-			pauseAt = -1;
+		if (context.pauseAt <= context.clock) {
+			context.pauseAt = -1;
 		}
 
-		return !paused;
+		return !context.paused;
 	}
 
 	/**
@@ -904,7 +857,9 @@ public class CloudSim {
 	 * @return the last clock value
 	 */
 	public static double run() {
-		if (!running) {
+		SimulationContext context = SimulationContext.current();
+		long wallClockStart = System.currentTimeMillis();
+		if (!context.running) {
 			runStart();
 		}
                 
@@ -915,25 +870,25 @@ public class CloudSim {
                         if(WFCConstants.CAN_PRINT_SEQ_LOG_Just_Step)
                         Log.printLine("\n---------------------------------------Step(" + step +")"+"---------------------------------------");
                         
-			if (runClockTick() || abruptTerminate) {
+			if (runClockTick() || context.abruptTerminate) {
 				break;
 			}
 
 			// this block allows termination of simulation at a specific time
-			if (terminateAt > 0.0 && clock >= terminateAt) {
+			if (context.terminateAt > 0.0 && context.clock >= context.terminateAt) {
 				terminateSimulation();
-				clock = terminateAt;
+				context.clock = context.terminateAt;
 				break;
 			}
 
-			if (pauseAt != -1
-					&& ((future.size() > 0 && clock <= pauseAt && pauseAt <= future.iterator().next()
-							.eventTime()) || future.size() == 0 && pauseAt <= clock)) {
+			if (context.pauseAt != -1
+					&& ((context.future.size() > 0 && context.clock <= context.pauseAt && context.pauseAt <= context.future.iterator().next()
+							.eventTime()) || context.future.size() == 0 && context.pauseAt <= context.clock)) {
 				pauseSimulation();
-				clock = pauseAt;
+				context.clock = context.pauseAt;
 			}
 
-			while (paused) {
+			while (context.paused) {
 				try {
 					Thread.sleep(100);
 				} catch (InterruptedException e) {
@@ -943,6 +898,9 @@ public class CloudSim {
 		}
 
 		double clock = clock();
+		context.runWallClockTime = System.currentTimeMillis() - wallClockStart;
+		printMessage("Simulation: " + context.processedEvents + " events processed in " + context.clockTicks
+				+ " clock ticks (" + (long) getEventRate() + " events/s)");
 
 		finishSimulation();
 		runStop();
@@ -955,39 +913,43 @@ public class CloudSim {
 	 * in user simulations.
 	 */
 	public static void finishSimulation() {
+		SimulationContext context = SimulationContext.current();
 		// Allow all entities to exit their body method
-		if (!abruptTerminate) {
-			for (SimEntity ent : entities) {
+		if (!context.abruptTerminate) {
+			for (SimEntity ent : context.entities) {
 				if (ent.getState() != SimEntity.FINISHED) {
 					ent.run();
 				}
 			}
 		}
 
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : context.entities) {
 			ent.shutdownEntity();
 		}
 
-		// reset all static variables
-		// Private data members
-		entities = null;
-		entitiesByName = null;
-		future = null;
-		deferred = null;
-		clock = 0L;
-		running = false;
+		// reset the state of the context
+		context.entities = null;
+		context.entitiesByName = null;
+		context.future = null;
+		context.deferred = null;
+		context.clock = 0L;
+		context.running = false;
 
-		waitPredicates = null;
-		paused = false;
-		pauseAt = -1;
-		abruptTerminate = false;
+		context.waitPredicates = null;
+		context.paused = false;
+		context.pauseAt = -1;
+		context.abruptTerminate = false;
+
+		// write what an asynchronous logger still buffers
+		Log.flush();
 	}
 
 	/**
 	 * Abruptally terminate.
 	 */
 	public static void abruptallyTerminate() {
-		abruptTerminate = true;
+		SimulationContext context = SimulationContext.current();
+		context.abruptTerminate = true;
 	}
 
 	/**
@@ -999,13 +961,46 @@ public class CloudSim {
 		Log.printLine(message);
 	}
 
+	/**
+	 * Gets the number of clock ticks that processed at least one future event in the last
+	 * simulation run.
+	 * 
+	 * @return the number of clock ticks
+	 */
+	public static long getClockTicks() {
+		return SimulationContext.current().clockTicks;
+	}
+
+	/**
+	 * Gets the number of future events processed in the last simulation run.
+	 * 
+	 * @return the number of events
+	 */
+	public static long getProcessedEvents() {
+		return SimulationContext.current().processedEvents;
+	}
+
+	/**
+	 * Gets the number of future events processed per second of wall clock time in the last
+	 * simulation run.
+	 * 
+	 * @return the event rate, or 0 if the run was too short to be measured
+	 */
+	public static double getEventRate() {
+		SimulationContext context = SimulationContext.current();
+		if (context.runWallClockTime <= 0) {
+			return 0;
+		}
+		return context.processedEvents * 1000.0 / context.runWallClockTime;
+	}
+
 	/**
 	 * Checks if is paused.
 	 * 
 	 * @return true, if is paused
 	 */
 	public static boolean isPaused() {
-		return paused;
+		return SimulationContext.current().paused;
 	}
 
 }
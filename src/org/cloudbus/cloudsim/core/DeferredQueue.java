@@ -8,15 +8,29 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
+import org.cloudbus.cloudsim.core.predicates.PredicateFrom;
+import org.cloudbus.cloudsim.core.predicates.PredicateNone;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
- * This class implements the deferred event queue used by {@link CloudSim}. 
- * The event queue uses a linked list to store the events.
- * 
+ * This class implements the deferred event queue used by {@link CloudSim}.
+ * <p>
+ * The events are kept in linked lists indexed by destination entity, and each destination is
+ * further indexed by event tag and by source entity. Each list is ordered by event time and, for
+ * events with the same time, by the order they were added. Lookups for a destination with
+ * {@link PredicateAny}, {@link PredicateType} or {@link PredicateFrom} only touch the heads of
+ * the matching lists; any other predicate, including subclasses of those, falls back to a scan
+ * of the events of the destination.
+ *
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see CloudSim
@@ -24,65 +38,405 @@ import java.util.ListIterator;
  */
 public class DeferredQueue {
 
-	/** The list of events. */
-	private final List<SimEvent> list = new LinkedList<SimEvent>();
+	/** The index of the list of all the events of a destination, in {@link Node} links. */
+	private static final int BY_DESTINATION = 0;
+
+	/** The index of the list of the events of a destination with a given tag. */
+	private static final int BY_TAG = 1;
+
+	/** The index of the list of the events of a destination from a given source. */
+	private static final int BY_SOURCE = 2;
 
-	/** The max time that an added event is scheduled. */
-	private double maxTime = -1;
+	/** The events of each destination entity. */
+	private final Map<Integer, DestinationEvents> destinations = new HashMap<Integer, DestinationEvents>();
+
+	/** The number of events in the queue. */
+	private int size;
+
+	/** A incremental number giving the order in which the events were added. */
+	private long serial;
 
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order
 	 * of the events.
-	 * 
+	 *
 	 * @param newEvent The event to be added to the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
+		DestinationEvents events = destinations.get(newEvent.getDestination());
+		if (events == null) {
+			events = new DestinationEvents();
+			destinations.put(newEvent.getDestination(), events);
+		}
+
 		// The event has to be inserted as the last of all events
 		// with the same event_time(). Yes, this matters.
-		double eventTime = newEvent.eventTime();
-		if (eventTime >= maxTime) {
-			list.add(newEvent);
-			maxTime = eventTime;
-			return;
-		}
-
-		ListIterator<SimEvent> iterator = list.listIterator();
-		SimEvent event;
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if (event.eventTime() > eventTime) {
-				iterator.previous();
-				iterator.add(newEvent);
-				return;
-			}
+		Node node = new Node(newEvent, serial++);
+		events.all.insert(node);
+		events.listFor(events.byTag, newEvent.getTag(), BY_TAG).insert(node);
+		events.listFor(events.bySource, newEvent.getSource(), BY_SOURCE).insert(node);
+		size++;
+	}
+
+	/**
+	 * Finds the first event sent to an entity that matches a predicate.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if no event matches
+	 */
+	public SimEvent findFirst(int destination, Predicate p) {
+		Node node = firstNode(destination, p);
+		return node == null ? null : node.event;
+	}
+
+	/**
+	 * Removes the first event sent to an entity that matches a predicate.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param p the predicate
+	 * @return the removed event, or <tt>null</tt> if no event matches
+	 */
+	public SimEvent removeFirst(int destination, Predicate p) {
+		Node node = firstNode(destination, p);
+		if (node == null) {
+			return null;
+		}
+		unlink(node);
+		return node.event;
+	}
+
+	/**
+	 * Counts the events sent to an entity that match a predicate.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param p the predicate
+	 * @return the number of matching events
+	 */
+	public int count(int destination, Predicate p) {
+		DestinationEvents events = destinations.get(destination);
+		if (events == null || p.getClass() == PredicateNone.class) {
+			return 0;
+		}
+		if (p.getClass() == PredicateAny.class) {
+			return events.all.size;
+		}
+		if (p.getClass() == PredicateType.class) {
+			return countIndexed(events.byTag, ((PredicateType) p).getTags());
+		}
+		if (p.getClass() == PredicateFrom.class) {
+			return countIndexed(events.bySource, ((PredicateFrom) p).getSourceIds());
 		}
 
-		list.add(newEvent);
+		int count = 0;
+		for (Node node = events.all.head; node != null; node = node.next[BY_DESTINATION]) {
+			if (p.match(node.event)) {
+				count++;
+			}
+		}
+		return count;
 	}
 
 	/**
-	 * Returns an iterator to the events in the queue.
-	 * 
+	 * Returns an iterator to the events in the queue, in temporal order. The iterator works on a
+	 * sorted copy of the queue, so it should not be used on hot paths; use the lookups by
+	 * destination instead.
+	 *
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return list.iterator();
+		final Node[] nodes = new Node[size];
+		int i = 0;
+		for (DestinationEvents events : destinations.values()) {
+			for (Node node = events.all.head; node != null; node = node.next[BY_DESTINATION]) {
+				nodes[i++] = node;
+			}
+		}
+		Arrays.sort(nodes, NODE_ORDER);
+
+		return new Iterator<SimEvent>() {
+
+			private int position;
+
+			private boolean removable;
+
+			@Override
+			public boolean hasNext() {
+				return position < nodes.length;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (position >= nodes.length) {
+					throw new NoSuchElementException();
+				}
+				removable = true;
+				return nodes[position++].event;
+			}
+
+			@Override
+			public void remove() {
+				if (!removable) {
+					throw new IllegalStateException();
+				}
+				removable = false;
+				unlink(nodes[position - 1]);
+			}
+		};
 	}
 
 	/**
 	 * Returns the size of this event queue.
-	 * 
+	 *
 	 * @return the number of events in the queue.
 	 */
 	public int size() {
-		return list.size();
+		return size;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		list.clear();
+		destinations.clear();
+		size = 0;
+	}
+
+	/**
+	 * Finds the first node sent to an entity whose event matches a predicate.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param p the predicate
+	 * @return the node, or <tt>null</tt> if no event matches
+	 */
+	private Node firstNode(int destination, Predicate p) {
+		DestinationEvents events = destinations.get(destination);
+		if (events == null || p.getClass() == PredicateNone.class) {
+			return null;
+		}
+		if (p.getClass() == PredicateAny.class) {
+			return events.all.head;
+		}
+		if (p.getClass() == PredicateType.class) {
+			return firstIndexed(events.byTag, ((PredicateType) p).getTags());
+		}
+		if (p.getClass() == PredicateFrom.class) {
+			return firstIndexed(events.bySource, ((PredicateFrom) p).getSourceIds());
+		}
+
+		for (Node node = events.all.head; node != null; node = node.next[BY_DESTINATION]) {
+			if (p.match(node.event)) {
+				return node;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the earliest head of the indexed lists for some keys.
+	 *
+	 * @param index the tag or source index of a destination
+	 * @param keys the tags or source ids
+	 * @return the earliest node, or <tt>null</tt> if all the lists are empty
+	 */
+	private static Node firstIndexed(Map<Integer, NodeList> index, int[] keys) {
+		Node first = null;
+		for (int key : keys) {
+			NodeList list = index.get(key);
+			if (list != null && list.head != null
+					&& (first == null || NODE_ORDER.compare(list.head, first) < 0)) {
+				first = list.head;
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * Counts the events in the indexed lists for some keys, ignoring repeated keys.
+	 *
+	 * @param index the tag or source index of a destination
+	 * @param keys the tags or source ids
+	 * @return the number of events
+	 */
+	private static int countIndexed(Map<Integer, NodeList> index, int[] keys) {
+		int count = 0;
+		for (int i = 0; i < keys.length; i++) {
+			boolean repeated = false;
+			for (int j = 0; j < i && !repeated; j++) {
+				repeated = keys[j] == keys[i];
+			}
+			NodeList list = repeated ? null : index.get(keys[i]);
+			if (list != null) {
+				count += list.size;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Removes a node from all the lists it belongs to.
+	 *
+	 * @param node the node
+	 */
+	private void unlink(Node node) {
+		DestinationEvents events = destinations.get(node.event.getDestination());
+		events.all.unlink(node);
+		unlinkIndexed(events.byTag, node.event.getTag(), node);
+		unlinkIndexed(events.bySource, node.event.getSource(), node);
+		if (events.all.size == 0) {
+			destinations.remove(node.event.getDestination());
+		}
+		size--;
+	}
+
+	/**
+	 * Removes a node from an indexed list, dropping the list once it is empty.
+	 *
+	 * @param index the tag or source index of a destination
+	 * @param key the tag or source id of the node
+	 * @param node the node
+	 */
+	private static void unlinkIndexed(Map<Integer, NodeList> index, int key, Node node) {
+		NodeList list = index.get(key);
+		list.unlink(node);
+		if (list.size == 0) {
+			index.remove(key);
+		}
+	}
+
+	/** Orders nodes by event time and then by the order they were added. */
+	private static final Comparator<Node> NODE_ORDER = new Comparator<Node>() {
+
+		@Override
+		public int compare(Node n1, Node n2) {
+			int byTime = Double.compare(n1.event.eventTime(), n2.event.eventTime());
+			return byTime != 0 ? byTime : Long.compare(n1.serial, n2.serial);
+		}
+	};
+
+	/**
+	 * The events sent to a single destination entity.
+	 */
+	private static final class DestinationEvents {
+
+		/** All the events, in queue order. */
+		private final NodeList all = new NodeList(BY_DESTINATION);
+
+		/** The events by tag, in queue order. */
+		private final Map<Integer, NodeList> byTag = new HashMap<Integer, NodeList>();
+
+		/** The events by source entity, in queue order. */
+		private final Map<Integer, NodeList> bySource = new HashMap<Integer, NodeList>();
+
+		/**
+		 * Gets the list of an index for a key, creating it if needed.
+		 *
+		 * @param index the index
+		 * @param key the tag or source id
+		 * @param link the links used by the list
+		 * @return the list
+		 */
+		NodeList listFor(Map<Integer, NodeList> index, int key, int link) {
+			NodeList list = index.get(key);
+			if (list == null) {
+				list = new NodeList(link);
+				index.put(key, list);
+			}
+			return list;
+		}
+	}
+
+	/**
+	 * An event of the queue. A node belongs to three doubly linked lists at once: the list of its
+	 * destination, the list of its tag and the list of its source, so it can be removed from all
+	 * of them in constant time.
+	 */
+	private static final class Node {
+
+		private final SimEvent event;
+
+		/** The order in which the event was added to the queue. */
+		private final long serial;
+
+		private final Node[] previous = new Node[3];
+
+		private final Node[] next = new Node[3];
+
+		Node(SimEvent event, long serial) {
+			this.event = event;
+			this.serial = serial;
+		}
+	}
+
+	/**
+	 * A doubly linked list of nodes, ordered by event time and then by the order they were added.
+	 */
+	private static final class NodeList {
+
+		/** Which of the {@link Node} links this list uses. */
+		private final int link;
+
+		private Node head;
+
+		private Node tail;
+
+		private int size;
+
+		NodeList(int link) {
+			this.link = link;
+		}
+
+		/**
+		 * Inserts a node after all the nodes whose time is not later than its time. The node is the
+		 * newest one, so the position is searched from the tail.
+		 *
+		 * @param node the node
+		 */
+		void insert(Node node) {
+			double time = node.event.eventTime();
+			Node after = tail;
+			while (after != null && after.event.eventTime() > time) {
+				after = after.previous[link];
+			}
+
+			node.previous[link] = after;
+			if (after == null) {
+				node.next[link] = head;
+				head = node;
+			} else {
+				node.next[link] = after.next[link];
+				after.next[link] = node;
+			}
+			if (node.next[link] == null) {
+				tail = node;
+			} else {
+				node.next[link].previous[link] = node;
+			}
+			size++;
+		}
+
+		/**
+		 * Removes a node of the list.
+		 *
+		 * @param node the node
+		 */
+		void unlink(Node node) {
+			Node before = node.previous[link];
+			Node after = node.next[link];
+			if (before == null) {
+				head = after;
+			} else {
+				before.next[link] = after;
+			}
+			if (after == null) {
+				tail = before;
+			} else {
+				after.previous[link] = before;
+			}
+			node.previous[link] = null;
+			node.next[link] = null;
+			size--;
+		}
 	}
 
-}
\ No newline at end of file
+}
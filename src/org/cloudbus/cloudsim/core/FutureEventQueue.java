@@ -0,0 +1,96 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An interface to be implemented by the future event list used by {@link CloudSim}.
+ * Implementations must keep the events ordered by {@link SimEvent#eventTime()} and then
+ * by the serial number assigned on insertion, so that events scheduled for the same
+ * time are delivered in the order they were added.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see FutureQueue
+ * @see CalendarQueue
+ */
+public interface FutureEventQueue {
+
+	/**
+	 * The available implementations of the future event list.
+	 */
+	enum QueueType {
+		/** A {@link FutureQueue}, backed by a {@link java.util.TreeSet}. */
+		TREE_SET,
+		/** A {@link CalendarQueue}, with amortized constant time enqueue/dequeue. */
+		CALENDAR
+	}
+
+	/**
+	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order of
+	 * the events in the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	void addEvent(SimEvent newEvent);
+
+	/**
+	 * Adds a new event to the head of the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	void addEventFirst(SimEvent newEvent);
+
+	/**
+	 * Returns an iterator to the queue, which walks the events in temporal order.
+	 *
+	 * @return the iterator
+	 */
+	Iterator<SimEvent> iterator();
+
+	/**
+	 * Returns the size of this event queue.
+	 *
+	 * @return the size
+	 */
+	int size();
+
+	/**
+	 * Removes the first event of the queue together with all the events scheduled for the same
+	 * time, in a single pass and without creating iterators.
+	 *
+	 * @param events the list the removed events are appended to, in queue order
+	 * @return the number of events removed; zero if the queue is empty
+	 */
+	int drainFirst(List<SimEvent> events);
+
+	/**
+	 * Removes the event from the queue.
+	 *
+	 * @param event the event
+	 * @return true, if successful
+	 */
+	boolean remove(SimEvent event);
+
+	/**
+	 * Removes all the events from the queue.
+	 *
+	 * @param events the events
+	 * @return true, if successful
+	 */
+	boolean removeAll(Collection<SimEvent> events);
+
+	/**
+	 * Clears the queue.
+	 */
+	void clear();
+
+}
@@ -10,7 +10,8 @@ package org.cloudbus.cloudsim.core;
 
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.SortedSet;
+import java.util.List;
+import java.util.NavigableSet;
 import java.util.TreeSet;
 
 /**
@@ -21,14 +22,12 @@ import java.util.TreeSet;
  * @since CloudSim Toolkit 1.0
  * @see Simulation
  * @see java.util.TreeSet
- * 
- * @todo It would be used a common interface for queues
- * such as this one and {@link DeferredQueue}
+ * @see FutureEventQueue
  */
-public class FutureQueue {
+public class FutureQueue implements FutureEventQueue {
 
 	/** The sorted set of events. */
-	private final SortedSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
+	private final NavigableSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
 
 	/** A incremental number used for {@link SimEvent#serial} event attribute.
          */
@@ -40,6 +39,7 @@ public class FutureQueue {
 	 * 
 	 * @param newEvent The event to be put in the queue.
 	 */
+	@Override
 	public void addEvent(SimEvent newEvent) {
 		newEvent.setSerial(serial++);
 		sortedSet.add(newEvent);
@@ -50,6 +50,7 @@ public class FutureQueue {
 	 * 
 	 * @param newEvent The event to be put in the queue.
 	 */
+	@Override
 	public void addEventFirst(SimEvent newEvent) {
 		newEvent.setSerial(0);
 		sortedSet.add(newEvent);
@@ -60,6 +61,7 @@ public class FutureQueue {
 	 * 
 	 * @return the iterator
 	 */
+	@Override
 	public Iterator<SimEvent> iterator() {
 		return sortedSet.iterator();
 	}
@@ -69,16 +71,40 @@ public class FutureQueue {
 	 * 
 	 * @return the size
 	 */
+	@Override
 	public int size() {
 		return sortedSet.size();
 	}
 
+	/**
+	 * Removes the first event of the queue together with all the events scheduled for the same
+	 * time, using {@link TreeSet#pollFirst()}.
+	 * 
+	 * @param events the list the removed events are appended to, in queue order
+	 * @return the number of events removed
+	 */
+	@Override
+	public int drainFirst(List<SimEvent> events) {
+		if (sortedSet.isEmpty()) {
+			return 0;
+		}
+		SimEvent first = sortedSet.pollFirst();
+		events.add(first);
+		int count = 1;
+		while (!sortedSet.isEmpty() && sortedSet.first().eventTime() == first.eventTime()) {
+			events.add(sortedSet.pollFirst());
+			count++;
+		}
+		return count;
+	}
+
 	/**
 	 * Removes the event from the queue.
 	 * 
 	 * @param event the event
 	 * @return true, if successful
 	 */
+	@Override
 	public boolean remove(SimEvent event) {
 		return sortedSet.remove(event);
 	}
@@ -89,6 +115,7 @@ public class FutureQueue {
 	 * @param events the events
 	 * @return true, if successful
 	 */
+	@Override
 	public boolean removeAll(Collection<SimEvent> events) {
 		return sortedSet.removeAll(events);
 	}
@@ -96,6 +123,7 @@ public class FutureQueue {
 	/**
 	 * Clears the queue.
 	 */
+	@Override
 	public void clear() {
 		sortedSet.clear();
 	}
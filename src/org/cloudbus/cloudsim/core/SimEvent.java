@@ -99,6 +99,15 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 		this.serial = serial;
 	}
 
+	/**
+	 * Gets the serial used to order events scheduled for the same time.
+	 * 
+	 * @return the serial
+	 */
+	long getSerial() {
+		return serial;
+	}
+
 	/**
 	 * Sets the time that the event was removed from the queue to start service. 
 	 * 
@@ -0,0 +1,196 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * The state of one simulation: the clock, the event queues and the entities used by
+ * {@link CloudSim}, and the state of the other simulation-wide singletons such as
+ * {@link org.cloudbus.cloudsim.Log} or the replica catalog of WorkflowSim.
+ * <p>
+ * The static API of {@link CloudSim} and of those singletons works on the context bound to the
+ * current thread, or on the default context when the thread has none. A single simulation can
+ * ignore contexts altogether. To run several simulations at once in one JVM, run each of them
+ * with {@link #call(Callable)} on a new context: they share no state, so each of them gives the
+ * same results as when it is run alone.
+ * <p>
+ * The configuration kept in static fields, such as <tt>WFCConstants</tt>, is not part of the
+ * context and has to stay unchanged while simulations run in parallel.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see CloudSim
+ */
+public final class SimulationContext {
+
+	/** The context of the threads with no bound context. */
+	private static final SimulationContext DEFAULT = new SimulationContext();
+
+	/** The context bound to each thread. */
+	private static final ThreadLocal<SimulationContext> CURRENT = new ThreadLocal<SimulationContext>();
+
+	/** The state of the other singletons, by the class that keeps it. */
+	private final Map<Class<?>, Object> states = new ConcurrentHashMap<Class<?>, Object>();
+
+	/** The id of CIS entity. */
+	int cisId = -1;
+
+	/** The id of CloudSimShutdown entity. */
+	int shutdownId = -1;
+
+	/** The CIS object. */
+	CloudInformationService cis;
+
+	/** The trace flag. */
+	boolean traceFlag;
+
+	/** The calendar. */
+	Calendar calendar;
+
+	/** The termination time. */
+	double terminateAt = -1;
+
+	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
+	double minTimeBetweenEvents = 0.1;
+
+	/** The entities. */
+	List<SimEntity> entities;
+
+	/** The future event queue. */
+	FutureEventQueue future;
+
+	/** The deferred event queue. */
+	DeferredQueue deferred;
+
+	/** The current simulation clock. */
+	double clock;
+
+	/** Flag for checking if the simulation is running. */
+	boolean running;
+
+	/** The entities by name. */
+	Map<String, SimEntity> entitiesByName;
+
+	/** The predicates used in entity wait methods. */
+	Map<Integer, Predicate> waitPredicates;
+
+	/** The paused. */
+	boolean paused;
+
+	/** The pause at. */
+	long pauseAt = -1;
+
+	/** The abrupt terminate. */
+	boolean abruptTerminate;
+
+	/** The events taken from the future queue in the current clock tick. Reused on every tick. */
+	final List<SimEvent> tickEvents = new ArrayList<SimEvent>();
+
+	/** The number of clock ticks that processed at least one future event. */
+	long clockTicks;
+
+	/** The number of future events processed. */
+	long processedEvents;
+
+	/** The wall clock time spent in {@link CloudSim#run()}, in milliseconds. */
+	long runWallClockTime;
+
+	/**
+	 * Gets the context bound to the current thread.
+	 *
+	 * @return the bound context, or the default context if the thread has none
+	 */
+	public static SimulationContext current() {
+		SimulationContext context = CURRENT.get();
+		return context == null ? DEFAULT : context;
+	}
+
+	/**
+	 * Gets the context of the threads with no bound context.
+	 *
+	 * @return the default context
+	 */
+	public static SimulationContext getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Runs a task with this context bound to the current thread. The context bound before, if
+	 * any, is bound again once the task ends.
+	 *
+	 * @param task the task
+	 * @return the result of the task
+	 * @throws Exception if the task throws an exception
+	 */
+	public <V> V call(Callable<V> task) throws Exception {
+		SimulationContext previous = CURRENT.get();
+		CURRENT.set(this);
+		try {
+			return task.call();
+		} finally {
+			if (previous == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * Runs a task with this context bound to the current thread.
+	 *
+	 * @param task the task
+	 * @see #call(Callable)
+	 */
+	public void run(final Runnable task) {
+		try {
+			call(new Callable<Void>() {
+
+				@Override
+				public Void call() {
+					task.run();
+					return null;
+				}
+			});
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			// a Runnable only throws unchecked exceptions
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Gets the state a class keeps in this context, creating it on first use.
+	 *
+	 * @param type the class of the state, which is also its key
+	 * @param factory creates the state
+	 * @return the state
+	 */
+	public <T> T getState(Class<T> type, Supplier<? extends T> factory) {
+		Object state = states.get(type);
+		if (state == null) {
+			T created = factory.get();
+			state = states.putIfAbsent(type, created);
+			if (state == null) {
+				return created;
+			}
+		}
+		return type.cast(state);
+	}
+
+}
@@ -41,6 +41,15 @@ public class PredicateType extends Predicate {
 		this.tags = tags.clone();
 	}
 
+	/**
+	 * Gets the tags this predicate matches.
+	 * 
+	 * @return a copy of the {@link #tags}
+	 */
+	public int[] getTags() {
+		return tags.clone();
+	}
+
 	/**
 	 * Matches any event that has one of the specified {@link #tags}.
 	 * 
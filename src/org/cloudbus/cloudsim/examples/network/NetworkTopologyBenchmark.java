@@ -0,0 +1,132 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation
+ *               of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.examples.network;
+
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.network.DelayMatrix_Float;
+import org.cloudbus.cloudsim.network.SparseDelayMatrix_Float;
+import org.cloudbus.cloudsim.network.TopologicalGraph;
+import org.cloudbus.cloudsim.network.TopologicalLink;
+import org.cloudbus.cloudsim.network.TopologicalNode;
+
+/**
+ * Compares the time and the memory taken by the dense delay matrix and by the
+ * sparse one on random topologies, each node being linked to two nodes created
+ * before it.
+ * <p>
+ * Usage: <tt>NetworkTopologyBenchmark [nodes,...] [maximum dense nodes] [queries]</tt>,
+ * by default <tt>1000,5000,20000 1000 100000</tt>. The dense matrix takes time in the cube
+ * of the number of nodes, so it is only built for the smaller topologies.
+ */
+public class NetworkTopologyBenchmark {
+
+	/** The matrix measured, kept reachable while its memory is measured. */
+	private static Object measured;
+
+	/**
+	 * Runs the benchmark.
+	 */
+	public static void main(String[] args) {
+		String[] sizes = (args.length > 0 ? args[0] : "1000,5000,20000").split(",");
+		int maxDenseNodes = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		int queries = args.length > 2 ? Integer.parseInt(args[2]) : 100000;
+
+		Log.printLine("nodes\tmatrix\tbuild ms\tmemory MB\tquery ms\tmax difference");
+		for (String size : sizes) {
+			int nodes = Integer.parseInt(size.trim());
+			TopologicalGraph graph = createGraph(nodes, new Random(nodes));
+			int[] pairs = createPairs(nodes, queries, new Random(-nodes));
+
+			long memory = usedMemory();
+			long start = System.nanoTime();
+			SparseDelayMatrix_Float sparse = new SparseDelayMatrix_Float(graph, false);
+			measured = sparse;
+			long build = System.nanoTime() - start;
+			start = System.nanoTime();
+			float[] sparseDelays = new float[queries];
+			for (int i = 0; i < queries; i++) {
+				sparseDelays[i] = sparse.getDelay(pairs[2 * i], pairs[2 * i + 1]);
+			}
+			long query = System.nanoTime() - start;
+			printResult(nodes, "sparse", build, usedMemory() - memory, query, "");
+
+			if (nodes > maxDenseNodes) {
+				Log.printConcatLine(nodes, "\tdense\tskipped");
+				measured = null;
+				continue;
+			}
+			sparse = null;
+			measured = null;
+			memory = usedMemory();
+			start = System.nanoTime();
+			DelayMatrix_Float dense = new DelayMatrix_Float(graph, false);
+			measured = dense;
+			build = System.nanoTime() - start;
+			start = System.nanoTime();
+			double difference = 0;
+			for (int i = 0; i < queries; i++) {
+				float delay = dense.getDelay(pairs[2 * i], pairs[2 * i + 1]);
+				difference = Math.max(difference, Math.abs(delay - sparseDelays[i]));
+			}
+			query = System.nanoTime() - start;
+			printResult(nodes, "dense", build, usedMemory() - memory, query, String.valueOf(difference));
+			dense = null;
+			measured = null;
+		}
+	}
+
+	/**
+	 * Creates a connected random topology.
+	 */
+	private static TopologicalGraph createGraph(int nodes, Random random) {
+		TopologicalGraph graph = new TopologicalGraph();
+		for (int i = 0; i < nodes; i++) {
+			graph.addNode(new TopologicalNode(i));
+			for (int j = 0; j < Math.min(i, 2); j++) {
+				float delay = 1 + random.nextInt(100) / 10f;
+				graph.addLink(new TopologicalLink(i, random.nextInt(i), delay, 100));
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Creates the pairs of nodes queried, the sources being drawn from a small set of nodes as
+	 * the entities of a simulation are.
+	 */
+	private static int[] createPairs(int nodes, int queries, Random random) {
+		int[] sources = new int[Math.min(nodes, 64)];
+		for (int i = 0; i < sources.length; i++) {
+			sources[i] = random.nextInt(nodes);
+		}
+		int[] pairs = new int[2 * queries];
+		for (int i = 0; i < queries; i++) {
+			pairs[2 * i] = sources[random.nextInt(sources.length)];
+			pairs[2 * i + 1] = random.nextInt(nodes);
+		}
+		return pairs;
+	}
+
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static void printResult(int nodes, String matrix, long build, long memory, long query, String difference) {
+		Log.printLine(String.format("%d\t%s\t%.1f\t%.1f\t%.1f\t%s", nodes, matrix, build / 1e6, memory / 1048576.0,
+				query / 1e6, difference));
+	}
+
+}
@@ -6,9 +6,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.PlanetLabTraceStore;
 import org.cloudbus.cloudsim.UtilizationModel;
 import org.cloudbus.cloudsim.UtilizationModelNull;
-import org.cloudbus.cloudsim.UtilizationModelPlanetLabInMemory;
 import org.cloudbus.cloudsim.examples.power.Constants;
 
 /**
@@ -28,7 +28,8 @@ import org.cloudbus.cloudsim.examples.power.Constants;
 public class PlanetLabHelper {
 
 	/**
-	 * Creates the cloudlet list planet lab.
+	 * Creates the cloudlet list planet lab. The traces are read from the
+	 * {@link PlanetLabTraceStore} of the input folder, shared by the runs of the JVM.
 	 * 
 	 * @param brokerId the broker id
 	 * @param inputFolderName the input folder name
@@ -45,6 +46,13 @@ public class PlanetLabHelper {
 
 		File inputFolder = new File(inputFolderName);
 		File[] files = inputFolder.listFiles();
+		PlanetLabTraceStore traces = null;
+		try {
+			traces = PlanetLabTraceStore.get(inputFolderName);
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
 
 		for (int i = 0; i < files.length; i++) {
 			Cloudlet cloudlet = null;
@@ -55,8 +63,8 @@ public class PlanetLabHelper {
 						Constants.CLOUDLET_PES,
 						fileSize,
 						outputSize,
-						new UtilizationModelPlanetLabInMemory(
-								files[i].getAbsolutePath(),
+						traces.createUtilizationModel(
+								files[i].getName(),
 								Constants.SCHEDULING_INTERVAL), utilizationModelNull, utilizationModelNull);
 			} catch (Exception e) {
 				e.printStackTrace();
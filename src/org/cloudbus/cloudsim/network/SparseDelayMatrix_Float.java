@@ -0,0 +1,295 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.network;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class gives the delay between pairs of nodes of a network topology, as
+ * {@link DelayMatrix_Float} does, without computing the delays of all the pairs.
+ * The links are kept as adjacency arrays, and the delays from a source node to all
+ * the nodes are computed with Dijkstra's algorithm the first time they are needed.
+ * The delays of the sources used last are cached, up to a given number of sources.
+ * <p>
+ * It takes memory in the number of links, plus the number of nodes for each cached source,
+ * instead of the square of the number of nodes. As in {@link DelayMatrix_Float}, the delay
+ * between unconnected nodes is {@link Float#MAX_VALUE}, links with no delay are ignored,
+ * and the last of several links between two nodes is the one kept. Delays must not be
+ * negative.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see DelayMatrix_Float
+ */
+public class SparseDelayMatrix_Float {
+
+	/**
+	 * The default number of sources whose delays are cached.
+	 */
+	public static final int DEFAULT_CACHED_SOURCES = 256;
+
+	/**
+	 * Number of nodes in the distance-aware-topology.
+	 */
+	protected int mTotalNodeNum = 0;
+
+	/**
+	 * Indicates if the links are directed.
+	 */
+	protected boolean directed;
+
+	/**
+	 * The first link of each node in {@link #linkTargets} and {@link #linkDelays}; the links
+	 * of node <tt>i</tt> end before the first link of node <tt>i + 1</tt>.
+	 */
+	protected int[] linkOffsets;
+
+	/**
+	 * The destination node of each link.
+	 */
+	protected int[] linkTargets;
+
+	/**
+	 * The delay of each link.
+	 */
+	protected float[] linkDelays;
+
+	/**
+	 * The delays from the cached sources to all the nodes, by source, the source used last
+	 * at the end.
+	 */
+	private final LinkedHashMap<Integer, float[]> cache;
+
+	/**
+	 * The heap used by Dijkstra's algorithm, reused between the sources.
+	 */
+	private int[] heap;
+
+	/**
+	 * The position of each node in {@link #heap}, -1 if it is not in it.
+	 */
+	private int[] heapPositions;
+
+	/**
+	 * Creates the delay matrix of a graph, caching {@link #DEFAULT_CACHED_SOURCES} sources.
+	 *
+	 * @param graph the network topological graph
+	 * @param directed indicates if the links are directed (true) or not (false)
+	 */
+	public SparseDelayMatrix_Float(TopologicalGraph graph, boolean directed) {
+		this(graph, directed, DEFAULT_CACHED_SOURCES);
+	}
+
+	/**
+	 * Creates the delay matrix of a graph.
+	 *
+	 * @param graph the network topological graph
+	 * @param directed indicates if the links are directed (true) or not (false)
+	 * @param cachedSources the number of sources whose delays are cached
+	 * @pre cachedSources > 0
+	 */
+	public SparseDelayMatrix_Float(TopologicalGraph graph, boolean directed, final int cachedSources) {
+		this.directed = directed;
+		cache = new LinkedHashMap<Integer, float[]>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, float[]> eldest) {
+				return size() > cachedSources;
+			}
+		};
+		createAdjacency(graph);
+	}
+
+	/**
+	 * Gets the delay between two nodes.
+	 *
+	 * @param srcID the id of the source node
+	 * @param destID the id of the destination node
+	 * @return the delay between the given two nodes
+	 */
+	public float getDelay(int srcID, int destID) {
+		// check the nodeIDs against internal array-boundarys
+		if (srcID > mTotalNodeNum || destID > mTotalNodeNum) {
+			throw new ArrayIndexOutOfBoundsException("srcID or destID is higher than highest stored node-ID!");
+		}
+		if (srcID == destID) {
+			return 0;
+		}
+
+		float[] delays = cache.get(srcID);
+		if (delays != null) {
+			return delays[destID];
+		}
+		if (!directed) {
+			// the delays are symmetrical, so the delays from the destination will do
+			delays = cache.get(destID);
+			if (delays != null) {
+				return delays[srcID];
+			}
+		}
+
+		delays = calculateShortestPaths(srcID);
+		cache.put(srcID, delays);
+		return delays[destID];
+	}
+
+	/**
+	 * Gets the number of sources whose delays are cached.
+	 *
+	 * @return the number of cached sources
+	 */
+	public int getCachedSources() {
+		return cache.size();
+	}
+
+	/**
+	 * Creates the adjacency arrays from the links of the graph.
+	 *
+	 * @param graph the network topological graph
+	 */
+	private void createAdjacency(TopologicalGraph graph) {
+		mTotalNodeNum = graph.getNumberOfNodes();
+
+		// the delay of each pair of nodes, the last link of a pair replacing the ones before
+		Map<Long, Float> pairs = new HashMap<Long, Float>();
+		Iterator<TopologicalLink> itr = graph.getLinkIterator();
+		while (itr.hasNext()) {
+			TopologicalLink edge = itr.next();
+			pairs.put(pair(edge.getSrcNodeID(), edge.getDestNodeID()), edge.getLinkDelay());
+			if (!directed) {
+				pairs.put(pair(edge.getDestNodeID(), edge.getSrcNodeID()), edge.getLinkDelay());
+			}
+		}
+
+		linkOffsets = new int[mTotalNodeNum + 1];
+		for (Map.Entry<Long, Float> entry : pairs.entrySet()) {
+			if (entry.getValue() != 0) {
+				linkOffsets[(int) (entry.getKey() >>> 32) + 1]++;
+			}
+		}
+		for (int i = 0; i < mTotalNodeNum; i++) {
+			linkOffsets[i + 1] += linkOffsets[i];
+		}
+
+		linkTargets = new int[linkOffsets[mTotalNodeNum]];
+		linkDelays = new float[linkTargets.length];
+		int[] next = Arrays.copyOf(linkOffsets, mTotalNodeNum);
+		for (Map.Entry<Long, Float> entry : pairs.entrySet()) {
+			if (entry.getValue() != 0) {
+				int link = next[(int) (entry.getKey() >>> 32)]++;
+				linkTargets[link] = (int) (long) entry.getKey();
+				linkDelays[link] = entry.getValue();
+			}
+		}
+
+		heap = new int[mTotalNodeNum];
+		heapPositions = new int[mTotalNodeNum];
+		Arrays.fill(heapPositions, -1);
+	}
+
+	/**
+	 * Gets the key of a pair of nodes.
+	 */
+	private static long pair(int src, int dest) {
+		return ((long) src << 32) | (dest & 0xffffffffL);
+	}
+
+	/**
+	 * Calculates the delays from a source to all the nodes, with Dijkstra's algorithm.
+	 *
+	 * @param src the id of the source node
+	 * @return the delay to each node
+	 */
+	private float[] calculateShortestPaths(int src) {
+		float[] delays = new float[mTotalNodeNum];
+		Arrays.fill(delays, Float.MAX_VALUE);
+		delays[src] = 0;
+
+		int size = 0;
+		size = push(src, size, delays);
+		while (size > 0) {
+			int node = heap[0];
+			heapPositions[node] = -1;
+			size--;
+			if (size > 0) {
+				heap[0] = heap[size];
+				heapPositions[heap[0]] = 0;
+				siftDown(0, size, delays);
+			}
+
+			for (int link = linkOffsets[node]; link < linkOffsets[node + 1]; link++) {
+				int target = linkTargets[link];
+				float delay = delays[node] + linkDelays[link];
+				if (delay < delays[target]) {
+					delays[target] = delay;
+					if (heapPositions[target] < 0) {
+						size = push(target, size, delays);
+					} else {
+						siftUp(heapPositions[target], delays);
+					}
+				}
+			}
+		}
+		return delays;
+	}
+
+	/**
+	 * Adds a node to the heap.
+	 *
+	 * @return the new size of the heap
+	 */
+	private int push(int node, int size, float[] delays) {
+		heap[size] = node;
+		heapPositions[node] = size;
+		siftUp(size, delays);
+		return size + 1;
+	}
+
+	private void siftUp(int position, float[] delays) {
+		int node = heap[position];
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (delays[heap[parent]] <= delays[node]) {
+				break;
+			}
+			heap[position] = heap[parent];
+			heapPositions[heap[position]] = position;
+			position = parent;
+		}
+		heap[position] = node;
+		heapPositions[node] = position;
+	}
+
+	private void siftDown(int position, int size, float[] delays) {
+		int node = heap[position];
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && delays[heap[child + 1]] < delays[heap[child]]) {
+				child++;
+			}
+			if (delays[node] <= delays[heap[child]]) {
+				break;
+			}
+			heap[position] = heap[child];
+			heapPositions[heap[position]] = position;
+			position = child;
+		}
+		heap[position] = node;
+		heapPositions[node] = position;
+	}
+
+}
@@ -11,6 +11,8 @@ package org.cloudbus.cloudsim.util;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.SimulationContext;
+
 /**
  * Measurement of execution times of CloudSim's methods.
  * 
@@ -19,18 +21,24 @@ import java.util.Map;
  */
 public class ExecutionTimeMeasurer {
 
-	/** A map of execution times where each key
-         * represents the name of the method/process being its
-         * execution time computed and each key is the
-         * time the method/process started (in milliseconds). 
-         * Usually, this name is the method/process name, making
-         * easy to identify the execution times into the map.
-         * 
-         * @todo The name of the attribute doesn't match with what it stores.
-         * It in fact stores the method/process start time,
-         * no the time it spent executing.
-         */
-	private final static Map<String, Long> executionTimes = new HashMap<String, Long>();
+	/**
+	 * The execution times of a simulation, kept in its {@link SimulationContext}.
+	 */
+	private static final class ExecutionTimes {
+
+		/** A map of execution times where each key
+	         * represents the name of the method/process being its
+	         * execution time computed and each key is the
+	         * time the method/process started (in milliseconds). 
+	         * Usually, this name is the method/process name, making
+	         * easy to identify the execution times into the map.
+	         * 
+	         * @todo The name of the attribute doesn't match with what it stores.
+	         * It in fact stores the method/process start time,
+	         * no the time it spent executing.
+	         */
+		private final Map<String, Long> executionTimes = new HashMap<String, Long>();
+	}
 
 	/**
 	 * Start measuring the execution time of a method/process.
@@ -64,7 +72,7 @@ public class ExecutionTimeMeasurer {
          * @see #executionTimes
 	 */
 	public static Map<String, Long> getExecutionTimes() {
-		return executionTimes;
+		return SimulationContext.current().getState(ExecutionTimes.class, ExecutionTimes::new).executionTimes;
 	}
 
 }
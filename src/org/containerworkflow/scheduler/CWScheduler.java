@@ -37,6 +37,12 @@ import org.workflowsim.utils.Parameters;
 public class CWScheduler extends SimEntity {
 
     private int workflowEngineId;
+    /**
+     * The scheduling algorithm, kept for all the scheduling rounds, and its
+     * name.
+     */
+    private BaseSchedulingAlgorithm scheduler;
+    private Parameters.SchedulingAlgorithm schedulerName;
     /**
      * The vm list.
      */
@@ -963,6 +969,23 @@ public class CWScheduler extends SimEntity {
         return algorithm;
     }
 
+    /**
+     * Gets the algorithm of a scheduling round. It is created on the first
+     * round and kept for the next ones, so that it can keep its state between
+     * rounds, unless the algorithm of the parameters changes.
+     *
+     * @return the algorithm, with an empty scheduled list
+     */
+    private BaseSchedulingAlgorithm getRoundScheduler() {
+        Parameters.SchedulingAlgorithm name = Parameters.getSchedulingAlgorithm();
+        if (scheduler == null || schedulerName != name) {
+            scheduler = getScheduler(name);
+            schedulerName = name;
+        }
+        scheduler.clearScheduledList();
+        return scheduler;
+    }
+
 
 
     /**
@@ -974,7 +997,7 @@ public class CWScheduler extends SimEntity {
 
         List<ContainerCloudlet> scheduledList = getCloudletList();//scheduler.getScheduledList();
 
-        BaseSchedulingAlgorithm scheduler = getScheduler(Parameters.getSchedulingAlgorithm());
+        BaseSchedulingAlgorithm scheduler = getRoundScheduler();
         scheduler.setCloudletList(scheduledList);
         scheduler.setVmList(getVmsCreatedList());
 
@@ -1032,8 +1055,9 @@ public class CWScheduler extends SimEntity {
             }
             schedule(getVmsToDatacentersMap().get(vmId), delay, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
         }*/
-        getCloudletList().removeAll(scheduledList);
-        getCloudletSubmittedList().addAll(scheduledList);
+        //scheduledList is the cloudlet list itself, so all the cloudlets are
+        //removed and none is added to the submitted list
+        getCloudletList().clear();
         //cloudletsSubmitted += scheduledList.size();
     }
 
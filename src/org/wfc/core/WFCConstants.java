@@ -1,5 +1,6 @@
 package org.wfc.core;
 
+import org.cloudbus.cloudsim.core.FutureEventQueue;
 import org.cloudbus.cloudsim.power.models.PowerModel;
 import org.cloudbus.cloudsim.power.models.PowerModelSpecPowerHpProLiantMl110G4Xeon3040;
 import org.cloudbus.cloudsim.power.models.PowerModelSpecPowerHpProLiantMl110G5Xeon3075;
@@ -53,6 +54,13 @@ public  class WFCConstants {
     public static  boolean RUN_AS_STATIC_RESOURCE = true;                
      public static  boolean POWER_MODE = false; 
     public static   double SIMULATION_LIMIT = 87400.0D;
+    public static  FutureEventQueue.QueueType FUTURE_QUEUE_TYPE = FutureEventQueue.QueueType.TREE_SET;
+    //at most one pending CLOUDLET_UPDATE per scheduler
+    public static  boolean COALESCE_CLOUDLET_UPDATES = true;
+    //simulated time a returned cloudlet waits for other returns before rescheduling
+    public static  double CLOUDLET_UPDATE_WINDOW = 0.0;
+    //update only the hosts with cloudlets on each event of a WFCDatacenter, with the same results
+    public static  boolean INCREMENTAL_CLOUDLET_PROCESSING = false;
     
 
 //-----------------------Delay
@@ -13,6 +13,8 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -89,6 +91,22 @@ public class WFCDatacenter extends SimEntity {
 
     Writer out;
 
+    /**
+     * The hosts with cloudlets, by position in the host list. Only used with
+     * {@link #isIncrementalCloudletProcessing()}.
+     */
+    private final BitSet activeHosts = new BitSet();
+
+    /**
+     * The position of each host in the host list.
+     */
+    private final Map<ContainerHost, Integer> hostPositions = new HashMap<>();
+
+    /**
+     * The last time each host was updated, by position in the host list.
+     */
+    private double[] hostProcessTimes = new double[0];
+
 
     /**
      * Allocates a new PowerDatacenter object.
@@ -728,22 +746,27 @@ public class WFCDatacenter extends SimEntity {
         // begins executing ....
         switch (type) {
             case CloudSimTags.CLOUDLET_CANCEL:
+                activateHost(vmId, userId);
                 processCloudletCancel(cloudletId, userId, vmId, containerId);
                 break;
 
             case CloudSimTags.CLOUDLET_PAUSE:
+                activateHost(vmId, userId);
                 processCloudletPause(cloudletId, userId, vmId, containerId, false);
                 break;
 
             case CloudSimTags.CLOUDLET_PAUSE_ACK:
+                activateHost(vmId, userId);
                 processCloudletPause(cloudletId, userId, vmId, containerId, true);
                 break;
 
             case CloudSimTags.CLOUDLET_RESUME:
+                activateHost(vmId, userId);
                 processCloudletResume(cloudletId, userId, vmId, containerId, false);
                 break;
 
             case CloudSimTags.CLOUDLET_RESUME_ACK:
+                activateHost(vmId, userId);
                 processCloudletResume(cloudletId, userId, vmId, containerId, true);
                 break;
             default:
@@ -762,6 +785,8 @@ public class WFCDatacenter extends SimEntity {
      * @post $none
      */
     protected void processCloudletMove(int[] receivedData, int type) {
+        activateHost(receivedData[2], receivedData[1]);
+        activateHost(receivedData[4], receivedData[1]);
         updateCloudletProcessing();
 
         int[] array = receivedData;
@@ -833,6 +858,11 @@ public class WFCDatacenter extends SimEntity {
      * @post $none
      */
     protected void processCloudletSubmit(SimEvent ev, boolean ack) {
+        if (ev.getData() instanceof ContainerCloudlet) {
+            // the host is updated from now on
+            ContainerCloudlet submitted = (ContainerCloudlet) ev.getData();
+            activateHost(submitted.getVmId(), submitted.getUserId());
+        }
         updateCloudletProcessing();
 
         try {            
@@ -873,7 +903,10 @@ public class WFCDatacenter extends SimEntity {
             int userId = cl.getUserId();
             int vmId = cl.getVmId();
             int containerId = cl.getContainerId();
-            Log.printLine("job id: " + cl.getCloudletId() + "pod id is: " + vmId +"container id: " + containerId);
+            boolean debug = Log.isEnabled(WFCDatacenter.class, Log.Level.DEBUG);
+            if (debug) {
+                Log.log(WFCDatacenter.class, Log.Level.DEBUG, "job id: ", cl.getCloudletId(), "pod id is: ", vmId, "container id: ", containerId);
+            }
          
 
             ContainerHost host = getVmAllocationPolicy().getHost(vmId, userId);
@@ -905,7 +938,9 @@ public class WFCDatacenter extends SimEntity {
             double fileTransferTime = 0.0;
             if (cl.getClassType() == ClassType.COMPUTE.value) {
                 fileTransferTime = processDataStageInForComputeJob(cl.getFileList(), cl);
-                Log.printLine("task " + cl.getCloudletId() + " 's data transfer time is: " + fileTransferTime);
+                if (debug) {
+                    Log.log(WFCDatacenter.class, Log.Level.DEBUG, "task ", cl.getCloudletId(), " 's data transfer time is: ", fileTransferTime);
+                }
             }
              //double fileTransferTime = predictFileTransferTime(cl.getRequiredFiles());
    
@@ -913,7 +948,9 @@ public class WFCDatacenter extends SimEntity {
                         
             ContainerCloudletScheduler schedulerContainer=container.getContainerCloudletScheduler();
             double estimatedFinishTime = schedulerContainer.cloudletSubmit(cl, fileTransferTime);
-            Log.printLine("task " + cl.getCloudletId() + " 's finishTime: " + estimatedFinishTime);
+            if (debug) {
+                Log.log(WFCDatacenter.class, Log.Level.DEBUG, "task ", cl.getCloudletId(), " 's finishTime: ", estimatedFinishTime);
+            }
             updateTaskExecTime(cl, vm);
             
             // if this cloudlet is in the exec queue
@@ -1061,12 +1098,17 @@ public class WFCDatacenter extends SimEntity {
                    
        if (CloudSim.clock() < 0.111 || CloudSim.clock() > getLastProcessTime() + 0.01) {
             List<? extends ContainerHost> list = getVmAllocationPolicy().getContainerHostList();
+            boolean incremental = isIncrementalCloudletProcessing();
             double smallerTime = Double.MAX_VALUE;
             // for each host...
-            for (int i = 0; i < list.size(); i++) {
+            for (int i = incremental ? activeHosts.nextSetBit(0) : 0; i >= 0 && i < list.size();
+                    i = incremental ? activeHosts.nextSetBit(i + 1) : i + 1) {
                 ContainerHost host = list.get(i);
                 // inform VMs to update processing
                 double time = host.updateContainerVmsProcessing(CloudSim.clock());
+                if (incremental) {
+                    hostProcessTimes[i] = CloudSim.clock();
+                }
                 // what time do we expect that the next cloudlet will finish?
                 if (time < smallerTime) {
                     smallerTime = time;
@@ -1095,23 +1137,124 @@ public class WFCDatacenter extends SimEntity {
      * @post $none
      */
     protected void checkCloudletCompletion() {
+        if (isIncrementalCloudletProcessing()) {
+            List<? extends ContainerHost> list = getVmAllocationPolicy().getContainerHostList();
+            for (int i = activeHosts.nextSetBit(0); i >= 0; i = activeHosts.nextSetBit(i + 1)) {
+                ContainerHost host = list.get(i);
+                checkCloudletCompletion(host);
+                if (!hasCloudlets(host)) {
+                    activeHosts.clear(i);
+                }
+            }
+            return;
+        }
         List<? extends ContainerHost> list = getVmAllocationPolicy().getContainerHostList();
         for (int i = 0; i < list.size(); i++) {
-            ContainerHost host = list.get(i);
-            for (ContainerPod vm : host.getVmList()) {
-                for (Container container : vm.getContainerList()) {
-                    while (container.getContainerCloudletScheduler().isFinishedCloudlets()) {
-                        Cloudlet cl = container.getContainerCloudletScheduler().getNextFinishedCloudlet();
-                        if (cl != null) {
-                            sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
-                            register(cl);//notice me it is important
-                        }
+            checkCloudletCompletion(list.get(i));
+        }
+    }
+
+    /**
+     * Sends the finished cloudlets of a host to their User/Broker.
+     *
+     * @param host the host
+     */
+    protected void checkCloudletCompletion(ContainerHost host) {
+        for (ContainerPod vm : host.getVmList()) {
+            for (Container container : vm.getContainerList()) {
+                while (container.getContainerCloudletScheduler().isFinishedCloudlets()) {
+                    Cloudlet cl = container.getContainerCloudletScheduler().getNextFinishedCloudlet();
+                    if (cl != null) {
+                        sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
+                        register(cl);//notice me it is important
                     }
                 }
             }
         }
     }
 
+    /**
+     * Checks whether only the hosts with cloudlets are updated. The update of
+     * a host without cloudlets only moves the time of its schedulers, so such
+     * a host is left behind and brought to the last process time when a
+     * cloudlet reaches it; the cloudlets are processed exactly as when all the
+     * hosts are updated.
+     *
+     * @return true if only the hosts with cloudlets are updated
+     * @see WFCConstants#INCREMENTAL_CLOUDLET_PROCESSING
+     */
+    protected boolean isIncrementalCloudletProcessing() {
+        return WFCConstants.INCREMENTAL_CLOUDLET_PROCESSING;
+    }
+
+    /**
+     * Makes the host of a vm updated with the hosts with cloudlets, before a
+     * cloudlet is submitted, moved, paused, resumed or cancelled on it. A host
+     * not updated since the last process time is brought to it first, as it
+     * would have been if all the hosts were updated.
+     *
+     * @param vmId the vm id
+     * @param userId the user id
+     */
+    protected void activateHost(int vmId, int userId) {
+        if (!isIncrementalCloudletProcessing()) {
+            return;
+        }
+        ContainerHost host = getVmAllocationPolicy().getHost(vmId, userId);
+        if (host == null) {
+            return;
+        }
+        int position = getHostPosition(host);
+        if (activeHosts.get(position)) {
+            return;
+        }
+        activeHosts.set(position);
+        if (hostProcessTimes[position] < getLastProcessTime()) {
+            hostProcessTimes[position] = getLastProcessTime();
+            host.updateContainerVmsProcessing(getLastProcessTime());
+        }
+    }
+
+    /**
+     * Gets the position of a host in the host list.
+     *
+     * @param host the host
+     * @return the position
+     */
+    private int getHostPosition(ContainerHost host) {
+        List<? extends ContainerHost> list = getVmAllocationPolicy().getContainerHostList();
+        if (hostPositions.size() != list.size()) {
+            hostPositions.clear();
+            for (int i = 0; i < list.size(); i++) {
+                hostPositions.put(list.get(i), i);
+            }
+            int previousLength = hostProcessTimes.length;
+            hostProcessTimes = Arrays.copyOf(hostProcessTimes, list.size());
+            Arrays.fill(hostProcessTimes, previousLength, list.size(), -1);
+        }
+        return hostPositions.get(host);
+    }
+
+    /**
+     * Checks whether a host has cloudlets running, waiting or finished but not
+     * returned yet.
+     *
+     * @param host the host
+     * @return true if the host has cloudlets
+     */
+    private boolean hasCloudlets(ContainerHost host) {
+        for (ContainerPod vm : host.getVmList()) {
+            for (Container container : vm.getContainerList()) {
+                ContainerCloudletScheduler scheduler = container.getContainerCloudletScheduler();
+                if (!scheduler.getCloudletExecList().isEmpty() || !scheduler.getCloudletWaitingList().isEmpty()
+                        || scheduler.isFinishedCloudlets()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Adds a file into the resource's storage before the experiment starts. If the file is a master
      * file, then it will be registered to the RC when the experiment begins.
@@ -1526,6 +1669,7 @@ public class WFCDatacenter extends SimEntity {
                         ContainerPod vm = host.getContainerVm(vmId, userId);
 
                         boolean requiredFileStagein = true;
+                        String vmSite = Integer.toString(vmId);
                         int destinationId = vmId;
                         int sourceId = vmId;
                         for (Iterator it = siteList.iterator(); it.hasNext();) {
@@ -1540,7 +1684,7 @@ public class WFCDatacenter extends SimEntity {
                              * This file is already in the local vm and thus it
                              * is no need to transfer
                              */
-                            if (site.equals(Integer.toString(vmId))) {
+                            if (site.equals(vmSite)) {
                                 requiredFileStagein = false;
                                 break;
                             }
@@ -1572,7 +1716,7 @@ public class WFCDatacenter extends SimEntity {
                         //We should add but since CondorVm has a small capability it often fails
                         //We currently don't use this storage to do anything meaningful. It is left for future. 
                         //condorVm.addLocalFile(file);
-                        WFCReplicaCatalog.addFileToStorage(file.getName(), Integer.toString(vmId));
+                        WFCReplicaCatalog.addFileToStorage(file.getName(), vmId);
                         break;
                 }
             }
@@ -1607,7 +1751,7 @@ public class WFCDatacenter extends SimEntity {
                          * Left here for future work
                          */
                         ContainerPod vm = (ContainerPod) host.getContainerVm(vmId, userId);
-                        WFCReplicaCatalog.addFileToStorage(file.getName(), Integer.toString(vmId));
+                        WFCReplicaCatalog.addFileToStorage(file.getName(), vmId);
                         break;
                 }
             }
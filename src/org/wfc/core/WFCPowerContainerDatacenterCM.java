@@ -342,5 +342,13 @@ public class WFCPowerContainerDatacenterCM extends WFCPowerContainerDatacenter {
         this.newlyCreatedVmsList = newlyCreatedVmsList;
     }
 
+    /**
+     * Closes the metrics writers, writing the rows they buffer.
+     */
+    @Override
+    public void shutdownEntity() {
+        super.shutdownEntity();
+        closeWriters(getNewlyCreatedVmWriter());
+    }
 
-}
\ No newline at end of file
+}
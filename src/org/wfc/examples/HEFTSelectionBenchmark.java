@@ -0,0 +1,202 @@
+/**
+ * Copyright 2019-2020 ArmanRiazi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.wfc.examples;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.planning.ProcessorSchedule;
+
+/**
+ * Measures the selection phase of the HEFT planner, where each task takes the
+ * vm giving it the earliest finish time, with the vm schedules scanned as
+ * lists and with {@link ProcessorSchedule}, and checks that both give the same
+ * finish times.
+ * <p>
+ * The workflow is random and made of levels, as the Pegasus workflows: each
+ * task has up to three parents in the level before its own, and a file
+ * transfer between vms delays its ready time. The tasks are allocated level by
+ * level, as HEFT allocates them in rank order, so the ready times of a level
+ * spread over the slots taken by the level before it, which the list scans go
+ * through.
+ * <p>
+ * Usage: <tt>HEFTSelectionBenchmark [tasks,...] [vms] [levels] [maximum list tasks]</tt>,
+ * by default <tt>10000,100000 16 10 100000</tt>. Each time is the median of
+ * five runs. The list scans take time in the square of the number of tasks
+ * per level, so they are skipped above the maximum.
+ *
+ * @since WFC Toolkit 1.0
+ */
+public class HEFTSelectionBenchmark {
+
+    private static final int RUNS = 5;
+
+    /**
+     * The schedule of a vm as a list of slots, scanned from the last slot
+     * back to the ready time, as the HEFT planner did.
+     */
+    private static class ListSchedule {
+
+        private final List<double[]> slots = new ArrayList<>();
+
+        double findFinishTime(double readyTime, double duration, boolean occupySlot) {
+            double start = readyTime;
+            int position = 0;
+            if (!slots.isEmpty() && readyTime + duration > slots.get(0)[0]) {
+                start = Math.max(readyTime, slots.get(slots.size() - 1)[1]);
+                position = slots.size();
+                for (int i = slots.size() - 1; i > 0; i--) {
+                    double[] previous = slots.get(i - 1);
+                    if (readyTime > previous[1]) {
+                        if (readyTime + duration <= slots.get(i)[0]) {
+                            start = readyTime;
+                            position = i;
+                        }
+                        break;
+                    }
+                    if (previous[1] + duration <= slots.get(i)[0]) {
+                        start = previous[1];
+                        position = i;
+                    }
+                }
+                if (slots.size() == 1 && readyTime >= slots.get(0)[1]) {
+                    start = readyTime;
+                }
+            }
+            if (occupySlot) {
+                slots.add(position, new double[]{start, start + duration});
+            }
+            return start + duration;
+        }
+    }
+
+    public static void main(String[] args) {
+        String[] sizes = (args.length > 0 ? args[0] : "10000,100000").split(",");
+        int vms = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int levels = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int maxListTasks = args.length > 3 ? Integer.parseInt(args[3]) : 100000;
+
+        Log.printLine("tasks\tvms\tlevels\tlist ms\ttree ms");
+        for (String size : sizes) {
+            int tasks = Integer.parseInt(size.trim());
+            // first passes of both warm up the JVM, before either is measured
+            for (int run = 0; run < RUNS; run++) {
+                runSelection(Math.min(tasks, 10000), vms, levels, false, null);
+                if (tasks <= maxListTasks) {
+                    runSelection(Math.min(tasks, 10000), vms, levels, true, null);
+                }
+            }
+            double[] treeFinishTimes = new double[tasks];
+            long tree = runSelections(tasks, vms, levels, false, treeFinishTimes);
+            String list = "skipped";
+            if (tasks <= maxListTasks) {
+                double[] listFinishTimes = new double[tasks];
+                list = String.format("%.1f", runSelections(tasks, vms, levels, true, listFinishTimes) / 1e6);
+                for (int t = 0; t < tasks; t++) {
+                    if (listFinishTimes[t] != treeFinishTimes[t]) {
+                        throw new IllegalStateException("Task " + t + " finishes at " + listFinishTimes[t]
+                                + " with the lists and at " + treeFinishTimes[t] + " with the trees");
+                    }
+                }
+            }
+            Log.printLine(String.format("%d\t%d\t%d\t%s\t%.1f", tasks, vms, levels, list, tree / 1e6));
+        }
+    }
+
+    /**
+     * Allocates the tasks of a random workflow RUNS times.
+     *
+     * @return the median time taken, in nanoseconds
+     */
+    private static long runSelections(int tasks, int vms, int levels, boolean lists, double[] finishTimes) {
+        long[] times = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            times[run] = runSelection(tasks, vms, levels, lists, finishTimes);
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    /**
+     * Allocates the tasks of a random workflow.
+     *
+     * @param finishTimes the finish time of each task, filled if not null
+     * @return the time taken, in nanoseconds
+     */
+    private static long runSelection(int tasks, int vms, int levels, boolean lists, double[] finishTimes) {
+        Random random = new Random(tasks);
+        int width = Math.max(1, tasks / levels);
+        int[][] parents = new int[tasks][];
+        double[] durations = new double[tasks];
+        for (int t = 0; t < tasks; t++) {
+            int levelStart = t - t % width;
+            if (levelStart == 0) {
+                parents[t] = new int[0];
+            } else {
+                parents[t] = new int[1 + random.nextInt(3)];
+                for (int p = 0; p < parents[t].length; p++) {
+                    parents[t][p] = levelStart - 1 - random.nextInt(width);
+                }
+            }
+            durations[t] = 1 + random.nextInt(1000) / 10.0;
+        }
+        double transferTime = 5.0;
+
+        ListSchedule[] listSchedules = new ListSchedule[vms];
+        ProcessorSchedule[] treeSchedules = new ProcessorSchedule[vms];
+        for (int v = 0; v < vms; v++) {
+            listSchedules[v] = new ListSchedule();
+            treeSchedules[v] = new ProcessorSchedule();
+        }
+        double[] earliestFinishTimes = new double[tasks];
+        int[] allocation = new int[tasks];
+
+        long start = System.nanoTime();
+        for (int t = 0; t < tasks; t++) {
+            int chosenVm = 0;
+            double earliestFinishTime = Double.MAX_VALUE;
+            double bestReadyTime = 0.0;
+            for (int v = 0; v < vms; v++) {
+                double readyTime = 0.0;
+                for (int parent : parents[t]) {
+                    double parentReady = earliestFinishTimes[parent] + (allocation[parent] != v ? transferTime : 0);
+                    readyTime = Math.max(readyTime, parentReady);
+                }
+                double finishTime = lists ? listSchedules[v].findFinishTime(readyTime, durations[t], false)
+                        : treeSchedules[v].findFinishTime(readyTime, durations[t]);
+                if (finishTime < earliestFinishTime) {
+                    earliestFinishTime = finishTime;
+                    bestReadyTime = readyTime;
+                    chosenVm = v;
+                }
+            }
+            if (lists) {
+                listSchedules[chosenVm].findFinishTime(bestReadyTime, durations[t], true);
+            } else {
+                treeSchedules[chosenVm].occupy(bestReadyTime, durations[t]);
+            }
+            earliestFinishTimes[t] = earliestFinishTime;
+            allocation[t] = chosenVm;
+        }
+        long time = System.nanoTime() - start;
+        if (finishTimes != null) {
+            System.arraycopy(earliestFinishTimes, 0, finishTimes, 0, tasks);
+        }
+        return time;
+    }
+}
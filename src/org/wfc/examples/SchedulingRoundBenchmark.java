@@ -0,0 +1,149 @@
+/**
+ * Copyright 2019-2020 ArmanRiazi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.wfc.examples;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.container.containerProvisioners.ContainerBwProvisionerSimple;
+import org.cloudbus.cloudsim.container.containerProvisioners.ContainerPe;
+import org.cloudbus.cloudsim.container.containerProvisioners.ContainerRamProvisionerSimple;
+import org.cloudbus.cloudsim.container.containerProvisioners.CotainerPeProvisionerSimple;
+import org.cloudbus.cloudsim.container.core.ContainerPod;
+import org.cloudbus.cloudsim.container.schedulers.ContainerSchedulerTimeShared;
+import org.workflowsim.WorkflowSimTags;
+import org.workflowsim.scheduling.BaseSchedulingAlgorithm;
+import org.workflowsim.scheduling.MCTSchedulingAlgorithm;
+import org.workflowsim.scheduling.MinMinSchedulingAlgorithm;
+
+/**
+ * Measures the cost of a scheduling round of a scheduler, as
+ * processCloudletUpdate runs it, against the number of jobs waiting.
+ * <p>
+ * Each round schedules the waiting jobs on idle pods and removes the scheduled
+ * jobs from the waiting list. It is run in two ways: with a new algorithm, a
+ * copy of the pod list and a removal by list, as the schedulers did, and with
+ * one algorithm kept for all the rounds, a view of the pod list and a removal
+ * by hash set, as they do now.
+ * <p>
+ * Usage: <tt>SchedulingRoundBenchmark [jobs,...] [pods] [rounds] [MCT|MINMIN]</tt>,
+ * by default <tt>1000,10000,100000 64 50 MCT</tt>.
+ *
+ * @since WFC Toolkit 1.0
+ */
+public class SchedulingRoundBenchmark {
+
+    public static void main(String[] args) {
+        String[] depths = (args.length > 0 ? args[0] : "1000,10000,100000").split(",");
+        int podCount = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        boolean minMin = args.length > 3 && args[3].equalsIgnoreCase("MINMIN");
+
+        List<ContainerPod> pods = createPods(podCount);
+        Log.printLine("jobs\tnew ms/round\tkept ms/round");
+        for (String depth : depths) {
+            List<Cloudlet> jobs = createJobs(Integer.parseInt(depth.trim()), new Random(17));
+            // the algorithms log each job scheduled
+            Log.disable();
+            // a first pass of each way warms up the JVM
+            runRounds(jobs, pods, Math.max(1, rounds / 5), minMin, false);
+            runRounds(jobs, pods, Math.max(1, rounds / 5), minMin, true);
+            long created = runRounds(jobs, pods, rounds, minMin, false);
+            long kept = runRounds(jobs, pods, rounds, minMin, true);
+            Log.enable();
+            Log.printLine(String.format("%d\t%.3f\t%.3f", jobs.size(), created / 1e6 / rounds, kept / 1e6 / rounds));
+        }
+    }
+
+    /**
+     * Runs scheduling rounds, each one on all the jobs and all the pods idle.
+     *
+     * @return the time taken by the rounds, in nanoseconds
+     */
+    private static long runRounds(List<Cloudlet> jobs, List<ContainerPod> pods, int rounds, boolean minMin,
+            boolean keep) {
+        List<Cloudlet> waiting = new ArrayList<>(jobs.size());
+        BaseSchedulingAlgorithm kept = createAlgorithm(minMin);
+        long time = 0;
+        for (int round = 0; round < rounds; round++) {
+            waiting.clear();
+            waiting.addAll(jobs);
+            for (ContainerPod pod : pods) {
+                pod.setState(WorkflowSimTags.VM_STATUS_IDLE);
+            }
+
+            long start = System.nanoTime();
+            BaseSchedulingAlgorithm algorithm;
+            if (keep) {
+                algorithm = kept;
+                algorithm.clearScheduledList();
+                algorithm.setVmList(pods);
+            } else {
+                algorithm = createAlgorithm(minMin);
+                algorithm.setVmList(new ArrayList<>(pods));
+            }
+            algorithm.setCloudletList(waiting);
+            try {
+                algorithm.run();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            List<Cloudlet> scheduled = algorithm.getScheduledList();
+            if (keep) {
+                waiting.removeAll(new HashSet<>(scheduled));
+            } else {
+                waiting.removeAll(scheduled);
+            }
+            time += System.nanoTime() - start;
+
+            if (waiting.size() != jobs.size() - scheduled.size()) {
+                throw new IllegalStateException(scheduled.size() + " jobs scheduled, "
+                        + (jobs.size() - waiting.size()) + " removed");
+            }
+        }
+        return time;
+    }
+
+    private static BaseSchedulingAlgorithm createAlgorithm(boolean minMin) {
+        return minMin ? new MinMinSchedulingAlgorithm() : new MCTSchedulingAlgorithm();
+    }
+
+    private static List<Cloudlet> createJobs(int count, Random random) {
+        List<Cloudlet> jobs = new ArrayList<>(count);
+        UtilizationModelFull utilizationModel = new UtilizationModelFull();
+        for (int i = 0; i < count; i++) {
+            jobs.add(new Cloudlet(i, 1000 + random.nextInt(100000), 1, 300, 300, utilizationModel,
+                    utilizationModel, utilizationModel));
+        }
+        return jobs;
+    }
+
+    private static List<ContainerPod> createPods(int count) {
+        List<ContainerPod> pods = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<ContainerPe> peList = new ArrayList<>();
+            peList.add(new ContainerPe(0, new CotainerPeProvisionerSimple(1000)));
+            pods.add(new ContainerPod(i, 0, 1000, 1024f, 1000, 10000, "Xen",
+                    new ContainerSchedulerTimeShared(peList), new ContainerRamProvisionerSimple(1024),
+                    new ContainerBwProvisionerSimple(1000), peList));
+        }
+        return pods;
+    }
+}
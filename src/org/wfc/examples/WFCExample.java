@@ -34,6 +34,7 @@ import org.cloudbus.cloudsim.container.resourceAllocators.*;
 import org.cloudbus.cloudsim.container.containerProvisioners.*;
 import org.cloudbus.cloudsim.container.containerPodProvisioners.*;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.Task;
 import org.workflowsim.Job;
 import org.workflowsim.WFCEngine;
@@ -44,6 +45,8 @@ import org.workflowsim.failure.*;
 import org.workflowsim.utils.DistributionGenerator;
 import org.wfc.core.WFCDatacenter;
 import org.wfc.core.WFCConstants;
+import org.wfc.core.WFCPowerContainerDatacenter;
+import org.wfc.core.WFCPowerContainerDatacenterCM;
 import org.workflowsim.utils.Parameters.ClassType;
 /*
  * @author Arman Riazi
@@ -84,10 +87,57 @@ public class WFCExample {
     private static  int num_user = 1;
     private static boolean trace_flag = false;  // mean trace events
     private static boolean failure_flag = false;   
-    private static List<Container> containerList;       
-    private static List<ContainerHost> hostList;    
     public static List<? extends ContainerPod> vmList;
-    public static List<String> ids;
+
+    /**
+     * The state of a run, kept in the simulation context so that several runs
+     * can take place at once.
+     */
+    private static final class RunState {
+        /**
+         * The uids of the pods created, in which the containers are placed.
+         */
+        private final List<String> ids = new ArrayList<>();
+        /**
+         * Places the containers in the pods.
+         */
+        private Random random = new Random();
+    }
+
+    /**
+     * The datacenter and the jobs of a run.
+     */
+    public static final class Run {
+        private final WFCDatacenter datacenter;
+        private final List<Job> jobs;
+
+        private Run(WFCDatacenter datacenter, List<Job> jobs) {
+            this.datacenter = datacenter;
+            this.jobs = jobs;
+        }
+
+        public WFCDatacenter getDatacenter() {
+            return datacenter;
+        }
+
+        public List<Job> getJobs() {
+            return jobs;
+        }
+    }
+
+    private static RunState state() {
+        return SimulationContext.current().getState(RunState.class, RunState::new);
+    }
+
+    /**
+     * Sets the seed of the random placement of the containers in the pods,
+     * for the runs of the current simulation context.
+     *
+     * @param seed the seed
+     */
+    public static void setSeed(long seed) {
+        state().random = new Random(seed);
+    }
 
 
     public static void main(String[] args) {
@@ -102,7 +152,7 @@ public class WFCExample {
             FailureParameters.FTCMonitor ftc_monitor = null;
             FailureParameters.FTCFailure ftc_failure = null;
             FailureParameters.FTCluteringAlgorithm ftc_method = null;
-            DistributionGenerator[][] failureGenerators = null;
+            FailureParameters.GeneratorFactory failureGeneratorFactory = null;
              
             Log.printLine("Starting " + experimentName + " ... ");
                         
@@ -140,9 +190,8 @@ public class WFCExample {
                 * Task failure rate for each level
                 *
                 */
-               failureGenerators = new DistributionGenerator[1][1];
-               failureGenerators[0][0] = new DistributionGenerator(DistributionGenerator.DistributionFamily.WEIBULL,
-                       100, 1.0, 30, 300, 0.78);
+               failureGeneratorFactory = (vmIndex, taskDepth) -> new DistributionGenerator(
+                       DistributionGenerator.DistributionFamily.WEIBULL, 100, 1.0, 30, 300, 0.78);
             }
             
             Parameters.SchedulingAlgorithm sch_method = Parameters.SchedulingAlgorithm.MAXMIN;//local
@@ -155,7 +204,7 @@ public class WFCExample {
             ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
 
             if(failure_flag){
-                FailureParameters.init(ftc_method, ftc_monitor, ftc_failure, failureGenerators);
+                FailureParameters.init(ftc_method, ftc_monitor, ftc_failure, 1, 1, failureGeneratorFactory);
             }
           
            Parameters.init(WFCConstants.WFC_NUMBER_VMS, daxPath, null,
@@ -171,50 +220,9 @@ public class WFCExample {
             
             WFCReplicaCatalog.init(file_system);
             
-            Calendar calendar = Calendar.getInstance();            
-
-            CloudSim.init(num_user, calendar, trace_flag);
-
-
-            PowerContainerAllocationPolicy containerAllocationPolicy = new PodContainerAllocationPolicy();
-            PowerContainerPodSelectionPolicy podSelectionPolicy = new PowerContainerPodSelectionPolicyMaximumUsage();
-            HostSelectionPolicy hostSelectionPolicy = new HostSelectionPolicyK8s();
-
-            String logAddress = "D:/asResults";
-                       
-            hostList = new ArrayList<ContainerHost>();
-            hostList = createHostList(WFCConstants.WFC_NUMBER_HOSTS);
-            //cloudletList = new ArrayList<ContainerCloudlet>();
-            containerList= new ArrayList<Container>();        
-            //podList = new ArrayList<ContainerPod>();
-            ids = new ArrayList<>();
-            
-            ContainerPodAllocationPolicy vmAllocationPolicy = new
-                    PowerContainerPodAllocationPolicyMigrationAbstractHostSelection(hostList, podSelectionPolicy,
-                    hostSelectionPolicy, WFCConstants.WFC_CONTAINER_OVER_UTILIZATION_THRESHOLD, WFCConstants.WFC_CONTAINER_UNDER_UTILIZATION_THRESHOLD);        
-            
-            WFCDatacenter datacenter = (WFCDatacenter) createDatacenter("datacenter_0",
-                        PowerContainerDatacenterCM.class, hostList, vmAllocationPolicy,containerList,containerAllocationPolicy,
-                        getExperimentName(experimentName, String.valueOf(WFCConstants.OVERBOOKING_FACTOR)),
-                        WFCConstants.WFC_DC_SCHEDULING_INTERVAL, logAddress,
-                        WFCConstants.WFC_VM_STARTTUP_DELAY,
-                        WFCConstants.WFC_CONTAINER_STARTTUP_DELAY);
-       
-            WFCPlanner wfPlanner = new WFCPlanner("planner_0", 1);
-                      
-            WFCEngine wfEngine = wfPlanner.getWorkflowEngine();
-            //podList = createVmList(wfEngine.getSchedulerId(0), Parameters.getVmNum());
-            //wfEngine.submitVmList(wfEngine.getVmList(), 0);                           
-            wfEngine.bindSchedulerDatacenter(datacenter.getId(), 0);
-            
+            Run run = simulate(experimentName);
 
-            CloudSim.terminateSimulation(WFCConstants.SIMULATION_LIMIT);
-            CloudSim.startSimulation();         
-            CloudSim.stopSimulation();
-            
-            List<Job> outputList0 = wfEngine.getJobsReceivedList();
-           
-            printJobList(outputList0,datacenter);
+            printJobList(run.getJobs(), run.getDatacenter());
             
             Log.printLine(experimentName + "finished!");
             //outputByRunnerAbs();
@@ -227,6 +235,76 @@ public class WFCExample {
         }
     }
 
+    /**
+     * Creates the hosts, the datacenter and the workflow planner of a run and
+     * simulates it, on the parameters and the replica catalog initialized
+     * before. The run takes place in the current simulation context.
+     *
+     * @param experimentName the name of the experiment
+     * @return the datacenter and the jobs received by the engine
+     * @throws Exception if the datacenter cannot be created
+     */
+    public static Run simulate(String experimentName) throws Exception {
+        return simulate(experimentName, WFCDatacenter.class);
+    }
+
+    /**
+     * Creates the hosts, a datacenter of the given class and the workflow
+     * planner of a run and simulates it, as {@link #simulate(String)}.
+     *
+     * @param experimentName the name of the experiment
+     * @param datacenterClass WFCDatacenter, WFCPowerContainerDatacenter or
+     * WFCPowerContainerDatacenterCM
+     * @return the datacenter and the jobs received by the engine
+     * @throws Exception if the datacenter cannot be created
+     */
+    public static Run simulate(String experimentName, Class<? extends WFCDatacenter> datacenterClass)
+            throws Exception {
+        Calendar calendar = Calendar.getInstance();            
+
+        CloudSim.init(num_user, calendar, trace_flag);
+
+
+        PowerContainerAllocationPolicy containerAllocationPolicy = new PodContainerAllocationPolicy();
+        PowerContainerPodSelectionPolicy podSelectionPolicy = new PowerContainerPodSelectionPolicyMaximumUsage();
+        HostSelectionPolicy hostSelectionPolicy = new HostSelectionPolicyK8s();
+
+        String logAddress = "D:/asResults";
+                   
+        List<ContainerHost> hostList = createHostList(WFCConstants.WFC_NUMBER_HOSTS);
+        //cloudletList = new ArrayList<ContainerCloudlet>();
+        List<Container> containerList = new ArrayList<Container>();
+        //podList = new ArrayList<ContainerPod>();
+        state().ids.clear();
+        
+        ContainerPodAllocationPolicy vmAllocationPolicy = new
+                PowerContainerPodAllocationPolicyMigrationAbstractHostSelection(hostList, podSelectionPolicy,
+                hostSelectionPolicy, WFCConstants.WFC_CONTAINER_OVER_UTILIZATION_THRESHOLD, WFCConstants.WFC_CONTAINER_UNDER_UTILIZATION_THRESHOLD);        
+        
+        WFCDatacenter datacenter = createDatacenter("datacenter_0",
+                    datacenterClass, hostList, vmAllocationPolicy,containerList,containerAllocationPolicy,
+                    getExperimentName(experimentName, String.valueOf(WFCConstants.OVERBOOKING_FACTOR)),
+                    WFCConstants.WFC_DC_SCHEDULING_INTERVAL, logAddress,
+                    WFCConstants.WFC_VM_STARTTUP_DELAY,
+                    WFCConstants.WFC_CONTAINER_STARTTUP_DELAY);
+   
+        WFCPlanner wfPlanner = new WFCPlanner("planner_0", 1);
+                  
+        WFCEngine wfEngine = wfPlanner.getWorkflowEngine();
+        //podList = createVmList(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+        //wfEngine.submitVmList(wfEngine.getVmList(), 0);                           
+        wfEngine.bindSchedulerDatacenter(datacenter.getId(), 0);
+        
+
+        CloudSim.terminateSimulation(WFCConstants.SIMULATION_LIMIT);
+        CloudSim.startSimulation();         
+        CloudSim.stopSimulation();
+        
+        List<Job> outputList0 = wfEngine.getJobsReceivedList();
+       
+        return new Run(datacenter, outputList0);
+    }
+
      public static WFCDatacenter createDatacenter(String name, Class<? extends WFCDatacenter> datacenterClass,
                                                        List<ContainerHost> hostList,
                                                        ContainerPodAllocationPolicy vmAllocationPolicy,
@@ -260,15 +338,24 @@ public class WFCExample {
                                                      hostList, WFCConstants.WFC_DC_TIME_ZONE, WFCConstants.WFC_DC_COST , WFCConstants.WFC_DC_COST_PER_MEM, 
                                                      WFCConstants.WFC_DC_COST_PER_STORAGE,WFCConstants.WFC_DC_COST_PER_BW);
             
-            datacenter = new WFCDatacenter(name, 
-                    characteristics, 
-                    vmAllocationPolicy,
-                    containerAllocationPolicy, 
-                    storageList, 
-                    schedulingInterval, 
-                    experimentName, 
-                    logAddress
-                    );
+            if (datacenterClass == WFCPowerContainerDatacenterCM.class) {
+                datacenter = new WFCPowerContainerDatacenterCM(name, characteristics, vmAllocationPolicy,
+                        containerAllocationPolicy, storageList, schedulingInterval, experimentName, logAddress,
+                        VMStartupDelay, ContainerStartupDelay);
+            } else if (datacenterClass == WFCPowerContainerDatacenter.class) {
+                datacenter = new WFCPowerContainerDatacenter(name, characteristics, vmAllocationPolicy,
+                        containerAllocationPolicy, storageList, schedulingInterval, experimentName, logAddress);
+            } else {
+                datacenter = new WFCDatacenter(name, 
+                        characteristics, 
+                        vmAllocationPolicy,
+                        containerAllocationPolicy, 
+                        storageList, 
+                        schedulingInterval, 
+                        experimentName, 
+                        logAddress
+                        );
+            }
                 
         } catch (Exception e) {
             e.printStackTrace();
@@ -352,7 +439,7 @@ public class WFCExample {
         LinkedList<Container> list = new LinkedList<>();        
         //peList.add(new ContainerPe(0, new CotainerPeProvisionerSimple((double)mips * ratio)));         
         //create VMs
-        Random r = new Random();
+        RunState runState = state();
         try{
             Container[] containers = new Container[containersNumber];
             for (int i = 0; i < containersNumber; i++) {
@@ -363,7 +450,7 @@ public class WFCExample {
                         //new ContainerCloudletSchedulerTimeShared(),WFCConstants.WFC_DC_SCHEDULING_INTERVAL);                    
                         new ContainerCloudletSchedulerDynamicWorkload(WFCConstants.WFC_CONTAINER_MIPS, WFCConstants.WFC_CONTAINER_PES_NUMBER),
                         WFCConstants.WFC_DC_SCHEDULING_INTERVAL);
-                containers[i].setPodId(ids.get(r.nextInt(WFCConstants.WFC_NUMBER_VMS)));
+                containers[i].setPodId(runState.ids.get(runState.random.nextInt(WFCConstants.WFC_NUMBER_VMS)));
                 //Log.printLine("container " + containers[i].getUid() + "is belong to " + containers[i].getPodId());
                 list.add(containers[i]);
             }
@@ -381,6 +468,7 @@ public class WFCExample {
         //Creates a container to store VMs. This list is passed to the broker later
         LinkedList<ContainerPod> list = new LinkedList<>();
         ArrayList peList = new ArrayList();
+        List<String> ids = state().ids;
        
         try{
             for (int p = 0; p < WFCConstants.WFC_NUMBER_VM_PES ; p++) {
@@ -0,0 +1,552 @@
+/**
+ * Copyright 2019-2020 ArmanRiazi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.wfc.examples;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.container.utils.CostumeCSVWriter;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.wfc.core.WFCConstants;
+import org.wfc.core.WFCDatacenter;
+import org.wfc.core.WFCPowerContainerDatacenter;
+import org.wfc.core.WFCPowerContainerDatacenterCM;
+import org.workflowsim.Job;
+import org.workflowsim.YamlUtil;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.WFCReplicaCatalog;
+
+/**
+ * Runs the simulation of {@link WFCExample} on a grid of DAX files,
+ * scheduling and planning algorithms, host/pod/container counts and seeds, and
+ * writes one table with the makespan, energy, migrations and wall time of each
+ * point, as CSV and JSON.
+ * <p>
+ * Each point runs in its own {@link SimulationContext}, and the points are run
+ * by a bounded fork-join pool. The counts are kept in {@link WFCConstants},
+ * which all the simulations share, so the points are run in batches of the
+ * same counts, one batch after the other. The DAX files are read once and
+ * their contents reused by all the points.
+ * <p>
+ * The grid is read from system properties, lists being comma separated:
+ * <pre>
+ * sweep.dax        the DAX files (./config/dax/Montage_25.xml)
+ * sweep.scheduling the SchedulingAlgorithm values (MAXMIN)
+ * sweep.planning   the PlanningAlgorithm values (INVALID)
+ * sweep.hosts      the numbers of hosts (WFC_NUMBER_HOSTS)
+ * sweep.pods       the numbers of pods (WFC_NUMBER_VMS)
+ * sweep.containers the numbers of containers (WFC_NUMBER_CONTAINER)
+ * sweep.seeds      the seeds placing the containers in the pods (unseeded)
+ * sweep.datacenter the datacenter of all the points: WFCDatacenter,
+ *                  WFCPowerContainerDatacenter or WFCPowerContainerDatacenterCM
+ *                  (WFCDatacenter); only the power datacenters measure the
+ *                  energy and the migrations
+ * sweep.threads    the size of the pool (available processors)
+ * sweep.output     the result files, without extension (./sweep)
+ * </pre>
+ *
+ * @since WFC Toolkit 1.0
+ */
+public class WFCSweepRunner {
+
+    /**
+     * A point of the grid.
+     */
+    public static final class Point {
+        private final String daxPath;
+        private final Parameters.SchedulingAlgorithm schedulingAlgorithm;
+        private final Parameters.PlanningAlgorithm planningAlgorithm;
+        private final int hosts;
+        private final int pods;
+        private final int containers;
+        /**
+         * The seed, or null to leave the placement unseeded
+         */
+        private final Long seed;
+
+        public Point(String daxPath, Parameters.SchedulingAlgorithm schedulingAlgorithm,
+                Parameters.PlanningAlgorithm planningAlgorithm, int hosts, int pods, int containers, Long seed) {
+            this.daxPath = daxPath;
+            this.schedulingAlgorithm = schedulingAlgorithm;
+            this.planningAlgorithm = planningAlgorithm;
+            this.hosts = hosts;
+            this.pods = pods;
+            this.containers = containers;
+            this.seed = seed;
+        }
+
+        public String getDaxPath() {
+            return daxPath;
+        }
+
+        public Parameters.SchedulingAlgorithm getSchedulingAlgorithm() {
+            return schedulingAlgorithm;
+        }
+
+        public Parameters.PlanningAlgorithm getPlanningAlgorithm() {
+            return planningAlgorithm;
+        }
+
+        public int getHosts() {
+            return hosts;
+        }
+
+        public int getPods() {
+            return pods;
+        }
+
+        public int getContainers() {
+            return containers;
+        }
+
+        public Long getSeed() {
+            return seed;
+        }
+
+        /**
+         * Gets the key of the batch of the point, the counts it sets in
+         * WFCConstants.
+         */
+        private String getCounts() {
+            return hosts + "/" + pods + "/" + containers;
+        }
+    }
+
+    /**
+     * The result of a point.
+     */
+    public static final class Result {
+        private final Point point;
+        private final int succeeded;
+        private final int failed;
+        private final double makespan;
+        /**
+         * The energy, or NaN when the datacenter does not measure it
+         */
+        private final double energy;
+        /**
+         * The migrations, or -1 when the datacenter does not count them
+         */
+        private final int migrations;
+        private final double wallTime;
+
+        private Result(Point point, int succeeded, int failed, double makespan, double energy,
+                int migrations, double wallTime) {
+            this.point = point;
+            this.succeeded = succeeded;
+            this.failed = failed;
+            this.makespan = makespan;
+            this.energy = energy;
+            this.migrations = migrations;
+            this.wallTime = wallTime;
+        }
+
+        public Point getPoint() {
+            return point;
+        }
+
+        public int getSucceeded() {
+            return succeeded;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public double getMakespan() {
+            return makespan;
+        }
+
+        public double getEnergy() {
+            return energy;
+        }
+
+        public int getMigrations() {
+            return migrations;
+        }
+
+        /**
+         * Gets the wall time of the point, in milliseconds.
+         */
+        public double getWallTime() {
+            return wallTime;
+        }
+    }
+
+    private static final String[] COLUMNS = {"dax", "scheduling", "planning", "hosts", "pods", "containers",
+        "seed", "succeeded", "failed", "makespan", "energy", "migrations", "wallTime"};
+
+    private final List<Point> points = new ArrayList<>();
+
+    private final int threads;
+
+    private Class<? extends WFCDatacenter> datacenterClass = WFCDatacenter.class;
+
+    /**
+     * Whether the points log, which is rarely readable when they run at once
+     */
+    private boolean logEnabled = false;
+
+    public WFCSweepRunner(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Adds all the points of a grid.
+     *
+     * @param daxPaths the DAX files
+     * @param schedulingAlgorithms the scheduling algorithms
+     * @param planningAlgorithms the planning algorithms
+     * @param hosts the numbers of hosts
+     * @param pods the numbers of pods
+     * @param containers the numbers of containers
+     * @param seeds the seeds, null for an unseeded placement
+     */
+    public void addGrid(List<String> daxPaths, List<Parameters.SchedulingAlgorithm> schedulingAlgorithms,
+            List<Parameters.PlanningAlgorithm> planningAlgorithms, List<Integer> hosts, List<Integer> pods,
+            List<Integer> containers, List<Long> seeds) {
+        for (int hostNumber : hosts) {
+            for (int podNumber : pods) {
+                for (int containerNumber : containers) {
+                    for (String daxPath : daxPaths) {
+                        for (Parameters.SchedulingAlgorithm sch : schedulingAlgorithms) {
+                            for (Parameters.PlanningAlgorithm pln : planningAlgorithms) {
+                                for (Long seed : seeds) {
+                                    points.add(new Point(daxPath, sch, pln, hostNumber, podNumber,
+                                            containerNumber, seed));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public List<Point> getPoints() {
+        return points;
+    }
+
+    public void setLogEnabled(boolean logEnabled) {
+        this.logEnabled = logEnabled;
+    }
+
+    /**
+     * Sets the datacenter of the points. The energy and the migrations are
+     * measured by WFCPowerContainerDatacenter and its subclasses only.
+     *
+     * @param datacenterClass WFCDatacenter, WFCPowerContainerDatacenter or
+     * WFCPowerContainerDatacenterCM
+     */
+    public void setDatacenterClass(Class<? extends WFCDatacenter> datacenterClass) {
+        this.datacenterClass = datacenterClass;
+    }
+
+    /**
+     * Runs all the points, a batch of the same counts at a time. The counts in
+     * WFCConstants are restored at the end.
+     *
+     * @return the results, in the order of the points
+     * @throws Exception if a point fails
+     */
+    public List<Result> run() throws Exception {
+        Map<String, List<Point>> batches = new LinkedHashMap<>();
+        for (Point point : points) {
+            batches.computeIfAbsent(point.getCounts(), key -> new ArrayList<>()).add(point);
+        }
+
+        int hosts = WFCConstants.WFC_NUMBER_HOSTS;
+        int pods = WFCConstants.WFC_NUMBER_VMS;
+        int containers = WFCConstants.WFC_NUMBER_CONTAINER;
+        boolean cacheDaxContents = YamlUtil.isCacheDaxContents();
+        YamlUtil.setCacheDaxContents(true);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Map<Point, Result> results = new LinkedHashMap<>();
+        try {
+            for (List<Point> batch : batches.values()) {
+                Point first = batch.get(0);
+                WFCConstants.WFC_NUMBER_HOSTS = first.getHosts();
+                WFCConstants.WFC_NUMBER_VMS = first.getPods();
+                WFCConstants.WFC_NUMBER_CONTAINER = first.getContainers();
+
+                List<Callable<Result>> tasks = new ArrayList<>();
+                for (Point point : batch) {
+                    tasks.add(() -> new SimulationContext().call(() -> runPoint(point)));
+                }
+                List<Future<Result>> batchResults = pool.invokeAll(tasks);
+                for (int i = 0; i < batch.size(); i++) {
+                    results.put(batch.get(i), batchResults.get(i).get());
+                }
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } finally {
+            pool.shutdownNow();
+            YamlUtil.setCacheDaxContents(cacheDaxContents);
+            WFCConstants.WFC_NUMBER_HOSTS = hosts;
+            WFCConstants.WFC_NUMBER_VMS = pods;
+            WFCConstants.WFC_NUMBER_CONTAINER = containers;
+        }
+
+        List<Result> ordered = new ArrayList<>();
+        for (Point point : points) {
+            ordered.add(results.get(point));
+        }
+        return ordered;
+    }
+
+    /**
+     * Runs a point in the current simulation context.
+     *
+     * @param point the point
+     * @return the result of the point
+     * @throws Exception if the simulation fails
+     */
+    private Result runPoint(Point point) throws Exception {
+        Log.setDisabled(!logEnabled);
+        long startTime = System.nanoTime();
+
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters cp = new ClusteringParameters(0, 0, ClusteringParameters.ClusteringMethod.NONE, null);
+        Parameters.init(point.getPods(), point.getDaxPath(), null,
+                null, op, cp, point.getSchedulingAlgorithm(), point.getPlanningAlgorithm(),
+                null, 0);
+        WFCReplicaCatalog.init(WFCReplicaCatalog.FileSystem.LOCAL);
+        if (point.getSeed() != null) {
+            WFCExample.setSeed(point.getSeed());
+        }
+
+        WFCExample.Run run = WFCExample.simulate(getExperimentName(point), datacenterClass);
+
+        int succeeded = 0;
+        int failed = 0;
+        double makespan = 0.0;
+        for (Job job : run.getJobs()) {
+            if (job.getStatus() == Cloudlet.SUCCESS) {
+                succeeded++;
+                makespan = Math.max(makespan, job.getFinishTime());
+            } else if (job.getStatus() == Cloudlet.FAILED) {
+                failed++;
+            }
+        }
+
+        double energy = Double.NaN;
+        int migrations = -1;
+        WFCDatacenter datacenter = run.getDatacenter();
+        if (datacenter instanceof WFCPowerContainerDatacenter) {
+            energy = ((WFCPowerContainerDatacenter) datacenter).getPower();
+            migrations = ((WFCPowerContainerDatacenter) datacenter).getVmMigrationCount();
+            if (datacenter instanceof WFCPowerContainerDatacenterCM) {
+                migrations += ((WFCPowerContainerDatacenterCM) datacenter).getContainerMigrationCount();
+            }
+        }
+
+        return new Result(point, succeeded, failed, makespan, energy, migrations,
+                (System.nanoTime() - startTime) / 1e6);
+    }
+
+    /**
+     * Gets the experiment name of a point. The power datacenters name their
+     * result files after it, so it tells the point from the others run at
+     * the same time: its position in the grid, its DAX file, its algorithms,
+     * its counts and its seed.
+     */
+    private String getExperimentName(Point point) {
+        String dax = new File(point.getDaxPath()).getName();
+        int extension = dax.lastIndexOf('.');
+        if (extension > 0) {
+            dax = dax.substring(0, extension);
+        }
+        return String.format("WFCSweep-%d-%s-%s-%s-h%d-p%d-c%d-%s", points.indexOf(point) + 1, dax,
+                point.getSchedulingAlgorithm().name(), point.getPlanningAlgorithm().name(), point.getHosts(),
+                point.getPods(), point.getContainers(), point.getSeed() == null ? "unseeded" : "s" + point.getSeed());
+    }
+
+    /**
+     * Gets the values of the columns of a result.
+     */
+    private static String[] toRow(Result result) {
+        Point point = result.getPoint();
+        return new String[]{
+            point.getDaxPath(),
+            point.getSchedulingAlgorithm().name(),
+            point.getPlanningAlgorithm().name(),
+            String.valueOf(point.getHosts()),
+            String.valueOf(point.getPods()),
+            String.valueOf(point.getContainers()),
+            point.getSeed() == null ? "" : String.valueOf(point.getSeed()),
+            String.valueOf(result.getSucceeded()),
+            String.valueOf(result.getFailed()),
+            String.format(Locale.ROOT, "%.3f", result.getMakespan()),
+            Double.isNaN(result.getEnergy()) ? "" : String.format(Locale.ROOT, "%.3f", result.getEnergy()),
+            result.getMigrations() < 0 ? "" : String.valueOf(result.getMigrations()),
+            String.format(Locale.ROOT, "%.3f", result.getWallTime())};
+    }
+
+    /**
+     * Writes the results as CSV, with a header row. Unmeasured values are left
+     * empty.
+     *
+     * @param results the results
+     * @param file the file, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeCsv(List<Result> results, File file) throws IOException {
+        Files.deleteIfExists(file.toPath());
+        CostumeCSVWriter writer = new CostumeCSVWriter(file.getAbsolutePath());
+        writer.writeTofile(COLUMNS);
+        for (Result result : results) {
+            writer.writeTofile(toRow(result));
+        }
+        writer.close();
+    }
+
+    /**
+     * Writes the results as a JSON array of objects. Unmeasured values are
+     * null.
+     *
+     * @param results the results
+     * @param file the file, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeJson(List<Result> results, File file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file.toPath()))) {
+            writer.println("[");
+            for (int i = 0; i < results.size(); i++) {
+                String[] row = toRow(results.get(i));
+                StringBuilder line = new StringBuilder("  {");
+                for (int c = 0; c < COLUMNS.length; c++) {
+                    if (c > 0) {
+                        line.append(", ");
+                    }
+                    line.append('"').append(COLUMNS[c]).append("\": ");
+                    if (row[c].isEmpty()) {
+                        line.append("null");
+                    } else if (c < 3) {
+                        line.append('"').append(row[c].replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+                    } else {
+                        line.append(row[c]);
+                    }
+                }
+                line.append(i < results.size() - 1 ? "}," : "}");
+                writer.println(line);
+            }
+            writer.println("]");
+        }
+    }
+
+    private static List<String> getList(String property, String defaultValue) {
+        List<String> values = new ArrayList<>();
+        for (String value : System.getProperty(property, defaultValue).split(",")) {
+            if (!value.trim().isEmpty()) {
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+
+    private static List<Integer> getIntegers(String property, int defaultValue) {
+        List<Integer> values = new ArrayList<>();
+        for (String value : getList(property, String.valueOf(defaultValue))) {
+            values.add(Integer.parseInt(value));
+        }
+        return values;
+    }
+
+    public static void main(String[] args) {
+        try {
+            WFCConstants.CAN_PRINT_SEQ_LOG = false;
+            WFCConstants.CAN_PRINT_SEQ_LOG_Just_Step = false;
+            WFCConstants.ENABLE_OUTPUT = false;
+            WFCConstants.FAILURE_FLAG = false;
+            WFCConstants.RUN_AS_STATIC_RESOURCE = true;
+
+            List<String> daxPaths = getList("sweep.dax", "./config/dax/Montage_25.xml");
+            for (String daxPath : daxPaths) {
+                if (!new File(daxPath).exists()) {
+                    Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                    return;
+                }
+            }
+            List<Parameters.SchedulingAlgorithm> schedulingAlgorithms = new ArrayList<>();
+            for (String value : getList("sweep.scheduling", "MAXMIN")) {
+                schedulingAlgorithms.add(Parameters.SchedulingAlgorithm.valueOf(value));
+            }
+            List<Parameters.PlanningAlgorithm> planningAlgorithms = new ArrayList<>();
+            for (String value : getList("sweep.planning", "INVALID")) {
+                planningAlgorithms.add(Parameters.PlanningAlgorithm.valueOf(value));
+            }
+            List<Long> seeds = new ArrayList<>();
+            for (String value : getList("sweep.seeds", "")) {
+                seeds.add(Long.parseLong(value));
+            }
+            if (seeds.isEmpty()) {
+                seeds.add(null);
+            }
+
+            WFCSweepRunner runner = new WFCSweepRunner(Integer.getInteger("sweep.threads",
+                    Runtime.getRuntime().availableProcessors()));
+            runner.addGrid(daxPaths, schedulingAlgorithms, planningAlgorithms,
+                    getIntegers("sweep.hosts", WFCConstants.WFC_NUMBER_HOSTS),
+                    getIntegers("sweep.pods", WFCConstants.WFC_NUMBER_VMS),
+                    getIntegers("sweep.containers", WFCConstants.WFC_NUMBER_CONTAINER), seeds);
+
+            String datacenter = System.getProperty("sweep.datacenter", "WFCDatacenter");
+            switch (datacenter) {
+                case "WFCDatacenter":
+                    runner.setDatacenterClass(WFCDatacenter.class);
+                    break;
+                case "WFCPowerContainerDatacenter":
+                    runner.setDatacenterClass(WFCPowerContainerDatacenter.class);
+                    break;
+                case "WFCPowerContainerDatacenterCM":
+                    runner.setDatacenterClass(WFCPowerContainerDatacenterCM.class);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown sweep.datacenter " + datacenter);
+            }
+
+            Log.printLine("Starting a sweep of " + runner.getPoints().size() + " points ... ");
+            long startTime = System.nanoTime();
+            List<Result> results = runner.run();
+
+            String output = System.getProperty("sweep.output", "./sweep");
+            writeCsv(results, new File(output + ".csv"));
+            writeJson(results, new File(output + ".json"));
+            Log.printLine(String.format(Locale.ROOT, "The sweep finished in %.2f s, see %s.csv and %s.json",
+                    (System.nanoTime() - startTime) / 1e9, output, output));
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+            Log.printLine(e.getMessage());
+            System.exit(0);
+        }
+    }
+}
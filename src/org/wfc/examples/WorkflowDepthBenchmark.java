@@ -0,0 +1,255 @@
+/**
+ * Copyright 2019-2020 ArmanRiazi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.wfc.examples;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.Task;
+import org.workflowsim.WFCPlanner;
+import org.workflowsim.YamlUtil;
+import org.workflowsim.utils.Parameters;
+
+/**
+ * Checks the depths set by {@link YamlUtil} and the impact factors set by
+ * {@link WFCPlanner}, which visit the tasks in topological order, against the
+ * recursive walks they replace, on a generated DAX file, and measures the time
+ * they take. The planner is run for the simulation steps up to its start,
+ * where it parses the workflow and sets the impact factors, so its time is
+ * that of the parse and of the impact factors.
+ * <p>
+ * The recursive walks take time in the number of paths of the workflow, so
+ * the generated workflow is made of small blocks of levels, as the Pegasus
+ * workflows: each task has up to three parents in the level before its own,
+ * and the last task of a block joins the level before it. A chain of a quarter
+ * of the tasks makes it deep; the recursive walks run on a thread with a large
+ * stack to go through it.
+ * <p>
+ * Usage: <tt>WorkflowDepthBenchmark [tasks] [block width] [block levels]</tt>,
+ * by default <tt>100000 8 8</tt>.
+ *
+ * @since WFC Toolkit 1.0
+ */
+public class WorkflowDepthBenchmark {
+
+    /**
+     * The largest relative difference allowed between the impact factors,
+     * which are summed in another order by the recursive walk.
+     */
+    private static final double IMPACT_TOLERANCE = 1e-9;
+
+    public static void main(String[] args) throws Exception {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int levels = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        File dax = File.createTempFile("workflow", ".xml");
+        dax.deleteOnExit();
+        writeDax(dax, createParents(tasks, width, levels, new Random(tasks)));
+
+        // the parser logs the files it parses
+        Log.disable();
+        CloudSim.init(1, Calendar.getInstance(), false);
+        Parameters.init(1, dax.getPath(), null, null, null, null, null, Parameters.PlanningAlgorithm.INVALID,
+                null, 0);
+        long start = System.nanoTime();
+        new YamlUtil(0).parse();
+        long parse = System.nanoTime() - start;
+        WFCPlanner planner = new WFCPlanner("planner_0", 1);
+        CloudSim.runStart();
+        long planning = 0;
+        while (planner.getTaskList().isEmpty()) {
+            start = System.nanoTime();
+            CloudSim.runClockTick();
+            planning = System.nanoTime() - start;
+        }
+        final List<Task> taskList = planner.getTaskList();
+        Log.enable();
+        if (taskList.size() != tasks) {
+            throw new IllegalStateException(taskList.size() + " tasks parsed out of " + tasks);
+        }
+
+        int[] depths = new int[tasks];
+        double[] impactFactors = new double[tasks];
+        int maxDepth = 0;
+        for (int t = 0; t < tasks; t++) {
+            Task task = taskList.get(t);
+            depths[t] = task.getDepth();
+            impactFactors[t] = task.getImpact();
+            maxDepth = Math.max(maxDepth, depths[t]);
+            task.setImpact(0.0);
+        }
+
+        long[] recursive = new long[1];
+        Thread thread = new Thread(null, () -> {
+            long recursiveStart = System.nanoTime();
+            setDepthsRecursively(taskList);
+            addImpactsRecursively(taskList);
+            recursive[0] = System.nanoTime() - recursiveStart;
+        }, "recursive", 1L << 30);
+        thread.start();
+        thread.join();
+
+        double maxDifference = 0.0;
+        for (int t = 0; t < tasks; t++) {
+            Task task = taskList.get(t);
+            if (task.getDepth() != depths[t]) {
+                throw new IllegalStateException("Task " + task.getCloudletId() + " has depth " + depths[t]
+                        + " in topological order and " + task.getDepth() + " recursively");
+            }
+            double difference = Math.abs(task.getImpact() - impactFactors[t]) / task.getImpact();
+            if (!(difference <= IMPACT_TOLERANCE)) {
+                throw new IllegalStateException("Task " + task.getCloudletId() + " has impact " + impactFactors[t]
+                        + " in topological order and " + task.getImpact() + " recursively");
+            }
+            maxDifference = Math.max(maxDifference, difference);
+        }
+        Log.printLine("tasks\tmax depth\tparse ms\tplanner ms\trecursive ms\tmax impact difference");
+        Log.printLine(String.format("%d\t%d\t%.1f\t%.1f\t%.1f\t%.2e", tasks, maxDepth, parse / 1e6,
+                planning / 1e6, recursive[0] / 1e6, maxDifference));
+    }
+
+    /**
+     * Creates the parents of the tasks of the workflow: a chain of a quarter
+     * of the tasks, then blocks of levels.
+     *
+     * @return the parents of each task
+     */
+    private static int[][] createParents(int tasks, int width, int levels, Random random) {
+        int[][] parents = new int[tasks][];
+        int chain = tasks / 4;
+        for (int t = 0; t < chain; t++) {
+            parents[t] = t == 0 ? new int[0] : new int[]{t - 1};
+        }
+        int blockSize = width * (levels - 1) + 1;
+        for (int t = chain; t < tasks; t++) {
+            int blockStart = t - (t - chain) % blockSize;
+            int position = t - blockStart;
+            int level = position / width;
+            int levelStart = blockStart + level * width;
+            if (level == 0) {
+                parents[t] = new int[0];
+            } else if (level == levels - 1) {
+                // the join task of the block
+                int previousStart = levelStart - width;
+                parents[t] = new int[width];
+                for (int p = 0; p < width; p++) {
+                    parents[t][p] = previousStart + p;
+                }
+            } else {
+                int previousStart = levelStart - width;
+                int count = 1 + random.nextInt(Math.min(3, width));
+                List<Integer> chosen = new ArrayList<>(count);
+                while (chosen.size() < count) {
+                    int parent = previousStart + random.nextInt(width);
+                    if (!chosen.contains(parent)) {
+                        chosen.add(parent);
+                    }
+                }
+                parents[t] = new int[count];
+                for (int p = 0; p < count; p++) {
+                    parents[t][p] = chosen.get(p);
+                }
+            }
+        }
+        return parents;
+    }
+
+    /**
+     * Writes the workflow as a DAX file, its tasks being parsed in the order
+     * of their ids.
+     */
+    private static void writeDax(File dax, int[][] parents) throws IOException {
+        try (Writer writer = new BufferedWriter(new FileWriter(dax))) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<adag>\n");
+            for (int t = 0; t < parents.length; t++) {
+                writer.write("  <job id=\"ID" + t + "\" name=\"task\" runtime=\"1.0\"/>\n");
+            }
+            for (int t = 0; t < parents.length; t++) {
+                if (parents[t].length > 0) {
+                    writer.write("  <child ref=\"ID" + t + "\">\n");
+                    for (int parent : parents[t]) {
+                        writer.write("    <parent ref=\"ID" + parent + "\"/>\n");
+                    }
+                    writer.write("  </child>\n");
+                }
+            }
+            writer.write("</adag>\n");
+        }
+    }
+
+    /**
+     * Sets the depths of the tasks by walking down from each root, as
+     * YamlUtil did.
+     */
+    private static void setDepthsRecursively(List<Task> taskList) {
+        List<Task> roots = new ArrayList<>();
+        for (Task task : taskList) {
+            task.setDepth(0);
+            if (task.getParentList().isEmpty()) {
+                roots.add(task);
+            }
+        }
+        for (Task task : roots) {
+            setDepth(task, 1);
+        }
+    }
+
+    private static void setDepth(Task task, int depth) {
+        if (depth > task.getDepth()) {
+            task.setDepth(depth);
+        }
+        for (Task cTask : task.getChildList()) {
+            setDepth(cTask, task.getDepth() + 1);
+        }
+    }
+
+    /**
+     * Adds the impact factors of the tasks by walking up from each exit, as
+     * WFCPlanner did.
+     */
+    private static void addImpactsRecursively(List<Task> taskList) {
+        List<Task> exits = new ArrayList<>();
+        for (Task task : taskList) {
+            if (task.getChildList().isEmpty()) {
+                exits.add(task);
+            }
+        }
+        double avg = 1.0 / exits.size();
+        for (Task task : exits) {
+            addImpact(task, avg);
+        }
+    }
+
+    private static void addImpact(Task task, double impact) {
+        task.setImpact(task.getImpact() + impact);
+        int size = task.getParentList().size();
+        if (size > 0) {
+            double avg = impact / size;
+            for (Task parent : task.getParentList()) {
+                addImpact(parent, avg);
+            }
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package org.wfc.scheduler;
 
 import org.cloudbus.cloudsim.container.core.*;
-import org.cloudbus.cloudsim.container.lists.ContainerList;
 import org.cloudbus.cloudsim.container.lists.ContainerPodList;
 //import org.apache.commons.math3.stat.descriptive.rank.Percentile;
 import org.cloudbus.cloudsim.Log;
@@ -71,6 +70,28 @@ public class WFCScheduler extends SimEntity {
      */
     protected List<? extends ContainerCloudlet> cloudletReceivedList;
 
+    /**
+     * The pods of the vm list by id, the first one for a repeated id.
+     */
+    private Map<Integer, ContainerPod> vmsById;
+
+    /**
+     * The pods of the vms created list by id, the first one for a repeated id.
+     */
+    private Map<Integer, ContainerPod> vmsCreatedById;
+
+    /**
+     * The containers of the container list by id, the first one for a
+     * repeated id.
+     */
+    private Map<Integer, Container> containersById;
+
+    /**
+     * The position of each in-flight cloudlet in the cloudlet submitted list,
+     * so that a returned cloudlet is removed in constant time.
+     */
+    private Map<ContainerCloudlet, Integer> cloudletsSubmittedIndex;
+
     /**
      * The cloudlets submitted.
      */
@@ -131,6 +152,29 @@ public class WFCScheduler extends SimEntity {
 
     protected int numberOfCreatedVMs;
 
+    /**
+     * Whether a CLOUDLET_UPDATE is scheduled and not processed yet.
+     */
+    private boolean cloudletUpdatePending;
+
+    /**
+     * The number of scheduling rounds run.
+     */
+    private int schedulingRounds;
+
+    /**
+     * The number of scheduling rounds saved by coalescing CLOUDLET_UPDATE
+     * requests into a pending one.
+     */
+    private int savedSchedulingRounds;
+
+    /**
+     * The scheduling algorithm, kept for all the scheduling rounds, and its
+     * name.
+     */
+    private BaseSchedulingAlgorithm scheduler;
+    private Parameters.SchedulingAlgorithm schedulerName;
+
     /**
      * Created a new DatacenterBroker object.
      *
@@ -150,6 +194,7 @@ public class WFCScheduler extends SimEntity {
         setCloudletList(new ArrayList<ContainerCloudlet>());
         setCloudletSubmittedList(new ArrayList<ContainerCloudlet>());
         setCloudletReceivedList(new ArrayList<ContainerCloudlet>());
+        cloudletsSubmittedIndex = new HashMap<>();
         cloudletsSubmitted = 0;
         setVmsRequested(WFCConstants.WFC_NUMBER_VMS);
         setVmsAcks(WFCConstants.WFC_NUMBER_VMS);
@@ -175,6 +220,7 @@ public class WFCScheduler extends SimEntity {
      */
     public void submitVmList(List<? extends ContainerPod> list) {
         getVmList().addAll(list);
+        indexById(vmsById, list);
     }
 
     /**
@@ -286,10 +332,10 @@ public class WFCScheduler extends SimEntity {
                 Log.printConcatLine("Error : Where is the VM (VM Id = -1)");}
             else{
             getContainersToVmsMap().put(containerId, vmId);
-            getContainersCreatedList().add(ContainerList.getById(getContainerList(), containerId));
+            getContainersCreatedList().add(containersById.get(containerId));
 
 //            ContainerPod p= ContainerPodList.getById(getVmsCreatedList(), vmId);
-            int hostId = ContainerPodList.getById(getVmsCreatedList(), vmId).getHost().getId();
+            int hostId = vmsCreatedById.get(vmId).getHost().getId();
             Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": The Container #", containerId,
                      ", is created on Pod #",vmId
                     , ", On Host#", hostId);
@@ -304,6 +350,7 @@ public class WFCScheduler extends SimEntity {
             //Log.print(getContainersCreatedList().size() + "vs asli"+getContainerList().size());
             submitCloudlets();
             getContainerList().clear();
+            containersById.clear();
         }
 
     }
@@ -362,11 +409,13 @@ public class WFCScheduler extends SimEntity {
         int vmId = containerPod.getId();
         if (result == CloudSimTags.TRUE) {
             getVmList().add(containerPod);
+            vmsById.putIfAbsent(vmId, containerPod);
             getVmsToDatacentersMap().put(vmId, datacenterId);
             getVmsCreatedList().add(containerPod);
+            vmsCreatedById.putIfAbsent(vmId, containerPod);
             Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": VM #", vmId,
                     " has been created in Datacenter #", datacenterId, ", Host #",
-                    ContainerPodList.getById(getVmsCreatedList(), vmId).getHost().getId());
+                    vmsCreatedById.get(vmId).getHost().getId());
         } else {
             Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": Creation of VM #", vmId,
                     " failed in Datacenter #", datacenterId);
@@ -387,10 +436,12 @@ public class WFCScheduler extends SimEntity {
 
         if (result == CloudSimTags.TRUE) {
             getVmsToDatacentersMap().put(vmId, datacenterId);
-            getVmsCreatedList().add(ContainerPodList.getById(getVmList(), vmId));
+            ContainerPod containerPod = vmsById.get(vmId);
+            getVmsCreatedList().add(containerPod);
+            vmsCreatedById.putIfAbsent(vmId, containerPod);
             Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": VM #", vmId,
                     " has been created in Datacenter #", datacenterId, ", Host #",
-                    ContainerPodList.getById(getVmsCreatedList(), vmId).getHost().getId());
+                    vmsCreatedById.get(vmId).getHost().getId());
             setNumberOfCreatedVMs(getNumberOfCreatedVMs()+1);
         } else {
             Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": Creation of VM #", vmId,
@@ -425,10 +476,12 @@ public class WFCScheduler extends SimEntity {
         FailureGenerator.generate(job);
         
         getCloudletReceivedList().add(cloudlet);
-        getCloudletSubmittedList().remove(cloudlet);//
+        removeSubmittedCloudlet(cloudlet);
         
-        Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": Cloudlet ", cloudlet.getCloudletId()," returned");
-        Log.printConcatLine(CloudSim.clock(), ": ", getName(), "The number of finished Cloudlets is:", getCloudletReceivedList().size());
+        if (Log.isEnabled(WFCScheduler.class, Log.Level.DEBUG)) {
+            Log.log(WFCScheduler.class, Log.Level.DEBUG, CloudSim.clock(), ": ", getName(), ": Cloudlet ", cloudlet.getCloudletId()," returned");
+            Log.log(WFCScheduler.class, Log.Level.DEBUG, CloudSim.clock(), ": ", getName(), "The number of finished Cloudlets is:", getCloudletReceivedList().size());
+        }
         cloudletsSubmitted--;
         
         /*if (getCloudletList().size() == 0 && cloudletsSubmitted == 0) { // all cloudlets executed
@@ -448,7 +501,7 @@ public class WFCScheduler extends SimEntity {
         
         
         //ContainerPod vm = (ContainerPod) getVmsCreatedList().get(cloudlet.getVmId());
-        ContainerPod vm= ContainerPodList.getById(getVmsCreatedList(), cloudlet.getVmId());
+        ContainerPod vm = vmsCreatedById.get(cloudlet.getVmId());
         Container container = vm.getContainer(cloudlet.getContainerId(), cloudlet.getUserId());
         //so that this resource is released
         container.setState(WorkflowSimTags.VM_STATUS_IDLE);
@@ -460,8 +513,8 @@ public class WFCScheduler extends SimEntity {
         schedule(this.workflowEngineId, delay, CloudSimTags.CLOUDLET_RETURN, cloudlet);
 
         cloudletsSubmitted--;
-        //not really update right now, should wait 1 s until many jobs have returned
-        schedule(this.getId(), 0.0, WorkflowSimTags.CLOUDLET_UPDATE);
+        //not really update right now, wait until many jobs have returned
+        requestCloudletUpdate(WFCConstants.CLOUDLET_UPDATE_WINDOW);
         //*
     }
 
@@ -522,6 +575,7 @@ public class WFCScheduler extends SimEntity {
         }
 
         getVmsCreatedList().clear();
+        vmsCreatedById.clear();
     }
 
 
@@ -548,6 +602,8 @@ public class WFCScheduler extends SimEntity {
     @Override
     public void shutdownEntity() {
         clearDatacenters();//added
+        Log.printConcatLine(getName(), ": ", schedulingRounds, " scheduling rounds, ",
+                savedSchedulingRounds, " saved by coalescing updates");
         Log.printConcatLine(getName(), " is shutting down...");
     }
 
@@ -587,6 +643,7 @@ public class WFCScheduler extends SimEntity {
      */
     protected <T extends ContainerPod> void setVmList(List<T> vmList) {
         this.vmList = vmList;
+        this.vmsById = indexById(new HashMap<>(), vmList);
     }
 
     /**
@@ -629,6 +686,39 @@ public class WFCScheduler extends SimEntity {
      */
     protected <T extends ContainerCloudlet> void setCloudletSubmittedList(List<T> cloudletSubmittedList) {
         this.cloudletSubmittedList = cloudletSubmittedList;
+        this.cloudletsSubmittedIndex = new HashMap<>();
+        for (int i = 0; i < cloudletSubmittedList.size(); i++) {
+            cloudletsSubmittedIndex.put(cloudletSubmittedList.get(i), i);
+        }
+    }
+
+    /**
+     * Adds a cloudlet to the cloudlet submitted list.
+     *
+     * @param cloudlet the cloudlet
+     */
+    protected void addSubmittedCloudlet(ContainerCloudlet cloudlet) {
+        cloudletsSubmittedIndex.put(cloudlet, getCloudletSubmittedList().size());
+        getCloudletSubmittedList().add(cloudlet);
+    }
+
+    /**
+     * Removes a cloudlet from the cloudlet submitted list in constant time,
+     * moving the last cloudlet of the list in its place.
+     *
+     * @param cloudlet the cloudlet
+     */
+    protected void removeSubmittedCloudlet(ContainerCloudlet cloudlet) {
+        Integer index = cloudletsSubmittedIndex.remove(cloudlet);
+        if (index == null) {
+            return;
+        }
+        List<ContainerCloudlet> list = getCloudletSubmittedList();
+        ContainerCloudlet last = list.remove(list.size() - 1);
+        if (index < list.size()) {
+            list.set(index, last);
+            cloudletsSubmittedIndex.put(last, index);
+        }
     }
 
     /**
@@ -671,6 +761,23 @@ public class WFCScheduler extends SimEntity {
      */
     protected <T extends ContainerPod> void setVmsCreatedList(List<T> vmsCreatedList) {
         this.vmsCreatedList = vmsCreatedList;
+        this.vmsCreatedById = indexById(new HashMap<>(), vmsCreatedList);
+    }
+
+    /**
+     * Adds pods to an index by id, keeping the first pod of a repeated id
+     * like {@link ContainerPodList#getById(List, int)}.
+     *
+     * @param index the index
+     * @param list the pods
+     * @return the index
+     */
+    private static Map<Integer, ContainerPod> indexById(Map<Integer, ContainerPod> index,
+            List<? extends ContainerPod> list) {
+        for (ContainerPod pod : list) {
+            index.putIfAbsent(pod.getId(), pod);
+        }
+        return index;
     }
 
     /**
@@ -821,6 +928,10 @@ public class WFCScheduler extends SimEntity {
 
     public void setContainerList(List<? extends Container> containerList) {
         this.containerList = containerList;
+        this.containersById = new HashMap<>();
+        for (Container container : containerList) {
+            containersById.putIfAbsent(container.getId(), container);
+        }
     }
     /**
      * This method is used to send to the broker the list with virtual machines that must be
@@ -832,6 +943,9 @@ public class WFCScheduler extends SimEntity {
      */
     public void submitContainerList(List<? extends Container> list) {
         getContainerList().addAll(list);
+        for (Container container : list) {
+            containersById.putIfAbsent(container.getId(), container);
+        }
     }
 
 
@@ -919,7 +1033,7 @@ public class WFCScheduler extends SimEntity {
      * @param name the SchedulingAlgorithm name
      * @return the algorithm that extends BaseSchedulingAlgorithm
      */
-    private BaseSchedulingAlgorithm getScheduler(Parameters.SchedulingAlgorithm name) {
+    protected BaseSchedulingAlgorithm getScheduler(Parameters.SchedulingAlgorithm name) {
         BaseSchedulingAlgorithm algorithm;
 
         // choose which algorithm to use. Make sure you have add related enum in
@@ -955,6 +1069,24 @@ public class WFCScheduler extends SimEntity {
         return algorithm;
     }
 
+    /**
+     * Gets the algorithm of a scheduling round. It is created on the first
+     * round and kept for the next ones, so that it can keep its state between
+     * rounds, unless the algorithm of the parameters changes. Subclasses
+     * choose the algorithms by overriding {@link #getScheduler}.
+     *
+     * @return the algorithm, with an empty scheduled list
+     */
+    protected BaseSchedulingAlgorithm getRoundScheduler() {
+        Parameters.SchedulingAlgorithm name = Parameters.getSchedulingAlgorithm();
+        if (scheduler == null || schedulerName != name) {
+            scheduler = getScheduler(name);
+            schedulerName = name;
+        }
+        scheduler.clearScheduledList();
+        return scheduler;
+    }
+
     
     
     /**
@@ -963,10 +1095,12 @@ public class WFCScheduler extends SimEntity {
      * @param ev a simEvent object
      */
     protected void processCloudletUpdate(SimEvent ev) {
+        cloudletUpdatePending = false;
+        schedulingRounds++;
 
         List<ContainerCloudlet> scheduledList = getCloudletList();//scheduler.getScheduledList();
         
-        BaseSchedulingAlgorithm scheduler = getScheduler(Parameters.getSchedulingAlgorithm());
+        BaseSchedulingAlgorithm scheduler = getRoundScheduler();
         scheduler.setCloudletList(scheduledList);
         scheduler.setVmList(getVmsCreatedList());
         System.out.println("cloudlet's size: " + scheduledList.size());
@@ -1009,6 +1143,7 @@ public class WFCScheduler extends SimEntity {
                      schedule(getVmsToDatacentersMap().get(vmId), delay, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
 
                     successfullySubmitted.add(cloudlet);
+                    addSubmittedCloudlet(cloudlet);
                 }
             }
         }
@@ -1027,12 +1162,46 @@ public class WFCScheduler extends SimEntity {
             }
             schedule(getVmsToDatacentersMap().get(vmId), delay, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
         }*/
-        getCloudletList().removeAll(scheduledList);
-        getCloudletSubmittedList().addAll(scheduledList);
+        //scheduledList is the cloudlet list itself
+        getCloudletList().clear();
         //cloudletsSubmitted += scheduledList.size();  
     }
 
-  
+    /**
+     * Schedules a CLOUDLET_UPDATE, unless coalescing is on and one is already
+     * pending: that one will schedule all the cloudlets waiting by then.
+     *
+     * @param delay the delay of the update, if one is scheduled
+     */
+    protected void requestCloudletUpdate(double delay) {
+        if (WFCConstants.COALESCE_CLOUDLET_UPDATES) {
+            if (cloudletUpdatePending) {
+                savedSchedulingRounds++;
+                return;
+            }
+            cloudletUpdatePending = true;
+        }
+        schedule(this.getId(), delay, WorkflowSimTags.CLOUDLET_UPDATE);
+    }
+
+    /**
+     * Gets the number of scheduling rounds run
+     *
+     * @return the number of CLOUDLET_UPDATE processed
+     */
+    public int getSchedulingRounds() {
+        return schedulingRounds;
+    }
+
+    /**
+     * Gets the number of scheduling rounds saved by coalescing
+     *
+     * @return the number of CLOUDLET_UPDATE requests merged into a pending one
+     */
+    public int getSavedSchedulingRounds() {
+        return savedSchedulingRounds;
+    }
+
     /**
      * A trick here. Assure that we just submit it once
      */
@@ -1047,7 +1216,7 @@ public class WFCScheduler extends SimEntity {
         List<Job> list = (List) ev.getData();
         getCloudletList().addAll(list);
 
-        sendNow(this.getId(), WorkflowSimTags.CLOUDLET_UPDATE);
+        requestCloudletUpdate(0.0);
         if (!processCloudletSubmitHasShown) {
             processCloudletSubmitHasShown = true;
         }
@@ -18,9 +18,10 @@ package org.workflowsim;
 import org.wfc.scheduler.WFCScheduler;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.container.core.*;
@@ -45,9 +46,38 @@ import static org.wfc.examples.WFCExample.createContainerList;
 public final class WFCEngine extends SimEntity {
 
     /**
-     * The job list.
+     * The job list. It has all the jobs of the workflow, including the
+     * retries of failed jobs, in submission order; jobs are not removed once
+     * submitted.
      */
     protected List<? extends ContainerCloudlet> jobsList;
+    /**
+     * The position of each job in the job list. Jobs ready at the same time
+     * are submitted in this order.
+     */
+    private Map<Job, Integer> jobIndex;
+    /**
+     * The number of parents not returned yet of each job waiting for its
+     * parents.
+     */
+    private Map<Job, Integer> unfinishedParents;
+    /**
+     * The jobs waiting for each job to return.
+     */
+    private Map<Job, List<Job>> waitingChildren;
+    /**
+     * The jobs returned.
+     */
+    private Set<Job> returnedJobs;
+    /**
+     * The jobs whose parents have all returned and that are not submitted
+     * yet.
+     */
+    private List<Job> readyJobs;
+    /**
+     * The number of jobs not submitted yet.
+     */
+    private int jobsPending;
     /**
      * The job submitted list.
      */
@@ -89,6 +119,12 @@ public final class WFCEngine extends SimEntity {
         super(name);
 
         setJobsList(new ArrayList<>());
+        jobIndex = new HashMap<>();
+        unfinishedParents = new HashMap<>();
+        waitingChildren = new HashMap<>();
+        returnedJobs = new HashSet<>();
+        readyJobs = new ArrayList<>();
+        jobsPending = 0;
         setJobsSubmittedList(new ArrayList<>());
         setJobsReceivedList(new ArrayList<>());
 
@@ -150,7 +186,63 @@ public final class WFCEngine extends SimEntity {
      * @param list the list
      */
     public void submitCloudletList(List<? extends ContainerCloudlet> list) {
-        getJobsList().addAll(list);
+        for (ContainerCloudlet cloudlet : list) {
+            addJob((Job) cloudlet);
+        }
+    }
+
+    /**
+     * Adds jobs to the job list.
+     *
+     * @param list the jobs
+     */
+    private void addJobs(List<? extends Job> list) {
+        for (Job job : list) {
+            addJob(job);
+        }
+    }
+
+    /**
+     * Adds a job to the job list. A job is ready once all its parents have
+     * returned; otherwise it waits for the parents not returned yet.
+     *
+     * @param job the job
+     */
+    private void addJob(Job job) {
+        jobIndex.put(job, getJobsList().size());
+        getJobsList().add(job);
+        jobsPending++;
+        int parents = 0;
+        List<Job> parentList = job.getParentList();
+        for (Job parent : parentList) {
+            if (!returnedJobs.contains(parent) && waitFor(job, parent)) {
+                parents++;
+            }
+        }
+        if (parents == 0) {
+            readyJobs.add(job);
+        } else {
+            unfinishedParents.put(job, parents);
+        }
+    }
+
+    /**
+     * Makes a job wait for a parent.
+     *
+     * @param job the job
+     * @param parent the parent
+     * @return false if the job already waits for the parent
+     */
+    private boolean waitFor(Job job, Job parent) {
+        List<Job> children = waitingChildren.get(parent);
+        if (children == null) {
+            children = new ArrayList<>();
+            waitingChildren.put(parent, children);
+        } else if (children.contains(job)) {
+            return false;
+        }
+        children.add(job);
+        return true;
     }
 
     /**
@@ -224,8 +316,14 @@ public final class WFCEngine extends SimEntity {
      * @param ev a SimEvent object
      */
     protected void processJobSubmit(SimEvent ev) {
-        List<? extends ContainerCloudlet> list = (List) ev.getData();
-        setJobsList(list);
+        List<Job> list = (List) ev.getData();
+        setJobsList(new ArrayList<>());
+        jobIndex.clear();
+        unfinishedParents.clear();
+        waitingChildren.clear();
+        readyJobs.clear();
+        jobsPending = 0;
+        addJobs(list);
     }
 
     /**
@@ -240,13 +338,38 @@ public final class WFCEngine extends SimEntity {
         Job job = (Job) ev.getData();
         if (job.getCloudletStatus() == Cloudlet.FAILED) {
             // Reclusteringengine will add retry job to jobList
-            int newId = getJobsList().size() + getJobsSubmittedList().size();
-            getJobsList().addAll(ReclusteringEngine.process(job, newId));
+            int newId = getJobsList().size();
+            List<Job> retries = ReclusteringEngine.process(job, newId);
+            addJobs(retries);
+            // The children of the failed job now have the retry jobs as parents
+            for (Job retry : retries) {
+                for (Task task : retry.getChildList()) {
+                    Job child = (Job) task;
+                    Integer parents = unfinishedParents.get(child);
+                    if (parents != null && child.getParentList().contains(retry) && waitFor(child, retry)) {
+                        unfinishedParents.put(child, parents + 1);
+                    }
+                }
+            }
         }
 
         getJobsReceivedList().add(job);
         jobsSubmitted--;
-        if (getJobsList().isEmpty() && jobsSubmitted == 0) {
+        if (returnedJobs.add(job)) {
+            List<Job> children = waitingChildren.remove(job);
+            if (children != null) {
+                for (Job child : children) {
+                    int parents = unfinishedParents.get(child) - 1;
+                    if (parents == 0) {
+                        unfinishedParents.remove(child);
+                        readyJobs.add(child);
+                    } else {
+                        unfinishedParents.put(child, parents);
+                    }
+                }
+            }
+        }
+        if (jobsPending == 0 && jobsSubmitted == 0) {
             //send msg to all the schedulers
             for (int i = 0; i < getSchedulerIds().size(); i++) {
                 sendNow(getSchedulerId(i), CloudSimTags.END_OF_SIMULATION, null);
@@ -274,67 +397,33 @@ public final class WFCEngine extends SimEntity {
  
      
     /**
-     * Checks whether a job list contains a id
-     *
-     * @param jobList the job list
-     * @param id the job id
-     * @return
-     */
-    private boolean hasJobListContainsID(List jobList, int id) {
-        for (Iterator it = jobList.iterator(); it.hasNext();) {
-            Job job = (Job) it.next();
-            if (job.getCloudletId() == id) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Submit jobs to the created VMs.
+     * Submit jobs to the created VMs. Only the jobs that became ready since
+     * the last submission are visited.
      *
      * @pre $none
      * @post $none
      */
     protected void submitJobs() {
 
-        List<Job> list = getJobsList();
         Map<Integer, List> allocationList = new HashMap<>();
         for (int i = 0; i < getSchedulers().size(); i++) {
             List<Job> submittedList = new ArrayList<>();
             allocationList.put(getSchedulerId(i), submittedList);
         }
-        int num = list.size();
-        for (int i = 0; i < num; i++) {
-            //at the beginning
-            Job job = list.get(i);
-            //Dont use job.isFinished() it is not right
-            if (!hasJobListContainsID(this.getJobsReceivedList(), job.getCloudletId())) {
-                List<Job> parentList = job.getParentList();
-                boolean flag = true;
-                for (Job parent : parentList) {
-                    if (!hasJobListContainsID(this.getJobsReceivedList(), parent.getCloudletId())) {
-                        flag = false;
-                        break;
-                    }
-                }
-                /**
-                 * This job's parents have all completed successfully. Should
-                 * submit.
-                 */
-                if (flag) {
-                    List submittedList = allocationList.get(job.getUserId());
-                    submittedList.add(job);
-                    jobsSubmitted++;
-                    getJobsSubmittedList().add(job);
-                    list.remove(job);
-                    i--;
-                    num--;
-                }
-            }
-
+        /**
+         * These jobs' parents have all completed successfully. Should submit,
+         * in the order of the job list.
+         */
+        readyJobs.sort((job1, job2) -> Integer.compare(jobIndex.get(job1), jobIndex.get(job2)));
+        for (Job job : readyJobs) {
+            List submittedList = allocationList.get(job.getUserId());
+            submittedList.add(job);
+            jobsSubmitted++;
+            getJobsSubmittedList().add(job);
+            jobsPending--;
         }
-          
+        readyJobs.clear();
+
         /**
          * If we have multiple schedulers. Divide them equally.
          */
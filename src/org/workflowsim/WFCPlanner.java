@@ -15,8 +15,12 @@
  */
 package org.workflowsim;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
@@ -204,36 +208,45 @@ public final class WFCPlanner extends SimEntity {
     /**
      * Add impact factor for each task. This is useful in task balanced
      * clustering algorithm It is for research purpose and thus it is optional.
+     * Each exit task gets the same impact, and each task shares its impact
+     * equally among its parents. The tasks are visited from the exits up in
+     * topological order (Kahn's algorithm), so each task passes its whole
+     * impact to its parents at once.
      *
      * @param taskList all the tasks
      */
     private void processImpactFactors(List<Task> taskList) {
         List<Task> exits = new ArrayList<>();
+        Map<Task, Integer> pending = new HashMap<>();
         for (Task task : taskList) {
             if (task.getChildList().isEmpty()) {
                 exits.add(task);
+            } else {
+                pending.put(task, task.getChildList().size());
             }
         }
         double avg = 1.0 / exits.size();
+        Deque<Task> ready = new ArrayDeque<>();
         for (Task task : exits) {
-            addImpact(task, avg);
+            task.setImpact(task.getImpact() + avg);
+            ready.add(task);
         }
-    }
-
-    /**
-     * Add impact factor for one particular task
-     *
-     * @param task, the task
-     * @param impact , the impact factor
-     */
-    private void addImpact(Task task, double impact) {
 
-        task.setImpact(task.getImpact() + impact);
-        int size = task.getParentList().size();
-        if (size > 0) {
-            double avg = impact / size;
-            for (Task parent : task.getParentList()) {
-                addImpact(parent, avg);
+        while (!ready.isEmpty()) {
+            Task task = ready.poll();
+            int size = task.getParentList().size();
+            if (size > 0) {
+                double share = task.getImpact() / size;
+                for (Task parent : task.getParentList()) {
+                    parent.setImpact(parent.getImpact() + share);
+                    int children = pending.get(parent) - 1;
+                    if (children == 0) {
+                        pending.remove(parent);
+                        ready.add(parent);
+                    } else {
+                        pending.put(parent, children);
+                    }
+                }
             }
         }
     }
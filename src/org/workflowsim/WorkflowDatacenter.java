@@ -251,6 +251,7 @@ public class WorkflowDatacenter extends Datacenter {
                         Pod pod = host.getVm(vmId, userId);
 
                         boolean requiredFileStagein = true;
+                        String vmSite = Integer.toString(vmId);
                         for (Iterator it = siteList.iterator(); it.hasNext();) {
                             //site is where one replica of this data is located at
                             String site = (String) it.next();
@@ -261,7 +262,7 @@ public class WorkflowDatacenter extends Datacenter {
                              * This file is already in the local pod and thus it
                              * is no need to transfer
                              */
-                            if (site.equals(Integer.toString(vmId))) {
+                            if (site.equals(vmSite)) {
                                 requiredFileStagein = false;
                                 break;
                             }
@@ -290,7 +291,7 @@ public class WorkflowDatacenter extends Datacenter {
                         //We should add but since CondorVm has a small capability it often fails
                         //We currently don't use this storage to do anything meaningful. It is left for future. 
                         //condorVm.addLocalFile(file);
-                        WFCReplicaCatalog.addFileToStorage(file.getName(), Integer.toString(vmId));
+                        WFCReplicaCatalog.addFileToStorage(file.getName(), vmId);
                         break;
                 }
             }
@@ -375,7 +376,7 @@ public class WorkflowDatacenter extends Datacenter {
                          * Left here for future work
                          */
                         CondorPod vm = (CondorPod) host.getVm(vmId, userId);
-                        WFCReplicaCatalog.addFileToStorage(file.getName(), Integer.toString(vmId));
+                        WFCReplicaCatalog.addFileToStorage(file.getName(), vmId);
                         break;
                 }
             }
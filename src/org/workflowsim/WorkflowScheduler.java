@@ -17,6 +17,7 @@ package org.workflowsim;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Log;
@@ -24,16 +25,8 @@ import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.workflowsim.failure.FailureGenerator;
-import org.workflowsim.scheduling.DataAwareSchedulingAlgorithm;
 import org.workflowsim.scheduling.BaseSchedulingAlgorithm;
-import org.workflowsim.scheduling.FCFSSchedulingAlgorithm;
-import org.workflowsim.scheduling.MCTSchedulingAlgorithm;
-import org.workflowsim.scheduling.MaxMinSchedulingAlgorithm;
-import org.workflowsim.scheduling.MinMinSchedulingAlgorithm;
-import org.workflowsim.scheduling.RoundRobinSchedulingAlgorithm;
-import org.workflowsim.scheduling.StaticSchedulingAlgorithm;
 import org.workflowsim.utils.Parameters;
-import org.workflowsim.utils.Parameters.SchedulingAlgorithm;
 import org.cloudbus.cloudsim.container.core.*;
 import org.wfc.scheduler.WFCScheduler;
 
@@ -137,50 +130,6 @@ public class WorkflowScheduler extends WFCScheduler {
         }
     }
 
-    /**
-     * Switch between multiple schedulers. Based on algorithm.method
-     *
-     * @param name the SchedulingAlgorithm name
-     * @return the algorithm that extends BaseSchedulingAlgorithm
-     */
-    private BaseSchedulingAlgorithm getScheduler(SchedulingAlgorithm name) {
-        BaseSchedulingAlgorithm algorithm;
-
-        // choose which algorithm to use. Make sure you have add related enum in
-        //Parameters.java
-        switch (name) {
-            //by default it is Static
-            case FCFS:
-                algorithm = new FCFSSchedulingAlgorithm();
-                break;
-            case MINMIN:
-                algorithm = new MinMinSchedulingAlgorithm();
-                break;
-            case MAXMIN:
-                algorithm = new MaxMinSchedulingAlgorithm();
-                break;
-            case MCT:
-                algorithm = new MCTSchedulingAlgorithm();
-                break;
-            case DATA:
-                algorithm = new DataAwareSchedulingAlgorithm();
-                break;
-            case STATIC:
-                algorithm = new StaticSchedulingAlgorithm();
-                break;
-            case ROUNDROBIN:
-                algorithm = new RoundRobinSchedulingAlgorithm();
-                break;
-            default:
-                algorithm = new StaticSchedulingAlgorithm();
-                break;
-
-        }
-        return algorithm;
-    }
-
-    
-    
     /**
      * Update a cloudlet (job)
      *
@@ -188,7 +137,7 @@ public class WorkflowScheduler extends WFCScheduler {
      */
     protected void processCloudletUpdate(SimEvent ev) {
 
-        BaseSchedulingAlgorithm scheduler = getScheduler(Parameters.getSchedulingAlgorithm());
+        BaseSchedulingAlgorithm scheduler = getRoundScheduler();
         scheduler.setCloudletList(getCloudletList());
         scheduler.setVmList(getVmsCreatedList());
 
@@ -228,7 +177,8 @@ public class WorkflowScheduler extends WFCScheduler {
             }
         }
         
-        getCloudletList().removeAll(successfullySubmitted);
+        // a hash set, so each cloudlet is removed in constant time
+        getCloudletList().removeAll(new HashSet<>(successfullySubmitted));
         getCloudletSubmittedList().addAll(successfullySubmitted);
         cloudletsSubmitted += successfullySubmitted.size();
         successfullySubmitted.clear();
@@ -15,14 +15,28 @@
  */
 package org.workflowsim;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
@@ -41,6 +55,17 @@ import org.workflowsim.utils.WFCReplicaCatalog;
  */
 public final class YamlUtil {
 
+    /**
+     * The contents of the DAX files read so far, by path, when they are
+     * cached. They are shared by all the simulations of the JVM.
+     */
+    private static final Map<String, DaxContent> DAX_CONTENTS = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the contents of the DAX files are cached.
+     */
+    private static volatile boolean cacheDaxContents = false;
+
     /**
      * The path to DAX file.
      */
@@ -63,6 +88,16 @@ public final class YamlUtil {
      */
     private int jobIdStartsFrom;
 
+    /**
+     * The time taken by the last parsed file, in milliseconds.
+     */
+    private double parseTime;
+
+    /**
+     * The heap growth while parsing the last file, in MB.
+     */
+    private double parseHeap;
+
     /**
      * Gets the task list
      *
@@ -81,6 +116,50 @@ public final class YamlUtil {
     protected void setTaskList(List<Task> taskList) {
         this.taskList = taskList;
     }
+    /**
+     * Gets the time taken to parse the last DAX file, or all the files when
+     * they are parsed in parallel
+     *
+     * @return the parse time in milliseconds
+     */
+    public double getParseTime() {
+        return parseTime;
+    }
+
+    /**
+     * Gets the heap growth while parsing the last DAX file, or all the files
+     * when they are parsed in parallel. Garbage
+     * collections during the parse make it an approximation.
+     *
+     * @return the heap growth in MB
+     */
+    public double getParseHeap() {
+        return parseHeap;
+    }
+
+    /**
+     * Sets whether the contents of the DAX files are cached, so that
+     * simulations of the same workflow read its file once. The tasks are still
+     * created for each simulation, as they keep the state of the run.
+     *
+     * @param cache whether to cache the contents of the DAX files
+     */
+    public static void setCacheDaxContents(boolean cache) {
+        cacheDaxContents = cache;
+        if (!cache) {
+            DAX_CONTENTS.clear();
+        }
+    }
+
+    /**
+     * Checks whether the contents of the DAX files are cached.
+     *
+     * @return whether the contents of the DAX files are cached
+     */
+    public static boolean isCacheDaxContents() {
+        return cacheDaxContents;
+    }
+
     /**
      * Map from task name to task.
      */
@@ -109,31 +188,162 @@ public final class YamlUtil {
         if (this.daxPath != null) {
             parseXmlFile(this.daxPath);
         } else if (this.daxPaths != null) {
-            for (String path : this.daxPaths) {
-                parseXmlFile(path);
+            int threads = Math.min(Parameters.getDaxParseThreads(), this.daxPaths.size());
+            if (threads > 1) {
+                parseXmlFiles(this.daxPaths, threads);
+            } else {
+                for (String path : this.daxPaths) {
+                    parseXmlFile(path);
+                }
             }
         }
     }
 
     /**
-     * Sets the depth of a task
+     * Parse a DAX file, with the parser selected in Parameters, and reports
+     * the parse time and the heap it took. The tasks are only created once
+     * the whole file is read, so a file which cannot be read adds no task.
+     */
+    private void parseXmlFile(String path) {
+        Runtime runtime = Runtime.getRuntime();
+        long startTime = System.nanoTime();
+        long startHeap = runtime.totalMemory() - runtime.freeMemory();
+        int startTasks = getTaskList().size();
+
+        addTasks(path, readXmlFile(path));
+
+        this.parseTime = (System.nanoTime() - startTime) / 1e6;
+        this.parseHeap = (runtime.totalMemory() - runtime.freeMemory() - startHeap) / (1024.0 * 1024.0);
+        Log.printLine(String.format("Parsed %d tasks from %s with %s in %.2f ms (heap %+.2f MB)",
+                getTaskList().size() - startTasks, path, Parameters.getDaxParser(), parseTime, parseHeap));
+    }
+
+    /**
+     * Parse several DAX files in parallel. The files are read by a pool of
+     * threads into their jobs and dependencies, while the tasks are created
+     * here in the order of the files, so each file gets a contiguous range of
+     * task ids and the tasks are the same as the ones of a sequential parse.
+     * A file which cannot be read, or not to its end, is logged and skipped.
      *
-     * @param task the task
-     * @param depth the depth
+     * @param paths the DAX files
+     * @param threads the number of threads reading the files
      */
-    private void setDepth(Task task, int depth) {
-        if (depth  > task.getDepth()) {
-            task.setDepth(depth);
+    private void parseXmlFiles(List<String> paths, int threads) {
+        Runtime runtime = Runtime.getRuntime();
+        long startTime = System.nanoTime();
+        long startHeap = runtime.totalMemory() - runtime.freeMemory();
+        int startTasks = getTaskList().size();
+
+        // the workers read the parameters and log in the context of this simulation
+        final SimulationContext context = SimulationContext.current();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<DaxContent>> contents = new ArrayList<>();
+            for (final String path : paths) {
+                contents.add(executor.submit(() -> context.call(() -> readXmlFile(path))));
+            }
+            for (int i = 0; i < contents.size(); i++) {
+                DaxContent content;
+                try {
+                    content = contents.get(i).get();
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                    Log.printLine("Parsing Exception;Skipping " + paths.get(i));
+                    continue;
+                }
+                addTasks(paths.get(i), content);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.printLine("Parsing interrupted");
+        } finally {
+            executor.shutdownNow();
         }
-        for (Task cTask : task.getChildList()) {
-            setDepth(cTask, task.getDepth()+1 );
+
+        this.parseTime = (System.nanoTime() - startTime) / 1e6;
+        this.parseHeap = (runtime.totalMemory() - runtime.freeMemory() - startHeap) / (1024.0 * 1024.0);
+        Log.printLine(String.format("Parsed %d tasks from %d files with %s on %d threads in %.2f ms (heap %+.2f MB)",
+                getTaskList().size() - startTasks, paths.size(), Parameters.getDaxParser(), threads,
+                parseTime, parseHeap));
+    }
+
+    /**
+     * Creates the tasks and dependencies of a DAX file, if it was read to its
+     * end.
+     *
+     * @param path the DAX file
+     * @param content the jobs and dependencies of the file
+     */
+    private void addTasks(String path, DaxContent content) {
+        if (!content.isComplete()) {
+            Log.printLine("Parsing Exception;Skipping " + path);
+            return;
         }
+        TaskBuilder builder = new TaskBuilder();
+        content.replay(builder);
+        builder.finish();
+    }
+
+    /**
+     * Reads the jobs and dependencies of a DAX file into a list, or gets them
+     * from the cache when the contents are cached. Only the files read to their end and not empty
+     * are cached, so a file which could not be read is read again by the
+     * next simulation. It does not touch the state of this parser, so several
+     * files can be read at once.
+     *
+     * @param path the DAX file
+     * @return the jobs and dependencies of the file
+     */
+    private DaxContent readXmlFile(String path) {
+        if (!cacheDaxContents) {
+            return readXmlFileContent(path);
+        }
+        DaxContent content = DAX_CONTENTS.get(path);
+        if (content == null) {
+            content = readXmlFileContent(path);
+            if (content.isComplete()) {
+                DaxContent cached = DAX_CONTENTS.putIfAbsent(path, content);
+                if (cached != null) {
+                    content = cached;
+                }
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Reads the jobs and dependencies of a DAX file into a list.
+     *
+     * @param path the DAX file
+     * @return the jobs and dependencies of the file
+     */
+    private DaxContent readXmlFileContent(String path) {
+        DaxContent content = new DaxContent();
+        content.setRead(readXmlFile(path, content));
+        return content;
+    }
+
+    /**
+     * Reads a DAX file with the parser selected in Parameters, passing its
+     * jobs and dependencies to a handler as they are read.
+     *
+     * @param path the DAX file
+     * @param handler the handler of the jobs and dependencies
+     * @return whether the file was read to its end
+     */
+    private boolean readXmlFile(String path, DaxHandler handler) {
+        if (Parameters.getDaxParser() == Parameters.DaxParser.STAX) {
+            return readXmlFileStax(path, handler);
+        }
+        return readXmlFileJdom(path, handler);
     }
 
     /**
      * Parse a DAX file with jdom
+     *
+     * @return whether the file was read to its end
      */
-    private void parseXmlFile(String path) {
+    private boolean readXmlFileJdom(String path, DaxHandler handler) {
 
         try {
 
@@ -145,174 +355,503 @@ public final class YamlUtil {
             for (Element node : list) {
                 switch (node.getName().toLowerCase()) {
                     case "job":
-                        long length = 0;
-                        String nodeName = node.getAttributeValue("id");
-                        String nodeType = node.getAttributeValue("name");
-                        /**
-                         * capture runtime. If not exist, by default the runtime
-                         * is 0.1. Otherwise CloudSim would ignore this task.
-                         * BUG/#11
-                         */
-                        double runtime;
-                        if (node.getAttributeValue("runtime") != null) {
-                            String nodeTime = node.getAttributeValue("runtime");
-                            runtime = 1000 * Double.parseDouble(nodeTime);
-                            if (runtime < 100) {
-                                runtime = 100;
-                            }
-                            length = (long) runtime;
-                        } else {
-                            Log.printLine("Cannot find runtime for " + nodeName + ",set it to be 0");
-                        }   //multiple the scale, by default it is 1.0
-                        length *= Parameters.getRuntimeScale();
+                        handler.job(node.getAttributeValue("id"),
+                                node.getAttributeValue("name"), node.getAttributeValue("runtime"));
                         List<Element> fileList = node.getChildren();
-                        List<FileItem> mFileList = new ArrayList<>();
                         for (Element file : fileList) {
                             if (file.getName().toLowerCase().equals("uses")) {
                                 String fileName = file.getAttributeValue("name");//DAX version 3.3
                                 if (fileName == null) {
                                     fileName = file.getAttributeValue("file");//DAX version 3.0
                                 }
-                                if (fileName == null) {
-                                    Log.print("Error in parsing xml");
-                                }
+                                handler.file(fileName, file.getAttributeValue("link"),
+                                        file.getAttributeValue("size"));
+                            }
+                        }
+                        break;
+                    case "child":
+                        handler.child(node.getAttributeValue("ref"));
+                        List<Element> pList = node.getChildren();
+                        for (Element parent : pList) {
+                            handler.parent(parent.getAttributeValue("ref"));
+                        }
+                        break;
+                }
+            }
+            return true;
 
-                                String inout = file.getAttributeValue("link");
-                                double size = 0.0;
+        } catch (JDOMException jde) {
+            Log.printLine("JDOM Exception;Please make sure your dax file is valid");
 
-                                String fileSize = file.getAttributeValue("size");
-                                if (fileSize != null) {
-                                    size = Double.parseDouble(fileSize) /*/ 1024*/;
-                                } else {
-                                    Log.printLine("File Size not found for " + fileName);
-                                }
+        } catch (IOException ioe) {
+            Log.printLine("IO Exception;Please make sure dax.path is correctly set in your config file");
 
-                                /**
-                                 * a bug of cloudsim, size 0 causes a problem. 1
-                                 * is ok.
-                                 */
-                                if (size == 0) {
-                                    size++;
-                                }
-                                /**
-                                 * Sets the file type 1 is input 2 is output
-                                 */
-                                FileType type = FileType.NONE;
-                                switch (inout) {
-                                    case "input":
-                                        type = FileType.INPUT;
-                                        break;
-                                    case "output":
-                                        type = FileType.OUTPUT;
-                                        break;
-                                    default:
-                                        Log.printLine("Parsing Error");
-                                        break;
-                                }
-                                FileItem tFile;
-                                /*
-                                 * Already exists an input file (forget output file)
-                                 */
-                                if (size < 0) {
-                                    /*
-                                     * Assuming it is a parsing error
-                                     */
-                                    size = 0 - size;
-                                    Log.printLine("Size is negative, I assume it is a parser error");
-                                }
-                                /*
-                                 * Note that CloudSim use size as MB, in this case we use it as Byte
-                                 */
-                                if (type == FileType.OUTPUT) {
-                                    /**
-                                     * It is good that CloudSim does tell
-                                     * whether a size is zero
-                                     */
-                                    tFile = new FileItem(fileName, size);
-                                } else if (WFCReplicaCatalog.containsFile(fileName)) {
-                                    tFile = WFCReplicaCatalog.getFile(fileName);
-                                } else {
-
-                                    tFile = new FileItem(fileName, size);
-                                    WFCReplicaCatalog.setFile(fileName, tFile);
-                                }
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("Parsing Exception");
+        }
+        return false;
+    }
 
-                                tFile.setType(type);
-                                mFileList.add(tFile);
+    /**
+     * Parse a DAX file with StAX. Jobs and dependencies are passed to the
+     * handler while the file is streamed, so the DOM of the file is never held
+     * in memory. The result is the same as the one of
+     * {@link #readXmlFileJdom(String, DaxHandler)}.
+     *
+     * @return whether the file was read to its end
+     */
+    private boolean readXmlFileStax(String path, DaxHandler handler) {
+        XMLStreamReader reader = null;
+        try (InputStream input = new BufferedInputStream(new FileInputStream(path))) {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            reader = factory.createXMLStreamReader(input);
 
+            /**
+             * The root is at depth 1, jobs and dependencies at depth 2 and
+             * their files and parents at depth 3.
+             */
+            int depth = 0;
+            boolean job = false;
+            boolean child = false;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        depth++;
+                        String element = reader.getLocalName().toLowerCase();
+                        if (depth == 2 && element.equals("job")) {
+                            job = true;
+                            handler.job(reader.getAttributeValue(null, "id"),
+                                    reader.getAttributeValue(null, "name"), reader.getAttributeValue(null, "runtime"));
+                        } else if (depth == 2 && element.equals("child")) {
+                            child = true;
+                            handler.child(reader.getAttributeValue(null, "ref"));
+                        } else if (depth == 3 && job && element.equals("uses")) {
+                            String fileName = reader.getAttributeValue(null, "name");//DAX version 3.3
+                            if (fileName == null) {
+                                fileName = reader.getAttributeValue(null, "file");//DAX version 3.0
                             }
+                            handler.file(fileName, reader.getAttributeValue(null, "link"),
+                                    reader.getAttributeValue(null, "size"));
+                        } else if (depth == 3 && child) {
+                            handler.parent(reader.getAttributeValue(null, "ref"));
                         }
-                        Task task;
-                        //In case of multiple workflow submission. Make sure the jobIdStartsFrom is consistent.
-                        synchronized (this) {
-                            task = new Task(this.jobIdStartsFrom, length);
-                            this.jobIdStartsFrom++;
-                        }
-                        task.setType(nodeType);
-                        task.setUserId(userId);
-                        mName2Task.put(nodeName, task);
-                        for (FileItem file : mFileList) {
-                            task.addRequiredFile(file.getName());
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (depth == 2) {
+                            job = false;
+                            child = false;
                         }
-                        task.setFileList(mFileList);
-                        this.getTaskList().add(task);
-
-                        /**
-                         * Add dependencies info.
-                         */
+                        depth--;
                         break;
-                    case "child":
-                        List<Element> pList = node.getChildren();
-                        String childName = node.getAttributeValue("ref");
-                        if (mName2Task.containsKey(childName)) {
+                    default:
+                        break;
+                }
+            }
+            return true;
 
-                            Task childTask = (Task) mName2Task.get(childName);
+        } catch (XMLStreamException xse) {
+            Log.printLine("StAX Exception;Please make sure your dax file is valid");
 
-                            for (Element parent : pList) {
-                                String parentName = parent.getAttributeValue("ref");
-                                if (mName2Task.containsKey(parentName)) {
-                                    Task parentTask = (Task) mName2Task.get(parentName);
-                                    parentTask.addChild(childTask);
-                                    childTask.addParent(parentTask);
-                                }
-                            }
-                        }
-                        break;
+        } catch (IOException ioe) {
+            Log.printLine("IO Exception;Please make sure dax.path is correctly set in your config file");
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("Parsing Exception");
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    Log.printLine("StAX Exception;Cannot close the reader of " + path);
                 }
             }
+        }
+        return false;
+    }
+
+    /**
+     * Creates the tasks of a DAX file and their dependencies as its jobs and
+     * dependencies are read, in the order of the file.
+     */
+    private final class TaskBuilder implements DaxHandler {
+
+        /**
+         * The job read last, whose task is created once all its files are
+         * read.
+         */
+        private String jobId;
+        private String jobName;
+        private long jobLength;
+        private List<FileItem> jobFiles;
+        /**
+         * The ref of the child read last, null if it is not a known task.
+         */
+        private String childRef;
+
+        @Override
+        public void job(String id, String name, String runtime) {
+            addJob();
+            childRef = null;
+            jobId = id;
+            jobName = name;
+            jobLength = getLength(id, runtime);
+            jobFiles = new ArrayList<>();
+        }
+
+        @Override
+        public void file(String name, String link, String size) {
+            jobFiles.add(createFile(name, link, size));
+        }
+
+        @Override
+        public void child(String ref) {
+            addJob();
+            childRef = mName2Task.containsKey(ref) ? ref : null;
+        }
+
+        @Override
+        public void parent(String ref) {
+            if (childRef != null) {
+                addDependency(ref, childRef);
+            }
+        }
+
+        /**
+         * Creates the task of the last job, if it is not created yet.
+         */
+        private void addJob() {
+            if (jobFiles != null) {
+                addTask(jobId, jobName, jobLength, jobFiles);
+                jobFiles = null;
+            }
+        }
+
+        /**
+         * Creates the task of the last job and sets the depths of the tasks,
+         * once the file is read.
+         */
+        void finish() {
+            addJob();
+            setDepths();
+        }
+    }
+
+    /**
+     * Gets the length of a task from its runtime attribute. If not exist, by
+     * default the runtime is 0.1. Otherwise CloudSim would ignore this task.
+     * BUG/#11
+     *
+     * @param nodeName the task name
+     * @param nodeTime the runtime attribute, in seconds
+     * @return the length, multiplied by the runtime scale
+     */
+    private long getLength(String nodeName, String nodeTime) {
+        long length = 0;
+        if (nodeTime != null) {
+            double runtime = 1000 * Double.parseDouble(nodeTime);
+            if (runtime < 100) {
+                runtime = 100;
+            }
+            length = (long) runtime;
+        } else {
+            Log.printLine("Cannot find runtime for " + nodeName + ",set it to be 0");
+        }   //multiple the scale, by default it is 1.0
+        length *= Parameters.getRuntimeScale();
+        return length;
+    }
+
+    /**
+     * Creates the file item of a uses element, registering input files in the
+     * replica catalog.
+     *
+     * @param fileName the file name
+     * @param inout the link attribute
+     * @param fileSize the size attribute
+     * @return the file item
+     */
+    private FileItem createFile(String fileName, String inout, String fileSize) {
+        if (fileName == null) {
+            Log.print("Error in parsing xml");
+        }
+
+        double size = 0.0;
+
+        if (fileSize != null) {
+            size = Double.parseDouble(fileSize) /*/ 1024*/;
+        } else {
+            Log.printLine("File Size not found for " + fileName);
+        }
+
+        /**
+         * a bug of cloudsim, size 0 causes a problem. 1
+         * is ok.
+         */
+        if (size == 0) {
+            size++;
+        }
+        /**
+         * Sets the file type 1 is input 2 is output
+         */
+        FileType type = FileType.NONE;
+        switch (inout) {
+            case "input":
+                type = FileType.INPUT;
+                break;
+            case "output":
+                type = FileType.OUTPUT;
+                break;
+            default:
+                Log.printLine("Parsing Error");
+                break;
+        }
+        FileItem tFile;
+        /*
+         * Already exists an input file (forget output file)
+         */
+        if (size < 0) {
+            /*
+             * Assuming it is a parsing error
+             */
+            size = 0 - size;
+            Log.printLine("Size is negative, I assume it is a parser error");
+        }
+        /*
+         * Note that CloudSim use size as MB, in this case we use it as Byte
+         */
+        if (type == FileType.OUTPUT) {
             /**
-             * If a task has no parent, then it is root task.
+             * It is good that CloudSim does tell
+             * whether a size is zero
              */
-            ArrayList roots = new ArrayList<>();
-            for (Task task : mName2Task.values()) {
+            tFile = new FileItem(fileName, size);
+        } else {
+            tFile = WFCReplicaCatalog.getFile(fileName);
+            if (tFile == null) {
+                tFile = WFCReplicaCatalog.putFileIfAbsent(fileName, new FileItem(fileName, size));
+            }
+        }
+
+        tFile.setType(type);
+        return tFile;
+    }
+
+    /**
+     * Creates a task and adds it to the task list.
+     *
+     * @param nodeName the job id in the DAX
+     * @param nodeType the job name in the DAX
+     * @param length the task length
+     * @param mFileList the files used by the task
+     */
+    private void addTask(String nodeName, String nodeType, long length, List<FileItem> mFileList) {
+        //In case of multiple workflow submission. Tasks are only created by the
+        //thread calling parse(), file by file, so each file gets contiguous ids.
+        Task task = new Task(this.jobIdStartsFrom, length);
+        this.jobIdStartsFrom++;
+        task.setType(nodeType);
+        task.setUserId(userId);
+        mName2Task.put(nodeName, task);
+        for (FileItem file : mFileList) {
+            task.addRequiredFile(file.getName());
+        }
+        task.setFileList(mFileList);
+        this.getTaskList().add(task);
+    }
+
+    /**
+     * Add dependencies info.
+     *
+     * @param parentName the parent job id in the DAX
+     * @param childName the child job id in the DAX, which must be known
+     */
+    private void addDependency(String parentName, String childName) {
+        if (mName2Task.containsKey(parentName)) {
+            Task childTask = (Task) mName2Task.get(childName);
+            Task parentTask = (Task) mName2Task.get(parentName);
+            parentTask.addChild(childTask);
+            childTask.addParent(parentTask);
+        }
+    }
+
+    /**
+     * Sets the depths of the tasks of the file just parsed and clears the map
+     * from task name to task. The depth of a task is the length of the longest
+     * path from a root task to it; the tasks are visited in topological order
+     * (Kahn's algorithm), so each task and dependency is visited once.
+     */
+    private void setDepths() {
+        /**
+         * If a task has no parent, then it is root task. Otherwise count the
+         * parents not visited yet.
+         */
+        Deque<Task> ready = new ArrayDeque<>();
+        Map<Task, Integer> pending = new HashMap<>();
+        for (Task task : mName2Task.values()) {
+            if (task.getParentList().isEmpty()) {
+                task.setDepth(1);
+                ready.add(task);
+            } else {
                 task.setDepth(0);
-                if (task.getParentList().isEmpty()) {
-                    roots.add(task);
+                pending.put(task, task.getParentList().size());
+            }
+        }
+
+        /**
+         * Add depth from top to bottom. A task is visited once all its parents
+         * are.
+         */
+        while (!ready.isEmpty()) {
+            Task task = ready.poll();
+            for (Task cTask : task.getChildList()) {
+                if (task.getDepth() + 1 > cTask.getDepth()) {
+                    cTask.setDepth(task.getDepth() + 1);
+                }
+                int parents = pending.get(cTask) - 1;
+                if (parents == 0) {
+                    pending.remove(cTask);
+                    ready.add(cTask);
+                } else {
+                    pending.put(cTask, parents);
                 }
             }
+        }
+        if (!pending.isEmpty()) {
+            Log.printLine("The workflow has a cycle, " + pending.size() + " tasks have no depth");
+        }
+        /**
+         * Clean them so as to save memory. Parsing workflow may take much
+         * memory
+         */
+        this.mName2Task.clear();
+    }
 
-            /**
-             * Add depth from top to bottom.
-             */
-            for (Iterator it = roots.iterator(); it.hasNext();) {
-                Task task = (Task) it.next();
-                setDepth(task, 1);
+    /**
+     * Handles the jobs and dependencies of a DAX file in the order of the
+     * file: each job is followed by its files, and each child by its parents.
+     */
+    private interface DaxHandler {
+
+        void job(String id, String name, String runtime);
+
+        void file(String name, String link, String size);
+
+        void child(String ref);
+
+        void parent(String ref);
+    }
+
+    /**
+     * The jobs and dependencies of a DAX file, in the order of the file, kept
+     * to create the tasks later.
+     */
+    private static final class DaxContent implements DaxHandler {
+
+        private final List<DaxElement> elements = new ArrayList<>();
+        private DaxElement last;
+        /**
+         * Whether the file was read to its end
+         */
+        private boolean read;
+
+        void setRead(boolean read) {
+            this.read = read;
+        }
+
+        /**
+         * Checks whether the file was read to its end and is not empty, so
+         * its tasks can be created and the content can be cached.
+         *
+         * @return whether the content is complete
+         */
+        boolean isComplete() {
+            return read && !elements.isEmpty();
+        }
+
+        @Override
+        public void job(String id, String name, String runtime) {
+            last = new DaxElement(true, id, name, runtime);
+            elements.add(last);
+        }
+
+        @Override
+        public void file(String name, String link, String size) {
+            last.addFile(name, link, size);
+        }
+
+        @Override
+        public void child(String ref) {
+            last = new DaxElement(false, ref, null, null);
+            elements.add(last);
+        }
+
+        @Override
+        public void parent(String ref) {
+            last.addParent(ref);
+        }
+
+        /**
+         * Passes the jobs and dependencies to a handler, as they were read.
+         *
+         * @param handler the handler
+         */
+        void replay(DaxHandler handler) {
+            for (DaxElement element : elements) {
+                if (element.job) {
+                    handler.job(element.ref, element.type, element.runtime);
+                    for (String[] file : element.files) {
+                        handler.file(file[0], file[1], file[2]);
+                    }
+                } else {
+                    handler.child(element.ref);
+                    for (String parent : element.parents) {
+                        handler.parent(parent);
+                    }
+                }
             }
-            /**
-             * Clean them so as to save memory. Parsing workflow may take much
-             * memory
-             */
-            this.mName2Task.clear();
+        }
+    }
 
-        } catch (JDOMException jde) {
-            Log.printLine("JDOM Exception;Please make sure your dax file is valid");
+    /**
+     * A job or a child element of a DAX file, with the attributes needed to
+     * create its task or its dependencies.
+     */
+    private static final class DaxElement {
 
-        } catch (IOException ioe) {
-            Log.printLine("IO Exception;Please make sure dax.path is correctly set in your config file");
+        /**
+         * Whether it is a job, otherwise it is a child
+         */
+        private final boolean job;
+        /**
+         * The id of a job, or the ref of a child
+         */
+        private final String ref;
+        private final String type;
+        private final String runtime;
+        /**
+         * The name, link and size of the files used by a job
+         */
+        private final List<String[]> files = new ArrayList<>();
+        /**
+         * The refs of the parents of a child
+         */
+        private final List<String> parents = new ArrayList<>();
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            Log.printLine("Parsing Exception");
+        DaxElement(boolean job, String ref, String type, String runtime) {
+            this.job = job;
+            this.ref = ref;
+            this.type = type;
+            this.runtime = runtime;
+        }
+
+        void addFile(String name, String link, String size) {
+            files.add(new String[]{name, link, size});
+        }
+
+        void addParent(String ref) {
+            parents.add(ref);
         }
     }
 }
@@ -20,6 +20,7 @@ import org.apache.commons.math3.distribution.LogNormalDistribution;
 import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.distribution.RealDistribution;
 import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
 import org.apache.commons.math3.distribution.WeibullDistribution;
@@ -40,8 +41,17 @@ public class FailureGenerator {
      * is too high for this workflow
      */
     private static final int maxFailureSizeExtension = 1000;
-    private static int failureSizeExtension = 0;
     private static final boolean hasChangeTime = false;
+
+    /**
+     * The number of sample extensions of a simulation, kept in its
+     * SimulationContext
+     */
+    private static final class Extensions {
+
+        private int failureSizeExtension = 0;
+    }
+
     /**
      *
      * @param alpha
@@ -118,32 +128,30 @@ public class FailureGenerator {
         double end = task.getTaskFinishTime();
         
         
-        double[] samples = generator.getCumulativeSamples();
-        
-        while (samples[samples.length - 1] < start) {
+        while (generator.getLastCumulativeSample() < start) {
             generator.extendSamples();
-            samples = generator.getCumulativeSamples();
-            failureSizeExtension++;
-            if (failureSizeExtension >= maxFailureSizeExtension) {
+            Extensions extensions = SimulationContext.current().getState(Extensions.class, Extensions::new);
+            extensions.failureSizeExtension++;
+            if (extensions.failureSizeExtension >= maxFailureSizeExtension) {
                 throw new Exception("Error rate is too high such that the simulator terminates");
 
             }
         }
 
-        for (int sampleId = 0; sampleId < samples.length; sampleId++) {
-            if (end < samples[sampleId]) {
-                //no failure
-                return false;
-            }
-            if (start <= samples[sampleId]) {
-                //has a failure
-                /** The idea is we need to update the cursor in generator**/
-                generator.getNextSample();
-                return true;
-            }
+        /**
+         * The first failure at or after the start of the task decides, unless
+         * a failure after its end comes first
+         */
+        int sampleId = end >= start ? generator.findCumulativeSample(start, false)
+                : generator.findCumulativeSample(end, true);
+        if (sampleId < 0 || end < generator.getCumulativeSample(sampleId)) {
+            //no failure
+            return false;
         }
-
-        return false;
+        //has a failure
+        /** The idea is we need to update the cursor in generator**/
+        generator.getNextSample();
+        return true;
     }
 
     /**
@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 /**
  * FailureMonitor collects failure information
@@ -31,21 +32,27 @@ import org.cloudbus.cloudsim.Log;
 public class FailureMonitor {
 
     /**
-     * VM ID to a Failure Record. *
+     * The failure records of a simulation, kept in its SimulationContext
      */
-    protected static Map<Integer, List<FailureRecord>> vm2record;
-    /**
-     * Type to a Failure Record. *
-     */
-    protected static Map<Integer, List<FailureRecord>> type2record;
-    /**
-     * JobID to a Failure Record. *
-     */
-    protected static Map<Integer, FailureRecord> jobid2record;
-    /**
-     * All the record list.
-     */
-    protected static List<FailureRecord> recordList;
+    protected static final class State {
+
+        /**
+         * VM ID to a Failure Record. *
+         */
+        protected Map<Integer, List<FailureRecord>> vm2record;
+        /**
+         * Type to a Failure Record. *
+         */
+        protected Map<Integer, List<FailureRecord>> type2record;
+        /**
+         * JobID to a Failure Record. *
+         */
+        protected Map<Integer, FailureRecord> jobid2record;
+        /**
+         * All the record list.
+         */
+        protected List<FailureRecord> recordList;
+    }
     /**
      * Id to a Job.
      */
@@ -55,10 +62,20 @@ public class FailureMonitor {
      * Initialize a FailureMonitor object.
      */
     public static void init() {
-        vm2record = new HashMap<>();
-        type2record = new HashMap<>();
-        jobid2record = new HashMap<>();
-        recordList = new ArrayList<>();
+        State state = state();
+        state.vm2record = new HashMap<>();
+        state.type2record = new HashMap<>();
+        state.jobid2record = new HashMap<>();
+        state.recordList = new ArrayList<>();
+    }
+
+    /**
+     * Gets the failure records of the current simulation context
+     *
+     * @return the failure records
+     */
+    protected static State state() {
+        return SimulationContext.current().getState(State.class, State::new);
     }
 
     /**
@@ -118,6 +135,7 @@ public class FailureMonitor {
      * @param record a failure record
      */
     public static void postFailureRecord(FailureRecord record) {
+        State state = state();
 
         if (record.workflowId < 0 || record.jobId < 0 || record.vmId < 0) {
             Log.printLine("Error in receiving failure record");
@@ -127,25 +145,25 @@ public class FailureMonitor {
         switch (FailureParameters.getMonitorMode()) {
             case MONITOR_VM:
 
-                if (!vm2record.containsKey(record.vmId)) {
-                    vm2record.put(record.vmId, new ArrayList<>());
+                if (!state.vm2record.containsKey(record.vmId)) {
+                    state.vm2record.put(record.vmId, new ArrayList<>());
                 }
-                vm2record.get(record.vmId).add(record);
+                state.vm2record.get(record.vmId).add(record);
 
                 break;
             case MONITOR_JOB:
 
-                if (!type2record.containsKey(record.depth)) {
-                    type2record.put(record.depth, new ArrayList<>());
+                if (!state.type2record.containsKey(record.depth)) {
+                    state.type2record.put(record.depth, new ArrayList<>());
                 }
-                type2record.get(record.depth).add(record);
+                state.type2record.get(record.depth).add(record);
 
                 break;
             case MONITOR_NONE:
                 break;
         }
 
-        recordList.add(record);
+        state.recordList.add(record);
     }
 
     /**
@@ -156,6 +174,7 @@ public class FailureMonitor {
      * @return task failure rate
      */
     public static double analyze(int workflowId, int type) {
+        State state = state();
 
         /**
          * workflow level : all jobs together *
@@ -165,7 +184,7 @@ public class FailureMonitor {
         switch (FailureParameters.getMonitorMode()) {
             case MONITOR_ALL:
 
-                for (FailureRecord record : recordList) {
+                for (FailureRecord record : state.recordList) {
                     sumFailures += record.failedTasksNum;
                     sumJobs += record.allTaskNum;
                 }
@@ -174,8 +193,8 @@ public class FailureMonitor {
 
             case MONITOR_JOB:
 
-                if (type2record.containsKey(type)) {
-                    for (FailureRecord record : type2record.get(type)) {
+                if (state.type2record.containsKey(type)) {
+                    for (FailureRecord record : state.type2record.get(type)) {
 
                         sumFailures += record.failedTasksNum;
                         sumJobs += record.allTaskNum;
@@ -185,8 +204,8 @@ public class FailureMonitor {
                 break;
             case MONITOR_VM:
 
-                if (vm2record.containsKey(type)) {
-                    for (FailureRecord record : vm2record.get(type)) {
+                if (state.vm2record.containsKey(type)) {
+                    for (FailureRecord record : state.vm2record.get(type)) {
 
                         sumFailures += record.failedTasksNum;
                         sumJobs += record.allTaskNum;
@@ -18,6 +18,7 @@
 package org.workflowsim.failure;
 
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.utils.DistributionGenerator;
 import org.workflowsim.utils.DistributionGenerator.DistributionFamily;
 
@@ -27,15 +28,6 @@ import org.workflowsim.utils.DistributionGenerator.DistributionFamily;
  */
 public class FailureParameters {
 
-    /**
-     * Task Failure Rate 
-     * first index is vmId ;second index is task depth
-     * If FAILURE_JOB is specified first index is 0 only
-     * If FAILURE_VM is specified second index is 0 only
-     *
-     * @pre 0.0<= value <= 1.0
-     */
-    private static DistributionGenerator[][] generators;
     /**
      * Fault Tolerant Clustering algorithm
      */
@@ -62,27 +54,70 @@ public class FailureParameters {
     }
 
     /**
-     * Fault Tolerant Clustering method
-     */
-    private static FTCluteringAlgorithm FTClusteringAlgorithm = FTCluteringAlgorithm.FTCLUSTERING_NOOP;
-    /**
-     * Fault Tolerant Clustering monitor mode
-     */
-    private static FTCMonitor monitorMode = FTCMonitor.MONITOR_NONE;
-    /**
-     * Fault Tolerant Clustering failure generation mode
+     * The failure parameters of a simulation, kept in its SimulationContext
      */
-    private static FTCFailure failureMode = FTCFailure.FAILURE_NONE;
-    
+    private static final class State {
+
+        /**
+         * Task Failure Rate 
+         * first index is vmId ;second index is task depth
+         * If FAILURE_JOB is specified first index is 0 only
+         * If FAILURE_VM is specified second index is 0 only
+         *
+         * @pre 0.0<= value <= 1.0
+         */
+        private DistributionGenerator[][] generators;
+        /**
+         * Creates the missing generators on first use, if set
+         */
+        private GeneratorFactory generatorFactory;
+        /**
+         * Fault Tolerant Clustering method
+         */
+        private FTCluteringAlgorithm FTClusteringAlgorithm = FTCluteringAlgorithm.FTCLUSTERING_NOOP;
+        /**
+         * Fault Tolerant Clustering monitor mode
+         */
+        private FTCMonitor monitorMode = FTCMonitor.MONITOR_NONE;
+        /**
+         * Fault Tolerant Clustering failure generation mode
+         */
+        private FTCFailure failureMode = FTCFailure.FAILURE_NONE;
+
+        /**
+         * The distribution of the failure 
+         */
+        private DistributionFamily distribution = DistributionFamily.WEIBULL;
+    }
     /**
-     * The distribution of the failure 
+     * Creates the failure generator of a vm and a task depth
      */
-    private static DistributionFamily distribution = DistributionFamily.WEIBULL;
+    public interface GeneratorFactory {
+
+        /**
+         * Creates a failure generator
+         *
+         * @param vmIndex vm Index
+         * @param taskDepth task depth
+         * @return the generator
+         */
+        DistributionGenerator create(int vmIndex, int taskDepth);
+    }
+
     /**
      * Invalid return value
      */
     private static final int INVALID = -1;
 
+    /**
+     * Gets the failure parameters of the current simulation context
+     *
+     * @return the failure parameters
+     */
+    private static State state() {
+        return SimulationContext.current().getState(State.class, State::new);
+    }
+
     /**
      * 
      *  Init a FailureParameters
@@ -94,10 +129,31 @@ public class FailureParameters {
      */
     public static void init(FTCluteringAlgorithm fMethod, FTCMonitor monitor, 
             FTCFailure failure, DistributionGenerator[][] failureGenerators) {
-        FTClusteringAlgorithm = fMethod;
-        monitorMode = monitor;
-        failureMode = failure;
-        generators = failureGenerators;
+        State state = state();
+        state.FTClusteringAlgorithm = fMethod;
+        state.monitorMode = monitor;
+        state.failureMode = failure;
+        state.generators = failureGenerators;
+        state.generatorFactory = null;
+    }
+
+    /**
+     * 
+     * Init a FailureParameters whose generators are created on first use, so
+     * that only the generators of the vms and depths that run tasks are
+     * created. It suits FAILURE_VM_JOB with many vms.
+     * 
+     * @param fMethod Fault Tolerant Clustering Algorithm
+     * @param monitor Fault Tolerant Clustering Monitor mode
+     * @param failure Failure generator mode
+     * @param vmNum the number of vm indexes
+     * @param depthNum the number of task depths
+     * @param factory creates the generators
+     */
+    public static void init(FTCluteringAlgorithm fMethod, FTCMonitor monitor,
+            FTCFailure failure, int vmNum, int depthNum, GeneratorFactory factory) {
+        init(fMethod, monitor, failure, new DistributionGenerator[vmNum][depthNum]);
+        state().generatorFactory = factory;
     }
 
     /**
@@ -112,21 +168,23 @@ public class FailureParameters {
     public static void init(FTCluteringAlgorithm fMethod, FTCMonitor monitor, 
             FTCFailure failure, DistributionGenerator[][] failureGenerators, 
             DistributionFamily dist) {
-        distribution = dist;
+        state().distribution = dist;
         init(fMethod, monitor, failure, failureGenerators);
     }
     /**
-     * Gets the task failure rate
+     * Gets the task failure rate. The generators created on first use are
+     * null until then.
      *
      * @return the task failure rate
      * @pre $none
      * @post $none
      */
     public static DistributionGenerator[][] getFailureGenerators() {
-        if(generators==null){
+        State state = state();
+        if(state.generators==null){
             Log.printLine("ERROR: alpha is not initialized");
         }
-        return generators;
+        return state.generators;
     }
     
     /**
@@ -134,11 +192,12 @@ public class FailureParameters {
      * @return max
      */
     public static int getFailureGeneratorsMaxFirstIndex(){
-        if(generators==null || generators.length == 0){
+        State state = state();
+        if(state.generators==null || state.generators.length == 0){
             Log.printLine("ERROR: alpha is not initialized");
             return INVALID;
         }
-        return generators.length;
+        return state.generators.length;
     }
     
     /**
@@ -146,24 +205,32 @@ public class FailureParameters {
      * @return max
      */
     public static int getFailureGeneratorsMaxSecondIndex(){
+        State state = state();
         //Test whether it is valid
         getFailureGeneratorsMaxFirstIndex();
-        if(generators[0]==null || generators[0].length == 0){
+        if(state.generators[0]==null || state.generators[0].length == 0){
             Log.printLine("ERROR: alpha is not initialized");
             return INVALID;
         }
-        return generators[0].length;
+        return state.generators[0].length;
     }
     
 
     /**
-     * Gets the task failure rate
+     * Gets the task failure rate, creating its generator if it is created on
+     * first use
      * @param vmIndex vm Index
      * @param taskDepth task depth
      * @return task failure rate
      */
     public static DistributionGenerator getGenerator(int vmIndex, int taskDepth) {
-        return generators[vmIndex][taskDepth];
+        State state = state();
+        DistributionGenerator generator = state.generators[vmIndex][taskDepth];
+        if (generator == null && state.generatorFactory != null) {
+            generator = state.generatorFactory.create(vmIndex, taskDepth);
+            state.generators[vmIndex][taskDepth] = generator;
+        }
+        return generator;
     }
     
     /**
@@ -174,7 +241,7 @@ public class FailureParameters {
      * @post $none
      */
     public static FTCFailure getFailureGeneratorMode() {
-        return failureMode;
+        return state().failureMode;
     }
 
     /**
@@ -185,7 +252,7 @@ public class FailureParameters {
      * @post $none
      */
     public static FTCMonitor getMonitorMode() {
-        return monitorMode;
+        return state().monitorMode;
     }
 
     /**
@@ -196,7 +263,7 @@ public class FailureParameters {
      * @post $none
      */
     public static FTCluteringAlgorithm getFTCluteringAlgorithm() {
-        return FTClusteringAlgorithm;
+        return state().FTClusteringAlgorithm;
     }
     
     /**
@@ -204,6 +271,6 @@ public class FailureParameters {
      * @return distribution
      */
     public static DistributionFamily getFailureDistribution(){
-        return distribution;
+        return state().distribution;
     }
 }
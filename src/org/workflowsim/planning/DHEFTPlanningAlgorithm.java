@@ -58,9 +58,11 @@ public class DHEFTPlanningAlgorithm extends BasePlanningAlgorithm {
         
         int vmNum = getVmList().size();
         int taskNum = getTaskList().size();
-        double [] availableTime = new double[vmNum];
+        ProcessorSchedule [] schedules = new ProcessorSchedule[vmNum];
+        for(int i = 0; i < vmNum; i++){
+            schedules[i] = new ProcessorSchedule();
+        }
         //cloudlet id starts from 1
-        double [][] earliestStartTime = new double[taskNum + 1][vmNum];
         double [][] earliestFinishTime = new double[taskNum + 1][vmNum];
         int [] allocation = new int[taskNum + 1];
         
@@ -103,34 +105,38 @@ public class DHEFTPlanningAlgorithm extends BasePlanningAlgorithm {
                 
                 double minTime = Double.MAX_VALUE;
                 int minTimeIndex = 0;
+                double minReadyTime = 0.0;
                 
-                for(int vmIndex = 0; vmIndex < getVmList().size(); vmIndex++){
-                    ContainerPod vm = (ContainerPod)getVmList().get(vmIndex);
-                    double startTime = availableTime[vm.getId()];
+                //the vms are numbered by their position in the vm list
+                for(int vmIndex = 0; vmIndex < vmNum; vmIndex++){
+                    ContainerPod vm = vmList.get(vmIndex);
+                    double readyTime = 0.0;
                     parentIndex = 0;
                     for(Task parent: task.getParentList()){
-                        int allocatedVmId = allocation[parent.getCloudletId()];
-                        double actualFinishTime = earliestFinishTime[parent.getCloudletId()][allocatedVmId];
-                        double communicationTime = fileSizes[parentIndex] / bandwidths[allocatedVmId][vm.getId()];
+                        int allocatedVmIndex = allocation[parent.getCloudletId()];
+                        double actualFinishTime = earliestFinishTime[parent.getCloudletId()][allocatedVmIndex];
+                        double communicationTime = fileSizes[parentIndex] / bandwidths[allocatedVmIndex][vmIndex];
                         
-                        if(actualFinishTime + communicationTime > startTime){
-                            startTime = actualFinishTime + communicationTime;
+                        if(actualFinishTime + communicationTime > readyTime){
+                            readyTime = actualFinishTime + communicationTime;
                         }
                         parentIndex ++;
                     }
-                    earliestStartTime[task.getCloudletId()][vm.getId()] = startTime;
                     double runtime = task.getCloudletLength() / vm.getMips();
-                    earliestFinishTime[task.getCloudletId()][vm.getId()] = runtime + startTime;
+                    //the earliest slot of the vm not before the ready time
+                    double finishTime = schedules[vmIndex].findFinishTime(readyTime, runtime);
+                    earliestFinishTime[task.getCloudletId()][vmIndex] = finishTime;
                     
-                    if(runtime + startTime < minTime){
-                        minTime = runtime + startTime;
+                    if(finishTime < minTime){
+                        minTime = finishTime;
                         minTimeIndex = vmIndex;
+                        minReadyTime = readyTime;
                     }
                 }
                 
-                allocation[task.getCloudletId()] = minTimeIndex;//we do not really need it use task.getVmId
-                task.setVmId(minTimeIndex);
-                availableTime[minTimeIndex] = minTime;
+                allocation[task.getCloudletId()] = minTimeIndex;
+                task.setVmId(vmList.get(minTimeIndex).getId());
+                schedules[minTimeIndex].occupy(minReadyTime, task.getCloudletLength() / vmList.get(minTimeIndex).getMips());
             }
         }
         
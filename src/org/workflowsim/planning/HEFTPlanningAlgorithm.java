@@ -16,10 +16,13 @@
 package org.workflowsim.planning;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import org.cloudbus.cloudsim.*;
 import org.cloudbus.cloudsim.container.core.Container;
@@ -30,55 +33,54 @@ import org.workflowsim.utils.Parameters;
 
 /**
  * The HEFT planning algorithm.
+ * <p>
+ * The tasks and the vms are numbered by their position in the task list and
+ * the vm list, and the costs are kept in arrays indexed by these numbers: the
+ * computation costs as a task by vm matrix, and the transfer costs by edge,
+ * the edges of each task being stored one after the other. The computation
+ * costs and the ranks of each level of the workflow, counted from the exit
+ * tasks, are computed in parallel.
  *
  * @author Pedro Paulo Vezzá Campos
  * @date Oct 12, 2013
  */
 public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
 
-    private Map<Task, Map<ContainerPod, Double>> computationCosts;
+    /**
+     * The smallest number of tasks computed in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private List<Task> tasks;
+    private Map<Task, Integer> taskIndexes;
+    private ContainerPod[] vms;
+    /**
+     * The time to compute task t in vm v, at t * vms.length + v.
+     */
+    private double[] computationCosts;
     private Map<Task, Map<Container, Double>> computationCostsInContainer;
-    private Map<Task, Map<Task, Double>> transferCosts;
-    private Map<Task, Double> rank;
-    private Map<ContainerPod, List<Event>> schedules;
-    private Map<Container, List<Event>> schedulersInContainer;
-    private Map<Task, Double> earliestFinishTimes;
+    /**
+     * The children of task t, and the time to transfer the files of t to
+     * each one, from childOffsets[t] to childOffsets[t + 1].
+     */
+    private int[] childOffsets;
+    private int[] children;
+    private double[] childTransferCosts;
+    /**
+     * The parents of task t, and the time to transfer the files of each one to
+     * t, from parentOffsets[t] to parentOffsets[t + 1].
+     */
+    private int[] parentOffsets;
+    private int[] parents;
+    private double[] parentTransferCosts;
+    private double[] rank;
+    private ProcessorSchedule[] schedules;
+    private Map<Container, ProcessorSchedule> schedulersInContainer;
+    private double[] earliestFinishTimes;
     private double averageBandwidth;
 
-    private class Event {
-
-        public double start;
-        public double finish;
-
-        public Event(double start, double finish) {
-            this.start = start;
-            this.finish = finish;
-        }
-    }
-
-    private class TaskRank implements Comparable<TaskRank> {
-
-        public Task task;
-        public Double rank;
-
-        public TaskRank(Task task, Double rank) {
-            this.task = task;
-            this.rank = rank;
-        }
-
-        @Override
-        public int compareTo(TaskRank o) {
-            return o.rank.compareTo(rank);
-        }
-    }
-
     public HEFTPlanningAlgorithm() {
-        computationCosts = new HashMap<>();
         computationCostsInContainer = new HashMap<>();
-        transferCosts = new HashMap<>();
-        rank = new HashMap<>();
-        earliestFinishTimes = new HashMap<>();
-        schedules = new HashMap<>();
     }
 
     /**
@@ -91,9 +93,16 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
 
         averageBandwidth = calculateAverageBandwidth();
 
-        for (Object vmObject : getVmList()) {
-            ContainerPod vm = (ContainerPod) vmObject;
-            schedules.put(vm, new ArrayList<>());
+        tasks = getTaskList();
+        taskIndexes = new HashMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            taskIndexes.put(tasks.get(i), i);
+        }
+        vms = new ContainerPod[getVmList().size()];
+        schedules = new ProcessorSchedule[vms.length];
+        for (int i = 0; i < vms.length; i++) {
+            vms[i] = (ContainerPod) getVmList().get(i);
+            schedules[i] = new ProcessorSchedule();
         }
 
         // Prioritization phase
@@ -138,18 +147,34 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
      * a task in a vm.
      */
     private void calculateComputationCosts() {
-        for (Task task : getTaskList()) {
-            Map<ContainerPod, Double> costsVm = new HashMap<>();
-            for (Object vmObject : getVmList()) {
-                ContainerPod vm = (ContainerPod) vmObject;
-                if (vm.getNumberOfPes() < task.getNumberOfPes()) {
-                    costsVm.put(vm, Double.MAX_VALUE);
+        computationCosts = new double[tasks.size() * vms.length];
+        forEachTask(0, tasks.size(), t -> {
+            Task task = tasks.get(t);
+            for (int v = 0; v < vms.length; v++) {
+                if (vms[v].getNumberOfPes() < task.getNumberOfPes()) {
+                    computationCosts[t * vms.length + v] = Double.MAX_VALUE;
                 } else {
-                    costsVm.put(vm,
-                            task.getCloudletTotalLength() / vm.getMips());
+                    computationCosts[t * vms.length + v] = task.getCloudletTotalLength() / vms[v].getMips();
                 }
             }
-            computationCosts.put(task, costsVm);
+        });
+    }
+
+    /**
+     * Runs an action on the tasks from one position to another of the task
+     * list, in parallel if they are many.
+     *
+     * @param from the first position
+     * @param to the position after the last one
+     * @param action the action, given the position of a task
+     */
+    private void forEachTask(int from, int to, IntConsumer action) {
+        if (to - from >= PARALLEL_THRESHOLD) {
+            IntStream.range(from, to).parallel().forEach(action);
+        } else {
+            for (int i = from; i < to; i++) {
+                action.accept(i);
+            }
         }
     }
 
@@ -173,24 +198,55 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
     }
 
     /**
-     * Populates the transferCosts map with the time in seconds to transfer all
-     * files from each parent to each child
+     * Populates the transfer costs of the edges with the time in seconds to
+     * transfer all files from each parent to each child. A task which is not
+     * in the child list of its parent is given no transfer cost.
      */
     private void calculateTransferCosts() {
-        // Initializing the matrix
-        for (Task task1 : getTaskList()) {
-            Map<Task, Double> taskTransferCosts = new HashMap<>();
-            for (Task task2 : getTaskList()) {
-                taskTransferCosts.put(task2, 0.0);
+        // the input files of each task, for the hash joins
+        List<Map<String, Double>> inputFiles = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            Map<String, Double> sizes = new HashMap<>();
+            for (FileItem file : task.getFileList()) {
+                if (file.getType() == Parameters.FileType.INPUT) {
+                    sizes.putIfAbsent(file.getName(), file.getSize());
+                }
             }
-            transferCosts.put(task1, taskTransferCosts);
+            inputFiles.add(sizes);
         }
 
-        // Calculating the actual values
-        for (Task parent : getTaskList()) {
+        childOffsets = new int[tasks.size() + 1];
+        parentOffsets = new int[tasks.size() + 1];
+        for (int t = 0; t < tasks.size(); t++) {
+            childOffsets[t + 1] = childOffsets[t] + tasks.get(t).getChildList().size();
+            parentOffsets[t + 1] = parentOffsets[t] + tasks.get(t).getParentList().size();
+        }
+        children = new int[childOffsets[tasks.size()]];
+        childTransferCosts = new double[children.length];
+        for (int t = 0; t < tasks.size(); t++) {
+            Task parent = tasks.get(t);
+            int edge = childOffsets[t];
             for (Task child : parent.getChildList()) {
-                transferCosts.get(parent).put(child,
-                        calculateTransferCost(parent, child));
+                children[edge] = taskIndexes.get(child);
+                childTransferCosts[edge] = calculateTransferCost(parent, inputFiles.get(children[edge]));
+                edge++;
+            }
+        }
+
+        parents = new int[parentOffsets[tasks.size()]];
+        parentTransferCosts = new double[parents.length];
+        for (int t = 0; t < tasks.size(); t++) {
+            int edge = parentOffsets[t];
+            for (Task parent : tasks.get(t).getParentList()) {
+                int p = taskIndexes.get(parent);
+                parents[edge] = p;
+                for (int e = childOffsets[p]; e < childOffsets[p + 1]; e++) {
+                    if (children[e] == t) {
+                        parentTransferCosts[edge] = childTransferCosts[e];
+                        break;
+                    }
+                }
+                edge++;
             }
         }
     }
@@ -200,26 +256,21 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
      * between parent and child
      *
      * @param parent
-     * @param child
+     * @param childInputFiles the size of the first input file of the child
+     * of each name
      * @return Transfer cost in seconds
      */
-    private double calculateTransferCost(Task parent, Task child) {
-        List<FileItem> parentFiles = parent.getFileList();
-        List<FileItem> childFiles = child.getFileList();
-
+    private double calculateTransferCost(Task parent, Map<String, Double> childInputFiles) {
         double acc = 0.0;
 
-        for (FileItem parentFile : parentFiles) {
+        for (FileItem parentFile : parent.getFileList()) {
             if (parentFile.getType() != Parameters.FileType.OUTPUT) {
                 continue;
             }
 
-            for (FileItem childFile : childFiles) {
-                if (childFile.getType() == Parameters.FileType.INPUT
-                        && childFile.getName().equals(parentFile.getName())) {
-                    acc += childFile.getSize();
-                    break;
-                }
+            Double size = childInputFiles.get(parentFile.getName());
+            if (size != null) {
+                acc += size;
             }
         }
 
@@ -230,59 +281,110 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
     }
 
     /**
-     * Invokes calculateRank for each task to be scheduled
+     * Calculates the rank of each task as defined in the HEFT paper, level by
+     * level from the exit tasks, the tasks of a level in parallel.
      */
     private void calculateRanks() {
-        for (Task task : getTaskList()) {
-            calculateRank(task);
+        rank = new double[tasks.size()];
+
+        // the parents of each task by the child edges, as the ranks follow
+        // the child lists
+        int[] reverseOffsets = new int[tasks.size() + 1];
+        for (int child : children) {
+            reverseOffsets[child + 1]++;
+        }
+        for (int t = 0; t < tasks.size(); t++) {
+            reverseOffsets[t + 1] += reverseOffsets[t];
+        }
+        int[] reverseParents = new int[children.length];
+        int[] next = Arrays.copyOf(reverseOffsets, tasks.size());
+        for (int t = 0; t < tasks.size(); t++) {
+            for (int e = childOffsets[t]; e < childOffsets[t + 1]; e++) {
+                reverseParents[next[children[e]]++] = t;
+            }
+        }
+
+        // the tasks in the order their ranks can be computed, after the ones
+        // of their children, and where each level starts in that order
+        int[] order = new int[tasks.size()];
+        int[] levels = new int[tasks.size() + 1];
+        int[] remainingChildren = new int[tasks.size()];
+        int size = 0;
+        for (int t = 0; t < tasks.size(); t++) {
+            remainingChildren[t] = childOffsets[t + 1] - childOffsets[t];
+            if (remainingChildren[t] == 0) {
+                order[size++] = t;
+            }
+        }
+        int levelCount = 0;
+        int levelStart = 0;
+        while (levelStart < size) {
+            levels[levelCount++] = levelStart;
+            int levelEnd = size;
+            for (int i = levelStart; i < levelEnd; i++) {
+                int t = order[i];
+                for (int e = reverseOffsets[t]; e < reverseOffsets[t + 1]; e++) {
+                    if (--remainingChildren[reverseParents[e]] == 0) {
+                        order[size++] = reverseParents[e];
+                    }
+                }
+            }
+            levelStart = levelEnd;
+        }
+        levels[levelCount] = size;
+        if (size < tasks.size()) {
+            throw new IllegalArgumentException("The workflow has a cycle");
+        }
+
+        for (int level = 0; level < levelCount; level++) {
+            forEachTask(levels[level], levels[level + 1], i -> calculateRank(order[i]));
         }
     }
 
     /**
-     * Populates rank.get(task) with the rank of task as defined in the HEFT
-     * paper.
+     * Populates rank[task] with the rank of task as defined in the HEFT
+     * paper. The ranks of its children must have been calculated.
      *
      * @param task The task have the rank calculates
-     * @return The rank
      */
-    private double calculateRank(Task task) {
-        if (rank.containsKey(task)) {
-            return rank.get(task);
-        }
-
+    private void calculateRank(int task) {
         double averageComputationCost = 0.0;
 
-        for (Double cost : computationCosts.get(task).values()) {
-            averageComputationCost += cost;
+        for (int v = 0; v < vms.length; v++) {
+            averageComputationCost += computationCosts[task * vms.length + v];
         }
 
-        averageComputationCost /= computationCosts.get(task).size();
+        averageComputationCost /= vms.length;
 
         double max = 0.0;
-        for (Task child : task.getChildList()) {
-            double childCost = transferCosts.get(task).get(child)
-                    + calculateRank(child);
+        for (int e = childOffsets[task]; e < childOffsets[task + 1]; e++) {
+            double childCost = childTransferCosts[e] + rank[children[e]];
             max = Math.max(max, childCost);
         }
 
-        rank.put(task, averageComputationCost + max);
-
-        return rank.get(task);
+        rank[task] = averageComputationCost + max;
     }
 
     /**
-     * Allocates all tasks to be scheduled in non-ascending order of schedule.
+     * Allocates all tasks to be scheduled in non-ascending order of schedule,
+     * the tasks of the same rank in task list order.
      */
     private void allocateTasks() {
-        List<TaskRank> taskRank = new ArrayList<>();
-        for (Task task : rank.keySet()) {
-            taskRank.add(new TaskRank(task, rank.get(task)));
+        earliestFinishTimes = new double[tasks.size()];
+        Integer[] taskRank = new Integer[tasks.size()];
+        for (int t = 0; t < taskRank.length; t++) {
+            taskRank[t] = t;
         }
 
         // Sorting in non-ascending order of rank
-        Collections.sort(taskRank);
-        for (TaskRank rank : taskRank) {
-            allocateTask(rank.task);
+        Arrays.sort(taskRank, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(rank[b], rank[a]);
+            }
+        });
+        for (int task : taskRank) {
+            allocateTask(task);
         }
 
     }
@@ -291,40 +393,40 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
      * Schedules the task given in one of the VMs minimizing the earliest finish
      * time
      *
-     * @param task The task to be scheduled
+     * @param t The task to be scheduled
      * @pre All parent tasks are already scheduled
      */
-    private void allocateTask(Task task) {
-        ContainerPod chosenVM = null;
+    private void allocateTask(int t) {
+        Task task = tasks.get(t);
+        int chosenVM = -1;
         double earliestFinishTime = Double.MAX_VALUE;
         double bestReadyTime = 0.0;
         double finishTime;
 
-        for (Object vmObject : getVmList()) {
-            ContainerPod vm = (ContainerPod) vmObject;
+        for (int v = 0; v < vms.length; v++) {
             double minReadyTime = 0.0;
 
-            for (Task parent : task.getParentList()) {
-                double readyTime = earliestFinishTimes.get(parent);
-                if (parent.getVmId() != vm.getId()) {
-                    readyTime += transferCosts.get(parent).get(task);
+            for (int e = parentOffsets[t]; e < parentOffsets[t + 1]; e++) {
+                double readyTime = earliestFinishTimes[parents[e]];
+                if (tasks.get(parents[e]).getVmId() != vms[v].getId()) {
+                    readyTime += parentTransferCosts[e];
                 }
                 minReadyTime = Math.max(minReadyTime, readyTime);
             }
 
-            finishTime = findFinishTime(task, vm, minReadyTime, false);
+            finishTime = findFinishTime(t, v, minReadyTime, false);
 
             if (finishTime < earliestFinishTime) {
                 bestReadyTime = minReadyTime;
                 earliestFinishTime = finishTime;
-                chosenVM = vm;
+                chosenVM = v;
             }
         }
 
-        findFinishTime(task, chosenVM, bestReadyTime, true);
-        earliestFinishTimes.put(task, earliestFinishTime);
+        findFinishTime(t, chosenVM, bestReadyTime, true);
+        earliestFinishTimes[t] = earliestFinishTime;
 
-        task.setVmId(chosenVM.getId());
+        task.setVmId(vms[chosenVM].getId());
     }
 
     /**
@@ -333,83 +435,18 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
      * readyTime. If occupySlot is true, reserves the time slot in the schedule.
      *
      * @param task The task to have the time slot reserved
-     * @param vm The vm that will execute the task
+     * @param vm The vm that will execute the task, by its position
      * @param readyTime The first moment that the task is available to be
      * scheduled
      * @param occupySlot If true, reserves the time slot in the schedule.
      * @return The minimal finish time of the task in the vmn
      */
-    private double findFinishTime(Task task, ContainerPod vm, double readyTime,
+    private double findFinishTime(int task, int vm, double readyTime,
                                   boolean occupySlot) {
-        List<Event> sched = schedules.get(vm);
-        double computationCost = computationCosts.get(task).get(vm);
-        double start, finish;
-        int pos;
-
-        if (sched.isEmpty()) {
-            if (occupySlot) {
-                sched.add(new Event(readyTime, readyTime + computationCost));
-            }
-            return readyTime + computationCost;
-        }
-
-        if (sched.size() == 1) {
-            if (readyTime >= sched.get(0).finish) {
-                pos = 1;
-                start = readyTime;
-            } else if (readyTime + computationCost <= sched.get(0).start) {
-                pos = 0;
-                start = readyTime;
-            } else {
-                pos = 1;
-                start = sched.get(0).finish;
-            }
-
-            if (occupySlot) {
-                sched.add(pos, new Event(start, start + computationCost));
-            }
-            return start + computationCost;
-        }
-
-        // Trivial case: Start after the latest task scheduled
-        start = Math.max(readyTime, sched.get(sched.size() - 1).finish);
-        finish = start + computationCost;
-        int i = sched.size() - 1;
-        int j = sched.size() - 2;
-        pos = i + 1;
-        while (j >= 0) {
-            Event current = sched.get(i);
-            Event previous = sched.get(j);
-
-            if (readyTime > previous.finish) {
-                if (readyTime + computationCost <= current.start) {
-                    start = readyTime;
-                    finish = readyTime + computationCost;
-                }
-
-                break;
-            }
-            if (previous.finish + computationCost <= current.start) {
-                start = previous.finish;
-                finish = previous.finish + computationCost;
-                pos = i;
-            }
-            i--;
-            j--;
-        }
-
-        if (readyTime + computationCost <= sched.get(0).start) {
-            pos = 0;
-            start = readyTime;
-
-            if (occupySlot) {
-                sched.add(pos, new Event(start, start + computationCost));
-            }
-            return start + computationCost;
-        }
+        double computationCost = computationCosts[task * vms.length + vm];
         if (occupySlot) {
-            sched.add(pos, new Event(start, finish));
+            return schedules[vm].occupy(readyTime, computationCost);
         }
-        return finish;
+        return schedules[vm].findFinishTime(readyTime, computationCost);
     }
 }
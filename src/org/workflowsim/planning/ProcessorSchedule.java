@@ -0,0 +1,455 @@
+/**
+ * Copyright 2019-2020 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.util.Arrays;
+
+/**
+ * The schedule of a processor (a vm) for the insertion-based planners: the
+ * time slots taken by the tasks, in time order and without overlaps. It finds
+ * the earliest slot of a task not starting before its ready time, in the gap
+ * before the first slot, in a gap between two slots or after the last slot.
+ * <p>
+ * The slots are kept in time order in two arrays, and are also the nodes of a
+ * treap ordered by position. Each subtree knows its first start, its last
+ * finish and the longest gap between its slots, so the search skips the
+ * subtrees where the task does not fit and takes logarithmic time. The tasks
+ * of a planner mostly become ready near the end of the schedules, so the slots
+ * finished at the ready time are counted by a search of the arrays from the
+ * last slot. When the run of slots not finished is short, it is scanned in the
+ * arrays, which is faster than the search; a longer run is searched in the
+ * tree, which is only built when a search needs it and is dropped when more
+ * slots are taken without a search than it holds. The gaps are only used to
+ * skip subtrees, with a margin for rounding errors: a slot is taken when
+ * <tt>finish + duration &lt;= start</tt>, as the scans of the planners did.
+ *
+ * @since WorkflowSim Toolkit 1.0
+ */
+public class ProcessorSchedule {
+
+    private static final int NIL = -1;
+
+    /**
+     * The values of a node in {@link #times}: the start and the finish of its
+     * slot, and the first start, the last finish and the longest gap between
+     * the slots of its subtree.
+     */
+    private static final int START = 0;
+    private static final int FINISH = 1;
+    private static final int FIRST_START = 2;
+    private static final int LAST_FINISH = 3;
+    private static final int MAX_GAP = 4;
+    private static final int TIMES = 5;
+    /**
+     * The values of a node in {@link #links}: its children, the size of its
+     * subtree and its priority.
+     */
+    private static final int LEFT = 0;
+    private static final int RIGHT = 1;
+    private static final int SIZE = 2;
+    private static final int PRIORITY = 3;
+    private static final int LINKS = 4;
+    /**
+     * The longest run of slots not finished at the ready time which is scanned
+     * in the arrays instead of searched in the tree: the scan reads the arrays
+     * in order, so it is faster than the search over such runs.
+     */
+    private static final int SCAN_LIMIT = 512;
+
+    /**
+     * The number of slots.
+     */
+    private int size;
+    /**
+     * The values of the nodes, side by side so that a search reads few cache
+     * lines per node.
+     */
+    private double[] times = new double[16 * TIMES];
+    private int[] links = new int[16 * LINKS];
+    /**
+     * The root of the tree, NIL while the tree is not built.
+     */
+    private int root = NIL;
+    /**
+     * The number of slots taken since the tree was last searched.
+     */
+    private int insertsSinceSearch;
+    /**
+     * The starts and the finishes of the slots, in time order.
+     */
+    private double[] starts = new double[16];
+    private double[] finishes = new double[16];
+    /**
+     * The state of the priority generator, fixed so that the trees, and the
+     * time taken, are the same from run to run.
+     */
+    private int seed = 0x2545f491;
+    /**
+     * The position and the start of the slot found by the last search.
+     */
+    private int foundPosition;
+    private double foundStart;
+    /**
+     * The trees of a split.
+     */
+    private int splitLeft;
+    private int splitRight;
+
+    /**
+     * Gets the number of slots taken.
+     *
+     * @return the number of slots
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the start of a slot.
+     *
+     * @param position the position of the slot, in time order
+     * @return the start
+     */
+    public double getStart(int position) {
+        checkPosition(position);
+        return starts[position];
+    }
+
+    /**
+     * Gets the finish of a slot.
+     *
+     * @param position the position of the slot, in time order
+     * @return the finish
+     */
+    public double getFinish(int position) {
+        checkPosition(position);
+        return finishes[position];
+    }
+
+    /**
+     * Finds the earliest finish time of a task, without taking its slot.
+     *
+     * @param readyTime the first moment the task can start
+     * @param duration the time to compute the task
+     * @return the finish time
+     */
+    public double findFinishTime(double readyTime, double duration) {
+        find(readyTime, duration);
+        return foundStart + duration;
+    }
+
+    /**
+     * Takes the earliest slot of a task.
+     *
+     * @param readyTime the first moment the task can start
+     * @param duration the time to compute the task
+     * @return the finish time
+     */
+    public double occupy(double readyTime, double duration) {
+        find(readyTime, duration);
+        double finish = foundStart + duration;
+        if (size == starts.length) {
+            times = Arrays.copyOf(times, 2 * size * TIMES);
+            links = Arrays.copyOf(links, 2 * size * LINKS);
+            starts = Arrays.copyOf(starts, 2 * size);
+            finishes = Arrays.copyOf(finishes, 2 * size);
+        }
+        System.arraycopy(starts, foundPosition, starts, foundPosition + 1, size - foundPosition);
+        System.arraycopy(finishes, foundPosition, finishes, foundPosition + 1, size - foundPosition);
+        starts[foundPosition] = foundStart;
+        finishes[foundPosition] = finish;
+        size++;
+        if (root != NIL) {
+            if (++insertsSinceSearch > size) {
+                // the tree is not used, it is built again if a search needs it
+                root = NIL;
+            } else {
+                int node = size - 1;
+                initNode(node, foundStart, finish);
+                root = insert(root, foundPosition, node);
+            }
+        }
+        return finish;
+    }
+
+    /**
+     * Finds the earliest slot of a task, in foundPosition and foundStart.
+     */
+    private void find(double readyTime, double duration) {
+        double lastFinish = size == 0 ? 0.0 : finishes[size - 1];
+        if (size == 0 || readyTime >= lastFinish) {
+            // all the slots are finished at the ready time
+            foundPosition = size;
+            foundStart = readyTime;
+            return;
+        }
+        // the slots finished before the ready time come first
+        int finished = countFinishedBefore(readyTime);
+        if (readyTime + duration <= starts[finished]) {
+            foundPosition = finished;
+            foundStart = readyTime;
+            return;
+        }
+
+        int position;
+        if (size - finished <= SCAN_LIMIT) {
+            position = scan(finished, duration);
+        } else {
+            if (root == NIL) {
+                buildTree();
+            }
+            insertsSinceSearch = 0;
+            double margin = 2 * Math.ulp(2 * Math.max(Math.abs(lastFinish), Math.abs(duration)));
+            position = times[root * TIMES + MAX_GAP] < duration - margin ? -1
+                    : search(root, Double.NaN, 0, finished + 1, duration, margin);
+        }
+        if (position >= 0) {
+            foundPosition = position;
+            return;
+        }
+        foundPosition = size;
+        foundStart = lastFinish;
+    }
+
+    /**
+     * Counts the slots finished before a time, which is before the finish of
+     * the last slot. The slots do not overlap, so they are the first ones. The
+     * tasks mostly become ready near the end of the schedule, so the search
+     * gallops back from the last slot before it bisects.
+     */
+    private int countFinishedBefore(double time) {
+        int low = 0;
+        int high = size - 1;
+        for (int step = 1; high - step >= 0; step <<= 1) {
+            if (finishes[high - step] < time) {
+                low = high - step + 1;
+                break;
+            }
+            high -= step;
+        }
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (finishes[middle] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Scans the gaps after the slot at a position for the first one where the
+     * task fits.
+     *
+     * @return the position of the slot after the gap, or -1 if there is none;
+     * the start of the task is in foundStart
+     */
+    private int scan(int position, double duration) {
+        for (int i = position + 1; i < size; i++) {
+            if (finishes[i - 1] + duration <= starts[i]) {
+                foundStart = finishes[i - 1];
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Searches a subtree for the first gap where the task fits, between the
+     * slot at minPosition - 1 and the slot at minPosition or later.
+     *
+     * @param node the subtree
+     * @param previousFinish the finish of the slot before the subtree, NaN if
+     * there is none
+     * @param offset the position of the first slot of the subtree
+     * @param minPosition the position of the first slot after a gap searched
+     * @param duration the time to compute the task
+     * @param margin the margin for rounding errors
+     * @return the position of the slot after the gap, or -1 if there is none;
+     * the start of the task is in foundStart
+     */
+    private int search(int node, double previousFinish, int offset, int minPosition, double duration,
+            double margin) {
+        if (node == NIL || offset + links[node * LINKS + SIZE] <= minPosition) {
+            return -1;
+        }
+        int t = node * TIMES;
+        if (offset >= minPosition) {
+            double gap = times[t + MAX_GAP];
+            if (!Double.isNaN(previousFinish)) {
+                gap = Math.max(gap, times[t + FIRST_START] - previousFinish);
+            }
+            if (gap < duration - margin) {
+                return -1;
+            }
+        }
+
+        int left = links[node * LINKS + LEFT];
+        int position = search(left, previousFinish, offset, minPosition, duration, margin);
+        if (position >= 0) {
+            return position;
+        }
+        position = offset + sizeOf(left);
+        double before = left == NIL ? previousFinish : times[left * TIMES + LAST_FINISH];
+        if (position >= minPosition && !Double.isNaN(before) && before + duration <= times[t + START]) {
+            foundStart = before;
+            return position;
+        }
+        return search(links[node * LINKS + RIGHT], times[t + FINISH], position + 1, minPosition, duration,
+                margin);
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Slot " + position + " of " + size);
+        }
+    }
+
+    /**
+     * Builds the tree of the slots in linear time, the node of each slot
+     * being its position. It is a Cartesian tree of the priorities: the slots
+     * on the stack are the right spine of the tree built so far.
+     */
+    private void buildTree() {
+        int[] stack = new int[size];
+        int top = 0;
+        for (int node = 0; node < size; node++) {
+            initNode(node, starts[node], finishes[node]);
+            int priority = links[node * LINKS + PRIORITY];
+            int left = NIL;
+            while (top > 0 && links[stack[top - 1] * LINKS + PRIORITY] < priority) {
+                left = stack[--top];
+            }
+            links[node * LINKS + LEFT] = left;
+            if (top > 0) {
+                links[stack[top - 1] * LINKS + RIGHT] = node;
+            }
+            stack[top++] = node;
+        }
+        root = stack[0];
+        updateSubtree(root);
+    }
+
+    /**
+     * Updates the nodes of a subtree, children first.
+     */
+    private void updateSubtree(int node) {
+        if (node == NIL) {
+            return;
+        }
+        updateSubtree(links[node * LINKS + LEFT]);
+        updateSubtree(links[node * LINKS + RIGHT]);
+        update(node);
+    }
+
+    /**
+     * Sets the slot of a node, with no children and a new priority.
+     */
+    private void initNode(int node, double start, double finish) {
+        times[node * TIMES + START] = start;
+        times[node * TIMES + FINISH] = finish;
+        links[node * LINKS + LEFT] = NIL;
+        links[node * LINKS + RIGHT] = NIL;
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        links[node * LINKS + PRIORITY] = seed;
+        update(node);
+    }
+
+    /**
+     * Inserts a node at a position of a subtree.
+     *
+     * @return the new root of the subtree
+     */
+    private int insert(int node, int position, int newNode) {
+        if (node == NIL) {
+            return newNode;
+        }
+        if (links[newNode * LINKS + PRIORITY] > links[node * LINKS + PRIORITY]) {
+            split(node, position);
+            links[newNode * LINKS + LEFT] = splitLeft;
+            links[newNode * LINKS + RIGHT] = splitRight;
+            update(newNode);
+            return newNode;
+        }
+        int leftSize = sizeOf(links[node * LINKS + LEFT]);
+        if (position <= leftSize) {
+            links[node * LINKS + LEFT] = insert(links[node * LINKS + LEFT], position, newNode);
+        } else {
+            links[node * LINKS + RIGHT] = insert(links[node * LINKS + RIGHT], position - leftSize - 1, newNode);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Splits a subtree into its first slots, in splitLeft, and the others, in
+     * splitRight.
+     */
+    private void split(int node, int position) {
+        if (node == NIL) {
+            splitLeft = NIL;
+            splitRight = NIL;
+            return;
+        }
+        int leftSize = sizeOf(links[node * LINKS + LEFT]);
+        if (position <= leftSize) {
+            split(links[node * LINKS + LEFT], position);
+            links[node * LINKS + LEFT] = splitRight;
+            update(node);
+            splitRight = node;
+        } else {
+            split(links[node * LINKS + RIGHT], position - leftSize - 1);
+            links[node * LINKS + RIGHT] = splitLeft;
+            update(node);
+            splitLeft = node;
+        }
+    }
+
+    private int sizeOf(int node) {
+        return node == NIL ? 0 : links[node * LINKS + SIZE];
+    }
+
+    /**
+     * Computes the size, the first start, the last finish and the longest gap
+     * of the subtree of a node from the ones of its children.
+     */
+    private void update(int node) {
+        int left = links[node * LINKS + LEFT];
+        int right = links[node * LINKS + RIGHT];
+        int t = node * TIMES;
+        int size = 1;
+        double gap = Double.NEGATIVE_INFINITY;
+        times[t + FIRST_START] = times[t + START];
+        times[t + LAST_FINISH] = times[t + FINISH];
+        if (left != NIL) {
+            int l = left * TIMES;
+            size += links[left * LINKS + SIZE];
+            times[t + FIRST_START] = times[l + FIRST_START];
+            gap = Math.max(times[l + MAX_GAP], times[t + START] - times[l + LAST_FINISH]);
+        }
+        if (right != NIL) {
+            int r = right * TIMES;
+            size += links[right * LINKS + SIZE];
+            times[t + LAST_FINISH] = times[r + LAST_FINISH];
+            gap = Math.max(gap, Math.max(times[r + MAX_GAP], times[r + FIRST_START] - times[t + FINISH]));
+        }
+        links[node * LINKS + SIZE] = size;
+        times[t + MAX_GAP] = gap;
+    }
+}
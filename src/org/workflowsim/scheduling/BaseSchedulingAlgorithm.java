@@ -16,9 +16,13 @@
 package org.workflowsim.scheduling;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.container.core.ContainerPod;
+import org.workflowsim.WorkflowSimTags;
 
 /**
  * The base scheduler has implemented the basic features. Every other scheduling method
@@ -42,6 +46,10 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
      * the scheduled job list.
      */
     private List< Cloudlet> scheduledList;
+    /**
+     * the index of the idle resources.
+     */
+    private IdleResourceIndex idleIndex;
 
     /**
      * Initialize a BaseSchedulingAlgorithm
@@ -61,13 +69,13 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
     }
 
     /**
-     * Sets the vm list
+     * Sets the vm list, as a read-only view of the given list
      *
      * @param list
      */
     @Override
-    public void setVmList(List list) {
-        this.vmList = new ArrayList(list);
+    public void setVmList(List<? extends ContainerPod> list) {
+        this.vmList = Collections.unmodifiableList(list);
     }
 
     /**
@@ -86,7 +94,7 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
      * @return the vm list
      */
     @Override
-    public List getVmList() {
+    public List<? extends ContainerPod> getVmList() {
         return this.vmList;
     }
 
@@ -103,7 +111,71 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
      * @return job list
      */
     @Override
-    public List getScheduledList() {
+    public List<Cloudlet> getScheduledList() {
         return this.scheduledList;
     }
+
+    /**
+     * Clears the scheduled job list, so that the algorithm can be run again
+     * on the jobs of the next round
+     */
+    public void clearScheduledList() {
+        this.scheduledList.clear();
+    }
+
+    /**
+     * Gets the index of the idle resources, cleared. The algorithm keeps one
+     * index for all its rounds.
+     *
+     * @return the index
+     */
+    protected IdleResourceIndex getIdleIndex() {
+        if (this.idleIndex == null) {
+            this.idleIndex = new IdleResourceIndex();
+        }
+        this.idleIndex.clear();
+        return this.idleIndex;
+    }
+
+    /**
+     * Indexes the pods of the vm list, by their position in the list
+     *
+     * @return the index of the idle pods
+     */
+    protected IdleResourceIndex indexIdlePods() {
+        IdleResourceIndex index = getIdleIndex();
+        for (ContainerPod vm : getVmList()) {
+            index.add(vm.getCurrentRequestedTotalMips(), vm.getState() == WorkflowSimTags.VM_STATUS_IDLE);
+        }
+        return index;
+    }
+
+    /**
+     * Gets the positions of the jobs in the job list ordered by length, the
+     * jobs of the same length in list order
+     *
+     * @param longestFirst whether the longest jobs come first
+     * @return the positions
+     */
+    protected int[] getCloudletOrderByLength(final boolean longestFirst) {
+        final List<? extends Cloudlet> list = this.cloudletList;
+        final long[] lengths = new long[list.size()];
+        Integer[] positions = new Integer[lengths.length];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = list.get(i).getCloudletLength();
+            positions[i] = i;
+        }
+        // a stable sort, so the jobs of the same length stay in list order
+        Arrays.sort(positions, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return longestFirst ? Long.compare(lengths[b], lengths[a]) : Long.compare(lengths[a], lengths[b]);
+            }
+        });
+        int[] order = new int[positions.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = positions[i];
+        }
+        return order;
+    }
 }
@@ -41,28 +41,27 @@ public class DataAwareSchedulingAlgorithm extends BaseSchedulingAlgorithm {
     public void run() {
         
         int size = getCloudletList().size();
+        IdleResourceIndex idleVms = indexIdlePods();
 
-        for (int i = 0; i < size; i++) {
+        for (int i = 0; i < size && !idleVms.isEmpty(); i++) {
 
             Cloudlet cloudlet = (Cloudlet) getCloudletList().get(i);
 
-            int vmSize = getVmList().size();
-            ContainerPod closestVm = null;//(CondorPod)getVmList().get(0);
+            int closestPosition = -1;
             double minTime = Double.MAX_VALUE;
-            for (int j = 0; j < vmSize; j++) {
+            for (int j = idleVms.getFirst(); j >= 0; j = idleVms.getNext(j)) {
                 ContainerPod vm = (ContainerPod) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    Job job = (Job)cloudlet;
-                    double time = dataTransferTime(job.getFileList(), cloudlet, vm.getId());
-                    if(time < minTime){
-                        minTime = time;
-                        closestVm = vm;
-                    }
-                    
+                Job job = (Job)cloudlet;
+                double time = dataTransferTime(job.getFileList(), cloudlet, vm.getId());
+                if(time < minTime){
+                    minTime = time;
+                    closestPosition = j;
                 }
             }
 
-            if(closestVm!=null){
+            if(closestPosition >= 0){
+                ContainerPod closestVm = (ContainerPod) getVmList().get(closestPosition);
+                idleVms.setBusy(closestPosition);
                 closestVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
                 cloudlet.setVmId(closestVm.getId());
                 getScheduledList().add(cloudlet);
@@ -84,16 +83,7 @@ public class DataAwareSchedulingAlgorithm extends BaseSchedulingAlgorithm {
         for (FileItem file : requiredFiles) {
             //The input file is not an output File 
             if (file.isRealInputFile(requiredFiles)) {
-                List<String> siteList = WFCReplicaCatalog.getStorageList(file.getName());
-
-                boolean hasFile = false;
-                for (String site : siteList) {
-                    if(site.equals(Integer.toString(vmId))){
-                        hasFile = true;
-                        break;
-                    }
-                }
-                if(!hasFile){
+                if (!WFCReplicaCatalog.hasFile(file.getName(), vmId)) {
                     time += file.getSize() ;
                 }
             }
@@ -0,0 +1,274 @@
+/**
+ * Copyright 2019-2020 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import java.util.Arrays;
+
+/**
+ * An index of the idle resources (pods or containers) of a scheduling round,
+ * by their position in the list of resources. It finds the first idle
+ * resource with the highest MIPS in O(log n), as a scan of the list keeping
+ * the first maximum does, and iterates over the idle resources in list order.
+ * <p>
+ * The resources are added in list order at the start of the round, and are
+ * removed from the index when the algorithm makes them busy. The index is
+ * cleared and filled again on every round, since the MIPS of the resources
+ * change between rounds; its arrays are reused, so a scheduler can keep one
+ * index for all its rounds.
+ *
+ * @since WorkflowSim Toolkit 1.0
+ */
+public class IdleResourceIndex {
+
+    /**
+     * The number of resources added.
+     */
+    private int size;
+    /**
+     * The MIPS of each resource.
+     */
+    private double[] mips = new double[16];
+    /**
+     * Whether each resource is idle.
+     */
+    private boolean[] idle = new boolean[16];
+    /**
+     * The heap of the idle resources, the first one with the highest MIPS at
+     * the top, and the position of each resource in the heap.
+     */
+    private int[] heap = new int[16];
+    private int[] heapPositions = new int[16];
+    private int heapSize;
+    /**
+     * The idle resources as a list in list order.
+     */
+    private int[] nextIdle = new int[16];
+    private int[] previousIdle = new int[16];
+    private int firstIdle = -1;
+    private int lastIdle = -1;
+
+    /**
+     * Removes all the resources.
+     */
+    public void clear() {
+        size = 0;
+        heapSize = 0;
+        firstIdle = -1;
+        lastIdle = -1;
+    }
+
+    /**
+     * Adds the next resource of the list.
+     *
+     * @param resourceMips the MIPS of the resource
+     * @param resourceIdle whether the resource is idle
+     * @return the position of the resource
+     */
+    public int add(double resourceMips, boolean resourceIdle) {
+        if (size == mips.length) {
+            int length = 2 * size;
+            mips = Arrays.copyOf(mips, length);
+            idle = Arrays.copyOf(idle, length);
+            heap = Arrays.copyOf(heap, length);
+            heapPositions = Arrays.copyOf(heapPositions, length);
+            nextIdle = Arrays.copyOf(nextIdle, length);
+            previousIdle = Arrays.copyOf(previousIdle, length);
+        }
+        int position = size++;
+        mips[position] = resourceMips;
+        idle[position] = resourceIdle;
+        heapPositions[position] = -1;
+        if (resourceIdle) {
+            nextIdle[position] = -1;
+            previousIdle[position] = lastIdle;
+            if (lastIdle < 0) {
+                firstIdle = position;
+            } else {
+                nextIdle[lastIdle] = position;
+            }
+            lastIdle = position;
+
+            heap[heapSize] = position;
+            heapPositions[position] = heapSize;
+            siftUp(heapSize++);
+        }
+        return position;
+    }
+
+    /**
+     * Gets the number of resources added.
+     *
+     * @return the number of resources
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether no resource is idle.
+     *
+     * @return true if no resource is idle
+     */
+    public boolean isEmpty() {
+        return heapSize == 0;
+    }
+
+    /**
+     * Checks whether a resource is idle.
+     *
+     * @param position the position of the resource
+     * @return true if it is idle
+     */
+    public boolean isIdle(int position) {
+        return idle[position];
+    }
+
+    /**
+     * Gets the MIPS of a resource.
+     *
+     * @param position the position of the resource
+     * @return the MIPS
+     */
+    public double getMips(int position) {
+        return mips[position];
+    }
+
+    /**
+     * Gets the first idle resource with the highest MIPS.
+     *
+     * @return its position, or -1 if no resource is idle
+     */
+    public int getFastest() {
+        return heapSize == 0 ? -1 : heap[0];
+    }
+
+    /**
+     * Gets the first idle resource in list order.
+     *
+     * @return its position, or -1 if no resource is idle
+     */
+    public int getFirst() {
+        return firstIdle;
+    }
+
+    /**
+     * Gets the last idle resource in list order.
+     *
+     * @return its position, or -1 if no resource is idle
+     */
+    public int getLast() {
+        return lastIdle;
+    }
+
+    /**
+     * Gets the next idle resource in list order.
+     *
+     * @param position the position of an idle resource
+     * @return the position of the next one, or -1 if there is none
+     */
+    public int getNext(int position) {
+        return nextIdle[position];
+    }
+
+    /**
+     * Gets the previous idle resource in list order.
+     *
+     * @param position the position of an idle resource
+     * @return the position of the previous one, or -1 if there is none
+     */
+    public int getPrevious(int position) {
+        return previousIdle[position];
+    }
+
+    /**
+     * Removes a resource which has become busy.
+     *
+     * @param position the position of the resource
+     */
+    public void setBusy(int position) {
+        if (!idle[position]) {
+            return;
+        }
+        idle[position] = false;
+
+        int previous = previousIdle[position];
+        int next = nextIdle[position];
+        if (previous < 0) {
+            firstIdle = next;
+        } else {
+            nextIdle[previous] = next;
+        }
+        if (next < 0) {
+            lastIdle = previous;
+        } else {
+            previousIdle[next] = previous;
+        }
+
+        int heapPosition = heapPositions[position];
+        heapPositions[position] = -1;
+        heapSize--;
+        if (heapPosition < heapSize) {
+            heap[heapPosition] = heap[heapSize];
+            heapPositions[heap[heapPosition]] = heapPosition;
+            siftDown(heapPosition);
+            siftUp(heapPosition);
+        }
+    }
+
+    /**
+     * Checks whether a resource goes before another one in the heap: it has
+     * more MIPS, or as many MIPS and comes first in the list.
+     */
+    private boolean before(int position, int other) {
+        return mips[position] > mips[other] || (mips[position] == mips[other] && position < other);
+    }
+
+    private void siftUp(int heapPosition) {
+        int position = heap[heapPosition];
+        while (heapPosition > 0) {
+            int parent = (heapPosition - 1) >>> 1;
+            if (!before(position, heap[parent])) {
+                break;
+            }
+            heap[heapPosition] = heap[parent];
+            heapPositions[heap[heapPosition]] = heapPosition;
+            heapPosition = parent;
+        }
+        heap[heapPosition] = position;
+        heapPositions[position] = heapPosition;
+    }
+
+    private void siftDown(int heapPosition) {
+        int position = heap[heapPosition];
+        while (true) {
+            int child = 2 * heapPosition + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], position)) {
+                break;
+            }
+            heap[heapPosition] = heap[child];
+            heapPositions[heap[heapPosition]] = heapPosition;
+            heapPosition = child;
+        }
+        heap[heapPosition] = position;
+        heapPositions[position] = heapPosition;
+    }
+}
@@ -38,30 +38,17 @@ public class MCTSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
 
         int size = getCloudletList().size();
+        IdleResourceIndex idleVms = indexIdlePods();
 
         for (int i = 0; i < size; i++) {
             Cloudlet cloudlet = (Cloudlet) getCloudletList().get(i);
-            int vmSize = getVmList().size();
-            ContainerPod firstIdleVm = null;
-
-            for (int j = 0; j < vmSize; j++) {
-                ContainerPod vm = (ContainerPod) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
-            if (firstIdleVm == null) {
+            // the first idle vm with the most mips
+            int position = idleVms.getFastest();
+            if (position < 0) {
                 break;
             }
-
-            for (int j = 0; j < vmSize; j++) {
-                ContainerPod vm = (ContainerPod) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && (vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips())) {
-                    firstIdleVm = vm;
-                }
-            }
+            ContainerPod firstIdleVm = (ContainerPod) getVmList().get(position);
+            idleVms.setBusy(position);
             firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
             cloudlet.setVmId(firstIdleVm.getId());
             getScheduledList().add(cloudlet);
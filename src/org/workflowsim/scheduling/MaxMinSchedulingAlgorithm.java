@@ -40,73 +40,47 @@ public class MaxMinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
         super();
     }
     /**
-     * the check point list.
+     * the idle containers, and the pod of each one.
      */
-    private final List<Boolean> hasChecked = new ArrayList<>();
+    private final List<Container> containers = new ArrayList<>();
+    private final List<ContainerPod> pods = new ArrayList<>();
 
     @Override
     public void run() {
 
 
         //Log.printLine("Schedulin Cycle");
-        int size = getCloudletList().size();
-        hasChecked.clear();
-        for (int t = 0; t < size; t++) {
-            hasChecked.add(false);
-        }
-        for (int i = 0; i < size; i++) {
-            int maxIndex = 0;
-            ContainerCloudlet maxCloudlet = null;
-            for (int j = 0; j < size; j++) {
-                ContainerCloudlet cloudlet = (ContainerCloudlet) getCloudletList().get(j);
-                if (!hasChecked.get(j)) {
-                    maxCloudlet = cloudlet;
-                    maxIndex = j;
-                    break;
-                }
-            }
-            if (maxCloudlet == null) {
-                break;
+        // the longest jobs first
+        int[] order = getCloudletOrderByLength(true);
+        IdleResourceIndex idleContainers = getIdleIndex();
+        containers.clear();
+        pods.clear();
+        for (ContainerPod vm : getVmList()) {
+            for (Container c : vm.getContainerList()) {
+                idleContainers.add(c.getCurrentRequestedTotalMips(), c.getState() == WorkflowSimTags.VM_STATUS_IDLE);
+                containers.add(c);
+                pods.add(vm);
             }
+        }
+        for (int i = 0; i < order.length; i++) {
+            ContainerCloudlet maxCloudlet = (ContainerCloudlet) getCloudletList().get(order[i]);
 
-            for (int j = 0; j < size; j++) {
-                ContainerCloudlet cloudlet = (ContainerCloudlet) getCloudletList().get(j);
-                if (hasChecked.get(j)) {
-                    continue;
-                }
-                long length = cloudlet.getCloudletLength();
-                if (length > maxCloudlet.getCloudletLength()) {
-                    maxCloudlet = cloudlet;
-                    maxIndex = j;
-                }
-            }
-            hasChecked.set(maxIndex, true);
-            int podId = -1;
-            int vmSize = getVmList().size();
-            Container firstIdleContainer = null;//(CondorPod)getVmList().get(0);
-            for (int j = 0; j < vmSize; j++) {
-                ContainerPod vm = (ContainerPod) getVmList().get(j);
-                for (Container c: vm.getContainerList()) {
-                    if(c.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                        firstIdleContainer = c;
-                        podId = vm.getId();
-                        break;
-                    }
-                }
-            }
-            if (firstIdleContainer == null) {
+            // the scan starts from the first idle container of the last pod
+            // having one, and keeps the first container with more mips
+            int first = idleContainers.getLast();
+            if (first < 0) {
                 break;
             }
-            for (int j = 0; j < vmSize; j++) {
-                ContainerPod vm = (ContainerPod) getVmList().get(j);
-                for( Container c: vm.getContainerList()) {
-                    if(c.getState() == WorkflowSimTags.VM_STATUS_IDLE
-                        && c.getCurrentRequestedTotalMips() > firstIdleContainer.getCurrentRequestedTotalMips()) {
-                        firstIdleContainer = c;
-                        podId = vm.getId();
-                    }
-                }
+            ContainerPod lastPod = pods.get(first);
+            for (int p = idleContainers.getPrevious(first); p >= 0 && pods.get(p) == lastPod;
+                    p = idleContainers.getPrevious(p)) {
+                first = p;
             }
+            int fastest = idleContainers.getFastest();
+            int position = idleContainers.getMips(fastest) > idleContainers.getMips(first) ? fastest : first;
+            Container firstIdleContainer = containers.get(position);
+            int podId = pods.get(position).getId();
+            idleContainers.setBusy(position);
             firstIdleContainer.setState(WorkflowSimTags.VM_STATUS_BUSY);
             maxCloudlet.setContainerId(firstIdleContainer.getId());
             maxCloudlet.setVmId(podId);
@@ -15,8 +15,6 @@
  */
 package org.workflowsim.scheduling;
 
-import java.util.ArrayList;
-import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.workflowsim.WorkflowSimTags;
 import org.cloudbus.cloudsim.container.core.*;
@@ -33,64 +31,23 @@ public class MinMinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
     public MinMinSchedulingAlgorithm() {
         super();
     }
-    private final List<Boolean> hasChecked = new ArrayList<>();
 
     @Override
     public void run() {
 
-        int size = getCloudletList().size();
-        hasChecked.clear();
-        for (int t = 0; t < size; t++) {
-            hasChecked.add(false);
-        }
-        for (int i = 0; i < size; i++) {
-            int minIndex = 0;
-            Cloudlet minCloudlet = null;
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                if (!hasChecked.get(j)) {
-                    minCloudlet = cloudlet;
-                    minIndex = j;
-                    break;
-                }
-            }
-            if (minCloudlet == null) {
-                break;
-            }
-
+        // the shortest jobs first
+        int[] order = getCloudletOrderByLength(false);
+        IdleResourceIndex idleVms = indexIdlePods();
+        for (int i = 0; i < order.length; i++) {
+            Cloudlet minCloudlet = (Cloudlet) getCloudletList().get(order[i]);
 
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                if (hasChecked.get(j)) {
-                    continue;
-                }
-                long length = cloudlet.getCloudletLength();
-                if (length < minCloudlet.getCloudletLength()) {
-                    minCloudlet = cloudlet;
-                    minIndex = j;
-                }
-            }
-            hasChecked.set(minIndex, true);
-
-            int vmSize = getVmList().size();
-            ContainerPod firstIdleVm = null;//(CondorPod)getVmList().get(0);
-            for (int j = 0; j < vmSize; j++) {
-                ContainerPod vm = (ContainerPod) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
-            if (firstIdleVm == null) {
+            // the first idle vm with the most mips
+            int position = idleVms.getFastest();
+            if (position < 0) {
                 break;
             }
-            for (int j = 0; j < vmSize; j++) {
-                ContainerPod vm = (ContainerPod) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips()) {
-                    firstIdleVm = vm;
-                }
-            }
+            ContainerPod firstIdleVm = (ContainerPod) getVmList().get(position);
+            idleVms.setBusy(position);
             firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
             minCloudlet.setVmId(firstIdleVm.getId());
            
@@ -15,6 +15,7 @@
  */
 package org.workflowsim.scheduling;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -40,14 +41,15 @@ public class RoundRobinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
         
         int size = getCloudletList().size();
         Collections.sort(getCloudletList(), new CloudletListComparator());
-        List vmList = getVmList();
+        // the vm list is a read-only view
+        List<ContainerPod> vmList = new ArrayList<>(getVmList());
         Collections.sort(vmList, new VmListComparator());
         for (int j = 0; j < size; j++) {
             Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
             int vmSize = vmList.size();
             ContainerPod firstIdleVm = null;//(CondorPod)getVmList().get(0);
             for (int l = 0; l < vmSize; l++) {
-                ContainerPod vm = (ContainerPod) vmList.get(l);
+                ContainerPod vm = vmList.get(l);
                 if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
                     firstIdleVm = vm;
                     break;
@@ -56,7 +58,7 @@ public class RoundRobinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
             if (firstIdleVm == null) {
                 break;
             }
-            ((ContainerPod) firstIdleVm).setState(WorkflowSimTags.VM_STATUS_BUSY);
+            firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
             cloudlet.setVmId(firstIdleVm.getId());
             getScheduledList().add(cloudlet);
             vmIndex = (vmIndex + 1) % vmList.size();
@@ -16,6 +16,7 @@
 package org.workflowsim.scheduling;
 
 import java.util.List;
+import org.cloudbus.cloudsim.container.core.ContainerPod;
 
 /**
  * The Scheduler interface
@@ -36,7 +37,7 @@ public interface SchedulingAlgorithmInterface {
      * Sets the vm list.
      * @param list
      */
-    public void setVmList(List list);
+    public void setVmList(List<? extends ContainerPod> list);
 
     /**
      * Gets the job list.
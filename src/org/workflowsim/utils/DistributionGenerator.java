@@ -39,8 +39,22 @@ public class DistributionGenerator {
     protected double scale_prior;
     protected double shape_prior;
     protected double likelihood_prior;
-    protected double[] samples;
-    protected double[] cumulativeSamples;
+    /**
+     * The samples and their cumulative sums, in chunks of SAMPLE_SIZE. More
+     * samples are appended in new chunks, so the samples drawn before are
+     * never copied.
+     */
+    protected double[][] sampleChunks;
+    protected double[][] cumulativeChunks;
+    /**
+     * The number of samples
+     */
+    protected int sampleCount;
+    /**
+     * Whether all the samples are non-negative, so that the cumulative
+     * samples are sorted
+     */
+    protected boolean nonNegative;
     protected int cursor;
     protected final int SAMPLE_SIZE = 1500 ; //DistributionGenerator will automatically increase the size
     
@@ -63,8 +77,8 @@ public class DistributionGenerator {
         this.scale_prior = scale;
         this.shape_prior = shape;
         RealDistribution distribution = getDistribution(scale, shape);
-        samples = distribution.sample(SAMPLE_SIZE);
-        updateCumulativeSamples();
+        clearSamples();
+        appendSamples(distribution.sample(SAMPLE_SIZE));
         cursor = 0;
     }
 
@@ -76,41 +90,163 @@ public class DistributionGenerator {
     }
 
     /**
-     * Gets the sample data
+     * Gets a copy of the sample data
      *
      * @return samples
      */
     public double[] getSamples() {
-        return samples;
+        return copyChunks(sampleChunks);
     }
 
     /**
-     * Gets the cumulative Samples
+     * Gets a copy of the cumulative Samples
      *
      * @return cumulativeSamples
      */
     public double[] getCumulativeSamples() {
-        return cumulativeSamples;
+        return copyChunks(cumulativeChunks);
+    }
+
+    /**
+     * Gets the number of samples
+     *
+     * @return the number of samples
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Gets a sample
+     *
+     * @param index the index of the sample
+     * @return the sample
+     */
+    public double getSample(int index) {
+        return sampleChunks[index / SAMPLE_SIZE][index % SAMPLE_SIZE];
+    }
+
+    /**
+     * Gets a cumulative sample, the sum of the samples up to an index
+     *
+     * @param index the index of the sample
+     * @return the cumulative sample
+     */
+    public double getCumulativeSample(int index) {
+        return cumulativeChunks[index / SAMPLE_SIZE][index % SAMPLE_SIZE];
+    }
+
+    /**
+     * Gets the last cumulative sample, the sum of all the samples
+     *
+     * @return the last cumulative sample
+     */
+    public double getLastCumulativeSample() {
+        return getCumulativeSample(sampleCount - 1);
+    }
+
+    /**
+     * Finds the first cumulative sample not lower than a value, or greater
+     * than it when strict. It is a binary search when the samples are
+     * non-negative, and a scan otherwise.
+     *
+     * @param value the value
+     * @param strict whether the sample must be greater than the value
+     * @return the index of the sample, or -1 if there is none
+     */
+    public int findCumulativeSample(double value, boolean strict) {
+        if (!nonNegative) {
+            for (int i = 0; i < sampleCount; i += SAMPLE_SIZE) {
+                double[] chunk = cumulativeChunks[i / SAMPLE_SIZE];
+                int length = Math.min(SAMPLE_SIZE, sampleCount - i);
+                for (int j = 0; j < length; j++) {
+                    if (strict ? chunk[j] > value : chunk[j] >= value) {
+                        return i + j;
+                    }
+                }
+            }
+            return -1;
+        }
+        int low = 0;
+        int high = sampleCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            double sample = getCumulativeSample(middle);
+            if (strict ? sample > value : sample >= value) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low < sampleCount ? low : -1;
     }
 
     /**
      * Extends the sample size
      */
     public void extendSamples() {
-        double[] new_samples = getDistribution(scale, shape).sample(SAMPLE_SIZE);
-        samples = concat(samples, new_samples);
-        updateCumulativeSamples();
+        appendSamples(getDistribution(scale, shape).sample(SAMPLE_SIZE));
+    }
+
+    /**
+     * Removes all the samples
+     */
+    protected void clearSamples() {
+        sampleChunks = new double[4][];
+        cumulativeChunks = new double[4][];
+        sampleCount = 0;
+        nonNegative = true;
+    }
+
+    /**
+     * Appends samples, and their cumulative sums
+     *
+     * @param samples the samples
+     */
+    protected void appendSamples(double[] samples) {
+        double sum = sampleCount == 0 ? 0.0 : getLastCumulativeSample();
+        for (double sample : samples) {
+            int chunk = sampleCount / SAMPLE_SIZE;
+            int offset = sampleCount % SAMPLE_SIZE;
+            if (offset == 0) {
+                if (chunk == sampleChunks.length) {
+                    sampleChunks = Arrays.copyOf(sampleChunks, chunk * 2);
+                    cumulativeChunks = Arrays.copyOf(cumulativeChunks, chunk * 2);
+                }
+                sampleChunks[chunk] = new double[SAMPLE_SIZE];
+                cumulativeChunks[chunk] = new double[SAMPLE_SIZE];
+            }
+            sum = sampleCount == 0 ? sample : sum + sample;
+            sampleChunks[chunk][offset] = sample;
+            cumulativeChunks[chunk][offset] = sum;
+            nonNegative &= sample >= 0;
+            sampleCount++;
+        }
     }
 
     /**
      * Update cumulativeSamples from samples
      */
     public void updateCumulativeSamples() {
-        cumulativeSamples = new double[samples.length];
-        cumulativeSamples[0] = samples[0];
-        for (int i = 1; i < samples.length; i++) {
-            cumulativeSamples[i] = cumulativeSamples[i - 1] + samples[i];
+        double sum = 0.0;
+        for (int i = 0; i < sampleCount; i++) {
+            sum = i == 0 ? getSample(0) : sum + getSample(i);
+            cumulativeChunks[i / SAMPLE_SIZE][i % SAMPLE_SIZE] = sum;
+        }
+    }
+
+    /**
+     * Copies the first sampleCount values of chunks to an array
+     *
+     * @param chunks the chunks
+     * @return the values
+     */
+    private double[] copyChunks(double[][] chunks) {
+        double[] values = new double[sampleCount];
+        for (int i = 0; i < sampleCount; i += SAMPLE_SIZE) {
+            System.arraycopy(chunks[i / SAMPLE_SIZE], 0, values, i, Math.min(SAMPLE_SIZE, sampleCount - i));
         }
+        return values;
     }
 
     /**
@@ -130,7 +266,7 @@ public class DistributionGenerator {
     public double getMean() {
         double sum = 0.0;
         for (int i = 0; i < cursor; i++) {
-            sum += samples[i];
+            sum += getSample(i);
         }
         return sum / cursor;
     }
@@ -156,10 +292,10 @@ public class DistributionGenerator {
         for (int i = 0; i < cursor; i++) {
             switch (dist) {
                 case GAMMA:
-                    sum += samples[i];
+                    sum += getSample(i);
                     break;
                 case WEIBULL:
-                    sum += Math.pow(samples[i], likelihood_prior);
+                    sum += Math.pow(getSample(i), likelihood_prior);
                     break;
             }
         }
@@ -187,8 +323,8 @@ public class DistributionGenerator {
         this.scale = scale;
         this.shape = shape;
         RealDistribution distribution = getDistribution(scale, shape);
-        samples = distribution.sample(SAMPLE_SIZE);
-        updateCumulativeSamples();
+        clearSamples();
+        appendSamples(distribution.sample(SAMPLE_SIZE));
         //cursor = 0;
     }
 
@@ -211,12 +347,10 @@ public class DistributionGenerator {
      * @return delay
      */
     public double getNextSample() {
-        while (cursor >= samples.length) {
-            double[] new_samples = getDistribution(scale, shape).sample(SAMPLE_SIZE);
-            samples = concat(samples, new_samples);
-            updateCumulativeSamples();
+        while (cursor >= sampleCount) {
+            appendSamples(getDistribution(scale, shape).sample(SAMPLE_SIZE));
         }
-        double delay = samples[cursor];
+        double delay = getSample(cursor);
         cursor++;
         return delay;
     }
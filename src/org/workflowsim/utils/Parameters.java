@@ -17,6 +17,7 @@ package org.workflowsim.utils;
 
 import java.util.List;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 /**
  * This class includes most parameters a user can specify in a configuration
@@ -82,6 +83,16 @@ public class Parameters {
         }
     }
     
+    /**
+     * The DAX parser
+     * JDOM: builds the document of the whole file, then reads its jobs
+     * STAX: reads the jobs while streaming the file, without the document
+     * The tasks are created once the whole file is read.
+     */
+    public enum DaxParser{
+        JDOM, STAX
+    }
+    
     /** 
      * Source Host (submit host)
      */
@@ -89,45 +100,6 @@ public class Parameters {
     
     public static final int BASE = 0;
     
-    /**
-     * Scheduling mode
-     */
-    private static SchedulingAlgorithm schedulingAlgorithm;
-    
-    /**
-     * Planning mode
-     */
-    private static PlanningAlgorithm planningAlgorithm;
-    
-    /**
-     * Reducer mode
-     */
-    private static String reduceMethod;
-    /**
-     * Number of vms available
-     */
-    private static int vmNum;
-    /**
-     * The physical path to DAX file
-     */
-    private static String daxPath;
-    
-    /**
-     * The physical path to DAX files
-     */
-    private static List<String> daxPaths;
-    /**
-     * The physical path to runtime file In the runtime file, please use format
-     * as below ID1 1.0 ID2 2.0 ... This is optional, if you have specified task
-     * runtime in DAX then you don't need to specify this file
-     */
-    private static String runtimePath;
-    /**
-     * The physical path to datasize file In the datasize file, please use
-     * format as below DATA1 1000 DATA2 2000 ... This is optional, if you have
-     * specified datasize in DAX then you don't need to specify this file
-     */
-    private static String datasizePath;
     /**
      * Version number
      */
@@ -136,44 +108,107 @@ public class Parameters {
      * Note information
      */
     private static final String note = " supports planning algorithm at Nov 20, 2020";
-    /**
-     * Overhead parameters
-     */
-    private static OverheadParameters oParams;
-    /**
-     * Clustering parameters
-     */
-    private static ClusteringParameters cParams;
-    /**
-     * Deadline of a workflow
-     */
-    private static long deadline;
-    
-    /**
-     * the bandwidth from one vm to one vm
-     */
-    private static double[][] bandwidths;
-    
-    
-    /**
-     * The maximum depth. It is inited manually and used in FailureGenerator
-     */
-    private static int maxDepth;
-    
     /**
      * Invalid String
      */
     private static final String INVALID = "Invalid";
-    
+
     /**
-     * The scale of runtime. Multiple runtime by this
+     * The parameters of a simulation, kept in its SimulationContext
      */
-    private static double runtime_scale = 1.0;
-    
+    private static final class State {
+
+        /**
+         * Scheduling mode
+         */
+        private SchedulingAlgorithm schedulingAlgorithm;
+
+        /**
+         * Planning mode
+         */
+        private PlanningAlgorithm planningAlgorithm;
+
+        /**
+         * Reducer mode
+         */
+        private String reduceMethod;
+        /**
+         * Number of vms available
+         */
+        private int vmNum;
+        /**
+         * The physical path to DAX file
+         */
+        private String daxPath;
+
+        /**
+         * The physical path to DAX files
+         */
+        private List<String> daxPaths;
+        /**
+         * The physical path to runtime file In the runtime file, please use format
+         * as below ID1 1.0 ID2 2.0 ... This is optional, if you have specified task
+         * runtime in DAX then you don't need to specify this file
+         */
+        private String runtimePath;
+        /**
+         * The physical path to datasize file In the datasize file, please use
+         * format as below DATA1 1000 DATA2 2000 ... This is optional, if you have
+         * specified datasize in DAX then you don't need to specify this file
+         */
+        private String datasizePath;
+        /**
+         * Overhead parameters
+         */
+        private OverheadParameters oParams;
+        /**
+         * Clustering parameters
+         */
+        private ClusteringParameters cParams;
+        /**
+         * Deadline of a workflow
+         */
+        private long deadline;
+
+        /**
+         * the bandwidth from one vm to one vm
+         */
+        private double[][] bandwidths;
+
+        /**
+         * The maximum depth. It is inited manually and used in FailureGenerator
+         */
+        private int maxDepth;
+
+        /**
+         * The scale of runtime. Multiple runtime by this
+         */
+        private double runtime_scale = 1.0;
+
+        /**
+         * The default cost model is based on datacenter, similar to CloudSim
+         */
+        private CostModel costModel = CostModel.DATACENTER;
+
+        /**
+         * The parser used for DAX files
+         */
+        private DaxParser daxParser = DaxParser.JDOM;
+
+        /**
+         * The number of threads parsing the DAX files of daxPaths
+         */
+        private int daxParseThreads = Runtime.getRuntime().availableProcessors();
+    }
+
     /**
-     * The default cost model is based on datacenter, similar to CloudSim
+     * Gets the parameters of the current simulation context
+     *
+     * @return the parameters
      */
-    private static CostModel costModel = CostModel.DATACENTER;
+    private static State state() {
+        return SimulationContext.current().getState(State.class, State::new);
+    }
     
     /**
      * A static function so that you can specify them in any place
@@ -195,18 +230,19 @@ public class Parameters {
             SchedulingAlgorithm scheduler, PlanningAlgorithm planner, String rMethod,
             long dl) {
 
-        cParams = cp;
-        vmNum = vm;
-        daxPath = dax;
-        runtimePath = runtime;
-        datasizePath = datasize;
+        State state = state();
+        state.cParams = cp;
+        state.vmNum = vm;
+        state.daxPath = dax;
+        state.runtimePath = runtime;
+        state.datasizePath = datasize;
 
-        oParams = op;
-        schedulingAlgorithm = scheduler;
-        planningAlgorithm = planner;
-        reduceMethod = rMethod;
-        deadline = dl;
-        maxDepth = 0;
+        state.oParams = op;
+        state.schedulingAlgorithm = scheduler;
+        state.planningAlgorithm = planner;
+        state.reduceMethod = rMethod;
+        state.deadline = dl;
+        state.maxDepth = 0;
     }
     
     /**
@@ -229,18 +265,19 @@ public class Parameters {
             SchedulingAlgorithm scheduler, PlanningAlgorithm planner, String rMethod,
             long dl) {
 
-        cParams = cp;
-        vmNum = vm;
-        daxPaths = dax;
-        runtimePath = runtime;
-        datasizePath = datasize;
+        State state = state();
+        state.cParams = cp;
+        state.vmNum = vm;
+        state.daxPaths = dax;
+        state.runtimePath = runtime;
+        state.datasizePath = datasize;
 
-        oParams = op;
-        schedulingAlgorithm = scheduler;
-        planningAlgorithm = planner;
-        reduceMethod = rMethod;
-        deadline = dl;
-        maxDepth = 0;
+        state.oParams = op;
+        state.schedulingAlgorithm = scheduler;
+        state.planningAlgorithm = planner;
+        state.reduceMethod = rMethod;
+        state.deadline = dl;
+        state.maxDepth = 0;
     }
 
     /**
@@ -251,7 +288,7 @@ public class Parameters {
      * @post $none
      */
     public static OverheadParameters getOverheadParams() {
-        return oParams;
+        return state().oParams;
     }
 
     
@@ -264,8 +301,9 @@ public class Parameters {
      * @post $none
      */
     public static String getReduceMethod() {
-        if(reduceMethod!=null){
-            return reduceMethod;
+        State state = state();
+        if(state.reduceMethod!=null){
+            return state.reduceMethod;
         }else{
             return INVALID;
         }
@@ -281,7 +319,7 @@ public class Parameters {
      * @post $none
      */
     public static String getDaxPath() {
-        return daxPath;
+        return state().daxPath;
     }
 
     /**
@@ -292,7 +330,7 @@ public class Parameters {
      * @post $none
      */
     public static String getRuntimePath() {
-        return runtimePath;
+        return state().runtimePath;
     }
 
     /**
@@ -303,7 +341,7 @@ public class Parameters {
      * @post $none
      */
     public static String getDatasizePath() {
-        return datasizePath;
+        return state().datasizePath;
     }
 
     
@@ -315,7 +353,7 @@ public class Parameters {
      * @post $none
      */
     public static int getVmNum() {
-        return vmNum;
+        return state().vmNum;
     }
 
     
@@ -325,7 +363,7 @@ public class Parameters {
      * @return costModel
      */
     public static CostModel getCostModel(){
-        return costModel;
+        return state().costModel;
     }
     
     /**
@@ -334,7 +372,7 @@ public class Parameters {
      * @param num
      */
     public static void setVmNum(int num) {
-        vmNum = num;
+        state().vmNum = num;
     }
 
     /**
@@ -343,7 +381,7 @@ public class Parameters {
      * @return the clustering parameters
      */
     public static ClusteringParameters getClusteringParameters() {
-        return cParams;
+        return state().cParams;
     }
 
     /**
@@ -352,7 +390,7 @@ public class Parameters {
      * @return the scheduling method
      */
     public static SchedulingAlgorithm getSchedulingAlgorithm() {
-        return schedulingAlgorithm;
+        return state().schedulingAlgorithm;
     }
     
     /**
@@ -361,7 +399,7 @@ public class Parameters {
      * 
      */
     public static PlanningAlgorithm getPlanningAlgorithm() {
-        return planningAlgorithm;
+        return state().planningAlgorithm;
     }
     /**
      * Gets the version
@@ -379,7 +417,7 @@ public class Parameters {
      * Gets the deadline
      */
     public static long getDeadline(){
-    	return deadline;
+    	return state().deadline;
     }
     
     /**
@@ -387,7 +425,7 @@ public class Parameters {
      * @return the maxDepth
      */
     public static int getMaxDepth(){
-        return maxDepth;
+        return state().maxDepth;
     }
     
     /**
@@ -395,7 +433,7 @@ public class Parameters {
      * @param depth the maxDepth
      */
     public static void setMaxDepth(int depth){
-        maxDepth = depth;
+        state().maxDepth = depth;
     }
     
     /**
@@ -403,7 +441,7 @@ public class Parameters {
      * @param scale 
      */
     public static void setRuntimeScale(double scale){
-        runtime_scale = scale;
+        state().runtime_scale = scale;
     }
     
     /**
@@ -411,7 +449,40 @@ public class Parameters {
      * @param model
      */
     public static void setCostModel(CostModel model){
-        costModel = model;
+        state().costModel = model;
+    }
+    
+    /**
+     * Sets the DAX parser
+     * @param parser
+     */
+    public static void setDaxParser(DaxParser parser){
+        state().daxParser = parser;
+    }
+    
+    /**
+     * Gets the DAX parser
+     * @return the DAX parser
+     */
+    public static DaxParser getDaxParser(){
+        return state().daxParser;
+    }
+    
+    /**
+     * Sets the number of threads parsing the DAX files of daxPaths, 1 parses
+     * them one after another
+     * @param threads
+     */
+    public static void setDaxParseThreads(int threads){
+        state().daxParseThreads = Math.max(1, threads);
+    }
+    
+    /**
+     * Gets the number of threads parsing the DAX files of daxPaths
+     * @return the number of threads
+     */
+    public static int getDaxParseThreads(){
+        return state().daxParseThreads;
     }
     
     /**
@@ -419,7 +490,7 @@ public class Parameters {
      * @return 
      */
     public static double getRuntimeScale(){
-        return runtime_scale;
+        return state().runtime_scale;
     }
     
     /**
@@ -427,6 +498,6 @@ public class Parameters {
      * @return 
      */
     public static List<String> getDAXPaths() {
-        return daxPaths;
+        return state().daxPaths;
     }
 }
@@ -17,15 +17,27 @@
  */
 package org.workflowsim.utils;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import org.cloudbus.cloudsim.Log;
+import java.util.concurrent.ConcurrentHashMap;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.workflowsim.FileItem;
 
 /**
- * WFCReplicaCatalog stores all the data information and where (site) there are
+ * WFCReplicaCatalog stores all the data information and where (site) there are.
+ * Each simulation context has its own catalog, which is safe to use from
+ * several threads, e.g. while parsing DAX files in parallel.
+ * <p>
+ * The file names and the sites are interned to int ids. The sites of a file
+ * are kept as an array of site ids, in the order they were added, and the
+ * files of a site as a bitset of file ids, so checking whether a site has a
+ * file takes constant time. The sites of the pods are the pod ids, which can
+ * be given as ints.
  *
  * @author Arman Riazi
  * @since WorkflowSim Toolkit 1.0
@@ -39,18 +51,228 @@ public class WFCReplicaCatalog {
     public enum FileSystem {
         SHARED, LOCAL
     }
+
     /**
-     * Map from file name to a file object
+     * The replica catalog of a simulation, kept in its SimulationContext
      */
-    private static Map<String, FileItem> fileName2File;
+    private static final class Catalog {
+
+        /**
+         * Map from file name to a file object
+         */
+        private Map<String, FileItem> fileName2File;
+        /**
+         * The selection of file.system
+         */
+        private FileSystem fileSystem;
+        /**
+         * Map from file name to its replicas
+         */
+        private Map<String, Replicas> dataReplicaCatalog;
+        /**
+         * Map from site name to site id
+         */
+        private Map<String, Integer> siteIds;
+        /**
+         * The site names and the files of each site, by site id
+         */
+        private volatile String[] siteNames;
+        private volatile BitSet[] siteFiles;
+        private int siteCount;
+        /**
+         * The site ids of the pod ids, -1 if not interned yet
+         */
+        private volatile int[] podSiteIds;
+        /**
+         * The file names, by file id
+         */
+        private volatile String[] fileNames;
+        private int fileCount;
+
+        /**
+         * Gets the id of a site, interning it on first use
+         *
+         * @param site the site name
+         * @return the site id
+         */
+        private int siteId(String site) {
+            Integer id = siteIds.get(site);
+            if (id != null) {
+                return id;
+            }
+            synchronized (this) {
+                id = siteIds.get(site);
+                if (id == null) {
+                    id = siteCount;
+                    if (siteCount == siteNames.length) {
+                        siteFiles = Arrays.copyOf(siteFiles, siteCount * 2);
+                        siteNames = Arrays.copyOf(siteNames, siteCount * 2);
+                    }
+                    siteFiles[id] = new BitSet();
+                    siteNames[id] = site;
+                    siteCount++;
+                    siteIds.put(site, id);
+                }
+                return id;
+            }
+        }
+
+        /**
+         * Gets the id of the site of a pod, interning it on first use
+         *
+         * @param podId the pod id
+         * @return the site id
+         */
+        private int podSiteId(int podId) {
+            int[] ids = podSiteIds;
+            if (podId >= 0 && podId < ids.length && ids[podId] >= 0) {
+                return ids[podId];
+            }
+            int id = siteId(Integer.toString(podId));
+            if (podId >= 0) {
+                synchronized (this) {
+                    ids = podSiteIds;
+                    if (podId >= ids.length) {
+                        int length = ids.length;
+                        ids = Arrays.copyOf(ids, Math.max(podId + 1, length * 2));
+                        Arrays.fill(ids, length, ids.length, -1);
+                    }
+                    ids[podId] = id;
+                    podSiteIds = ids;
+                }
+            }
+            return id;
+        }
+
+        /**
+         * Gets the id of the site of a pod, without interning it
+         *
+         * @param podId the pod id
+         * @return the site id, -1 if the pod has no site yet
+         */
+        private int findPodSiteId(int podId) {
+            int[] ids = podSiteIds;
+            if (podId >= 0 && podId < ids.length && ids[podId] >= 0) {
+                return ids[podId];
+            }
+            Integer id = siteIds.get(Integer.toString(podId));
+            return id == null ? -1 : id;
+        }
+
+        /**
+         * Gets the replicas of a file, interning its name on first use
+         *
+         * @param file the file name
+         * @return the replicas
+         */
+        private Replicas replicas(String file) {
+            Replicas replicas = dataReplicaCatalog.get(file);
+            if (replicas != null) {
+                return replicas;
+            }
+            synchronized (this) {
+                replicas = dataReplicaCatalog.get(file);
+                if (replicas == null) {
+                    if (fileCount == fileNames.length) {
+                        fileNames = Arrays.copyOf(fileNames, fileCount * 2);
+                    }
+                    fileNames[fileCount] = file;
+                    replicas = new Replicas(fileCount++);
+                    dataReplicaCatalog.put(file, replicas);
+                }
+                return replicas;
+            }
+        }
+
+        /**
+         * Adds a file to a site
+         *
+         * @param file the file name
+         * @param siteId the site id
+         */
+        private void add(String file, int siteId) {
+            Replicas replicas = replicas(file);
+            if (replicas.add(siteId)) {
+                BitSet files = siteFiles[siteId];
+                synchronized (files) {
+                    files.set(replicas.fileId);
+                }
+            }
+        }
+    }
+
+    /**
+     * The sites of a file, in the order they were added. The array is
+     * replaced when a site is added, so a list of the sites read before stays
+     * unchanged.
+     */
+    private static final class Replicas {
+
+        private final int fileId;
+        private volatile int[] sites = new int[0];
+
+        private Replicas(int fileId) {
+            this.fileId = fileId;
+        }
+
+        /**
+         * Adds a site
+         *
+         * @param siteId the site id
+         * @return false if the file was already at the site
+         */
+        private synchronized boolean add(int siteId) {
+            if (contains(siteId)) {
+                return false;
+            }
+            int[] added = Arrays.copyOf(sites, sites.length + 1);
+            added[sites.length] = siteId;
+            sites = added;
+            return true;
+        }
+
+        private boolean contains(int siteId) {
+            for (int site : sites) {
+                if (site == siteId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     /**
-     * The selection of file.system
+     * A read-only list of site names over site ids
      */
-    private static FileSystem fileSystem;
+    private static final class SiteList extends AbstractList<String> {
+
+        private final String[] siteNames;
+        private final int[] sites;
+
+        private SiteList(String[] siteNames, int[] sites) {
+            this.siteNames = siteNames;
+            this.sites = sites;
+        }
+
+        @Override
+        public String get(int index) {
+            return siteNames[sites[index]];
+        }
+
+        @Override
+        public int size() {
+            return sites.length;
+        }
+    }
+
     /**
-     * Map from file to a list of data storage
+     * Gets the replica catalog of the current simulation context
+     *
+     * @return the catalog
      */
-    private static Map<String, List<String>> dataReplicaCatalog;
+    private static Catalog catalog() {
+        return SimulationContext.current().getState(Catalog.class, Catalog::new);
+    }
 
     /**
      * Initialize a WFCReplicaCatalog
@@ -58,9 +280,21 @@ public class WFCReplicaCatalog {
      * @param fs the type of file system
      */
     public static void init(FileSystem fs) {
-        fileSystem = fs;
-        dataReplicaCatalog = new HashMap<>();
-        fileName2File = new HashMap<>();
+        Catalog catalog = catalog();
+        synchronized (catalog) {
+            catalog.fileSystem = fs;
+            catalog.dataReplicaCatalog = new ConcurrentHashMap<>();
+            catalog.fileName2File = new ConcurrentHashMap<>();
+            catalog.siteIds = new ConcurrentHashMap<>();
+            catalog.siteNames = new String[16];
+            catalog.siteFiles = new BitSet[16];
+            catalog.siteCount = 0;
+            int[] podSiteIds = new int[16];
+            Arrays.fill(podSiteIds, -1);
+            catalog.podSiteIds = podSiteIds;
+            catalog.fileNames = new String[1024];
+            catalog.fileCount = 0;
+        }
     }
 
     /**
@@ -69,7 +303,7 @@ public class WFCReplicaCatalog {
      * @return file system
      */
     public static FileSystem getFileSystem() {
-        return fileSystem;
+        return catalog().fileSystem;
     }
 
     /**
@@ -79,7 +313,7 @@ public class WFCReplicaCatalog {
      * @return file object
      */
     public static FileItem getFile(String fileName) {
-        return fileName2File.get(fileName);
+        return catalog().fileName2File.get(fileName);
     }
 
     /**
@@ -89,7 +323,20 @@ public class WFCReplicaCatalog {
      * @param file , the file object
      */
     public static void setFile(String fileName, FileItem file) {
-        fileName2File.put(fileName, file);
+        catalog().fileName2File.put(fileName, file);
+    }
+
+    /**
+     * Adds a file name and the associated file object, unless the file name
+     * already has one
+     *
+     * @param fileName, the file name
+     * @param file , the file object
+     * @return the file object associated with the file name
+     */
+    public static FileItem putFileIfAbsent(String fileName, FileItem file) {
+        FileItem existing = catalog().fileName2File.putIfAbsent(fileName, file);
+        return existing == null ? file : existing;
     }
 
     /**
@@ -99,19 +346,24 @@ public class WFCReplicaCatalog {
      * @return boolean, whether the file exist
      */
     public static boolean containsFile(String fileName) {
-        return fileName2File.containsKey(fileName);
+        return catalog().fileName2File.containsKey(fileName);
     }
 
     /**
-     * Gets the list of storages a file exists
+     * Gets the list of storages a file exists, in the order the file was added
+     * to them. The list is read-only and is not changed by later additions.
      *
      * @param file the file object
-     * @return list of storages
+     * @return list of storages, or null if the file is in no storage
      */
     public static List<String> getStorageList(String file) {
-        /*Log.print("fffffffffffffffffffffffffffffffff=>WFCReplicaCatalog=>getStorageList(): ");
-        Log.printLine(file);  */   
-        return dataReplicaCatalog.get(file);
+        Catalog catalog = catalog();
+        Replicas replicas = catalog.dataReplicaCatalog.get(file);
+        if (replicas == null) {
+            return null;
+        }
+        int[] sites = replicas.sites;
+        return new SiteList(catalog.siteNames, sites);
     }
 
     /**
@@ -121,15 +373,99 @@ public class WFCReplicaCatalog {
      * @param storage , the storage associated with this file
      */
     public static void addFileToStorage(String file, String storage) {
-        if (!dataReplicaCatalog.containsKey(file)) {
-            dataReplicaCatalog.put(file, new ArrayList<>());
-           /* Log.print("fffffffffffffffffffffffffffffffff=>WFCReplicaCatalog=>addFileToStorage(): ");
-            Log.printLine(file); */           
+        Catalog catalog = catalog();
+        catalog.add(file, catalog.siteId(storage));
+    }
+
+    /**
+     * Adds a file to the storage of a pod, whose site name is the pod id
+     *
+     * @param file the file name
+     * @param podId the pod id
+     */
+    public static void addFileToStorage(String file, int podId) {
+        Catalog catalog = catalog();
+        catalog.add(file, catalog.podSiteId(podId));
+    }
+
+    /**
+     * Checks whether a storage has a file
+     *
+     * @param file the file name
+     * @param storage the storage
+     * @return whether the file is in the storage
+     */
+    public static boolean hasFile(String file, String storage) {
+        Catalog catalog = catalog();
+        Replicas replicas = catalog.dataReplicaCatalog.get(file);
+        Integer siteId = catalog.siteIds.get(storage);
+        return replicas != null && siteId != null && hasFile(catalog, replicas, siteId);
+    }
+
+    /**
+     * Checks whether the storage of a pod has a file
+     *
+     * @param file the file name
+     * @param podId the pod id
+     * @return whether the file is in the storage of the pod
+     */
+    public static boolean hasFile(String file, int podId) {
+        Catalog catalog = catalog();
+        Replicas replicas = catalog.dataReplicaCatalog.get(file);
+        if (replicas == null) {
+            return false;
+        }
+        int siteId = catalog.findPodSiteId(podId);
+        return siteId >= 0 && hasFile(catalog, replicas, siteId);
+    }
+
+    private static boolean hasFile(Catalog catalog, Replicas replicas, int siteId) {
+        BitSet files = catalog.siteFiles[siteId];
+        synchronized (files) {
+            return files.get(replicas.fileId);
+        }
+    }
+
+    /**
+     * Gets the files in a storage, in the order their names were first added
+     * to the catalog
+     *
+     * @param storage the storage
+     * @return the file names
+     */
+    public static List<String> getFileList(String storage) {
+        Catalog catalog = catalog();
+        Integer siteId = catalog.siteIds.get(storage);
+        if (siteId == null) {
+            return Collections.emptyList();
+        }
+        BitSet files = catalog.siteFiles[siteId];
+        String[] fileNames = catalog.fileNames;
+        List<String> list;
+        synchronized (files) {
+            list = new ArrayList<>(files.cardinality());
+            for (int id = files.nextSetBit(0); id >= 0; id = files.nextSetBit(id + 1)) {
+                list.add(fileNames[id]);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Gets the number of files in a storage
+     *
+     * @param storage the storage
+     * @return the number of files
+     */
+    public static int getFileCount(String storage) {
+        Catalog catalog = catalog();
+        Integer siteId = catalog.siteIds.get(storage);
+        if (siteId == null) {
+            return 0;
         }
-        List<String> list = getStorageList(file);
-        if (!list.contains(storage)) {
-            list.add(storage);
+        BitSet files = catalog.siteFiles[siteId];
+        synchronized (files) {
+            return files.cardinality();
         }
-        //Log.printLine(list);
     }
 }